@@ -0,0 +1,56 @@
+package github.gpt.api.sync;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制同时处理的请求数。
+ * <p>
+ * 虚拟线程模式下 Jetty 为每个请求创建一个虚拟线程，不再受线程池大小限制；
+ * 为避免大量慢请求同时压到上游，超过上限的请求在此排队，等待超时后返回 503。
+ */
+@Slf4j
+class ConcurrencyLimitHandler extends HandlerWrapper {
+
+    private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+
+    private final Semaphore permits;
+
+    ConcurrencyLimitHandler(int maxConcurrentRequests) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("并发请求数已达上限，拒绝请求: {} {}", request.getMethod(), target);
+            baseRequest.setHandled(true);
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setContentType("application/json; charset=utf-8");
+            response.getOutputStream().write("{\"success\":false,\"error\":\"服务繁忙，请稍后重试\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        try {
+            super.handle(target, baseRequest, request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
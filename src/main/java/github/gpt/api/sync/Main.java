@@ -1,16 +1,40 @@
 package github.gpt.api.sync;
 
-import com.google.gson.GsonBuilder;
 import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigFileWatcher;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.GptLoadSource;
+import github.gpt.api.sync.config.NewApiTarget;
 import github.gpt.api.sync.controller.ApiController;
 import github.gpt.api.sync.controller.ConfigController;
+import github.gpt.api.sync.controller.RecordingController;
+import github.gpt.api.sync.controller.StaticAssetController;
 import github.gpt.api.sync.controller.SyncController;
+import github.gpt.api.sync.controller.SyncHistoryController;
+import github.gpt.api.sync.controller.WebhookController;
+import github.gpt.api.sync.json.Json;
 import github.gpt.api.sync.service.ChannelMapperService;
+import github.gpt.api.sync.service.ChannelModelService;
+import github.gpt.api.sync.service.ChannelPruneService;
+import github.gpt.api.sync.service.GroupChangeDebouncer;
+import github.gpt.api.sync.service.ModelListCache;
 import github.gpt.api.sync.service.GptLoadService;
+import github.gpt.api.sync.service.ModelMappingStore;
 import github.gpt.api.sync.service.ModelRedirectService;
+import github.gpt.api.sync.service.ModelRemapService;
 import github.gpt.api.sync.service.NewApiService;
+import github.gpt.api.sync.service.PendingWriteResumeService;
+import github.gpt.api.sync.service.ReplicaCoordinator;
+import github.gpt.api.sync.service.SyncCoordinationService;
+import github.gpt.api.sync.service.SyncHistoryStore;
+import github.gpt.api.sync.service.SyncOutbox;
+import github.gpt.api.sync.service.SyncPipelineService;
+import github.gpt.api.sync.service.SyncRunRegistry;
 import io.javalin.Javalin;
+import io.javalin.compression.CompressionStrategy;
+import io.javalin.compression.Gzip;
 import io.javalin.http.Context;
+import io.javalin.http.staticfiles.Location;
 import io.javalin.json.JavalinGson;
 import io.javalin.plugin.bundled.CorsPluginConfig;
 import lombok.extern.slf4j.Slf4j;
@@ -24,16 +48,27 @@ import java.util.Map;
 @Slf4j
 public class Main {
 
+    /**
+     * 超过该大小的 JSON 等动态响应使用 gzip 压缩（字节）
+     */
+    private static final int COMPRESSION_MIN_SIZE = 4096;
+
     private static GptLoadService gptLoadService;
     private static NewApiService newApiService;
     private static ChannelMapperService channelMapperService;
     private static ModelRedirectService modelRedirectService;
+    private static ChannelPruneService channelPruneService;
+    private static ModelMappingStore modelMappingStore;
+    private static SyncHistoryStore syncHistoryStore;
+    private static ModelListCache modelListCache;
+    private static SyncOutbox syncOutbox;
+    private static ReplicaCoordinator replicaCoordinator;
 
     public static void main(String[] args) {
         log.info("GPT-API同步服务启动中...");
 
         // 设置日志级别
-        setLogLevel(AppConfig.LOG_LEVEL);
+        setLogLevel(AppConfig.current().getLogLevel());
 
         try {
             // 初始化服务
@@ -43,7 +78,7 @@ public class Main {
             Javalin app = setupWebServer();
 
             // 获取端口配置
-            int port = AppConfig.SERVER_PORT;
+            int port = AppConfig.current().getServerPort();
 
             // 启动服务器
             app.start(port);
@@ -82,9 +117,31 @@ public class Main {
         modelRedirectService = new ModelRedirectService();
         log.info("ModelRedirectService 初始化完成");
 
+        // 初始化ChannelPruneService
+        channelPruneService = new ChannelPruneService();
+        log.info("ChannelPruneService 初始化完成");
+
+        // 初始化模型映射缓存（首次使用时才读取文件）
+        modelMappingStore = new ModelMappingStore();
+
+        // 初始化同步历史（首次使用时才打开数据库）
+        syncHistoryStore = new SyncHistoryStore();
+
+        // 初始化上游模型列表缓存，各目标和多次同步共用
+        modelListCache = new ModelListCache();
+
+        // 初始化同步写入 outbox（首次使用时才打开数据库）
+        syncOutbox = new SyncOutbox();
+
+        // 初始化多副本协调（需要重启生效），未启用时不打开协调数据库
+        replicaCoordinator = new ReplicaCoordinator(AppConfig.current().getCoordination());
+
         // 测试服务连接
         testServicesConnection();
 
+        // 监听配置文件变化并自动重新加载
+        new ConfigFileWatcher().start();
+
         log.info("所有服务组件初始化完成");
     }
 
@@ -92,16 +149,57 @@ public class Main {
      * 设置Web服务器和路由
      */
     private static Javalin setupWebServer() {
-        SyncController syncController = new SyncController(gptLoadService, newApiService, channelMapperService, modelRedirectService);
+        // 同步、继续未完成的写入和更新模型映射共用运行控制，三者互斥执行
+        SyncRunRegistry syncRunRegistry = new SyncRunRegistry();
+        ChannelModelService channelModelService = new ChannelModelService(gptLoadService, modelRedirectService, modelMappingStore,
+                modelListCache, syncOutbox);
+        SyncCoordinationService syncCoordinationService = new SyncCoordinationService(
+                new SyncPipelineService(gptLoadService, channelMapperService, channelPruneService, channelModelService, syncHistoryStore,
+                        syncOutbox, syncRunRegistry),
+                new PendingWriteResumeService(channelModelService, syncHistoryStore, syncOutbox, syncRunRegistry),
+                new ModelRemapService(gptLoadService, channelPruneService, channelModelService, syncHistoryStore, syncRunRegistry),
+                replicaCoordinator, syncRunRegistry);
+        SyncController syncController = new SyncController(syncCoordinationService, syncRunRegistry);
+        // 在启动前先续约一次，启动后继续写入时已知道本副本是否为 leader；退出时释放租约，其他副本无需等待过期
+        replicaCoordinator.start(syncCoordinationService);
+        // 标准模型列表变化时在后台增量更新渠道的模型映射
+        AppConfig.addReloadListener(syncCoordinationService::onConfigReloaded);
+        Runtime.getRuntime().addShutdownHook(new Thread(replicaCoordinator::leave, "replica-leave"));
+        // 分组变更通知合并后只同步变更的分组，合并时长每次读取当前配置
+        GroupChangeDebouncer groupChangeDebouncer = new GroupChangeDebouncer(syncCoordinationService::runTargetedSync,
+                () -> AppConfig.current().getWebhook().getDebounceMillis(),
+                () -> AppConfig.current().getWebhook().getMaxDelayMillis());
+        WebhookController webhookController = new WebhookController(groupChangeDebouncer);
+        SyncHistoryController syncHistoryController = new SyncHistoryController(syncHistoryStore);
         ApiController apiController = new ApiController(gptLoadService, newApiService);
         ConfigController configController = new ConfigController();
+        RecordingController recordingController = new RecordingController();
+        StaticAssetController staticAssetController = new StaticAssetController();
 
+        ConfigSnapshot serverConfig = AppConfig.current();
         return Javalin.create(config -> {
+                    if (serverConfig.isServerVirtualThreads()) {
+                        // 请求在虚拟线程上处理，阻塞的上游调用不会占满平台线程池
+                        config.useVirtualThreads = true;
+                        config.jetty.modifyServer(server ->
+                                server.setHandler(new ConcurrencyLimitHandler(serverConfig.getServerMaxConcurrentRequests())));
+                        log.info("使用虚拟线程处理请求，最大并发请求数: {}", serverConfig.getServerMaxConcurrentRequests());
+                    }
                     config.bundledPlugins.enableCors(corsPluginConfig -> corsPluginConfig.addRule(CorsPluginConfig.CorsRule::anyHost));
                     config.showJavalinBanner = false;
+                    // 启动后在后台继续上次进程退出前未完成的写入，不阻塞启动
+                    config.events.serverStarted(() -> Thread.ofPlatform().daemon().name("sync-outbox-resume").start(syncCoordinationService::resumePendingWrites));
                     config.http.defaultContentType = "application/json; charset=utf-8";
-                    config.jsonMapper(new JavalinGson(new GsonBuilder().serializeNulls().create(), true));
-                    config.staticFiles.add("/static");
+                    config.jsonMapper(new JavalinGson(Json.GSON.newBuilder().serializeNulls().create(), true));
+                    CompressionStrategy compression = new CompressionStrategy(null, new Gzip(6));
+                    compression.setDefaultMinSizeForCompression(COMPRESSION_MIN_SIZE);
+                    config.http.customCompression(compression);
+                    // index.html 和 assets/ 由 StaticAssetController 提供预压缩和缓存控制，其余静态文件照常提供
+                    config.staticFiles.add(staticFiles -> {
+                        staticFiles.directory = "/static";
+                        staticFiles.location = Location.CLASSPATH;
+                        staticFiles.skipFileFunction = request -> StaticAssetController.handles(request.getRequestURI());
+                    });
                 })
                 .after(ctx -> {
                     ctx.header("Access-Control-Allow-Origin", "*")
@@ -112,13 +210,23 @@ public class Main {
                 })
                 .exception(Exception.class, (e, ctx) -> log.error("捕获异常 {}, ", e.getMessage(), e))
                 .get("/", ctx -> ctx.redirect("/index.html"))
+                .get(StaticAssetController.INDEX_PATH, staticAssetController::handleIndex)
+                .get(StaticAssetController.ASSETS_PREFIX + "<path>", staticAssetController::handleAsset)
                 .post("/sync", syncController::syncChannels)
+                .post("/sync/webhook", webhookController::handleGroupChange)
+                .post("/sync/cancel", syncController::cancelSync)
+                .get("/sync/history", syncHistoryController::handleHistory)
+                .get("/sync/history/{id}", syncHistoryController::handleRun)
                 .get("/status", Main::handleStatusRequest)
                 .get("/api/gpt-load", apiController::getGptLoadInfo)
                 .get("/api/new-api", apiController::getNewApiInfo)
                 .get("/config", configController::handleGetConfig)
                 .post("/config/reload", configController::handleReloadConfig)
                 .put("/config", configController::handleUpdateConfig)
+                .get("/admin/jfr", recordingController::handleStatus)
+                .post("/admin/jfr/start", recordingController::handleStart)
+                .get("/admin/jfr/dump", recordingController::handleDump)
+                .post("/admin/jfr/stop", recordingController::handleStop)
                 .get("/first", ctx -> ctx.result(String.valueOf(AppConfig.isFirstStart)))
                 .exception(Exception.class, (e, ctx) -> {
                     log.error("请求处理出现异常: {}", e.getMessage(), e);
@@ -145,12 +253,17 @@ public class Main {
         connections.put("gptLoad", gptLoadService.testConnection());
         connections.put("newApi", newApiService.testConnection());
         status.put("connections", connections);
+        status.put("modelListCache", modelListCache.stats());
+        status.put("coordination", replicaCoordinator.status());
 
         // 环境配置
+        ConfigSnapshot snapshot = AppConfig.current();
         Map<String, String> config = new HashMap<>();
-        config.put("gptLoadUrl", AppConfig.GPT_LOAD_BASE_URL);
-        config.put("newApiUrl", AppConfig.NEW_API_BASE_URL);
+        config.put("gptLoadUrl", snapshot.getGptLoadBaseUrl());
+        config.put("newApiUrl", snapshot.getNewApiBaseUrl());
         status.put("config", config);
+        status.put("gptLoadSources", snapshot.getGptLoadSources().stream().map(GptLoadSource::getName).toList());
+        status.put("newApiTargets", snapshot.getNewApiTargets().stream().map(NewApiTarget::getName).toList());
 
         ctx.json(status);
     }
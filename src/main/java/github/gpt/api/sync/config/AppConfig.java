@@ -2,52 +2,55 @@ package github.gpt.api.sync.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import lombok.Data;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 @Slf4j
 public class AppConfig {
 
-    private static final String DATA_PATH = "./data";
+    public static final String DATA_PATH = "./data";
     public static final String CONFIG_FILE = DATA_PATH + "/config.json";
-    @Getter
-    private static ConfigData configData;
 
-    // GPT-Load配置
-    public static String GPT_LOAD_BASE_URL;
-    public static String GPT_LOAD_AUTH_KEY;
-
-    // New-API配置
-    public static String NEW_API_BASE_URL;
-    public static String NEW_API_ACCESS_TOKEN;
-    public static String NEW_API_USER_ID;
-    public static AuthHeaderType NEW_API_AUTH_HEADER_TYPE;
-
-    // 服务器配置
-    public static int SERVER_PORT;
-
-    // 同步配置
-    public static int CONNECTION_TIMEOUT;
-    public static int READ_TIMEOUT;
+    /**
+     * 当前生效的配置快照。读取方无需加锁，重新加载时整体替换。
+     */
+    private static final AtomicReference<ConfigSnapshot> CURRENT = new AtomicReference<>();
 
-    // 模型重定向配置
-    public static List<String> STANDARD_MODELS;
+    /**
+     * 最近一次加载的配置文件内容摘要，用于忽略内容未变化的文件事件
+     */
+    private static byte[] loadedFileDigest;
 
-    // 日志配置
-    public static String LOG_LEVEL;
+    /**
+     * 发布新配置快照后调用的监听器，参数为旧快照和新快照
+     */
+    private static final List<BiConsumer<ConfigSnapshot, ConfigSnapshot>> RELOAD_LISTENERS = new CopyOnWriteArrayList<>();
 
     public static final boolean isFirstStart;
 
+    /**
+     * 序列化原始配置时保留 null 字段，保证副本与原配置一致
+     */
+    static final Gson CONFIG_GSON = new GsonBuilder().serializeNulls().create();
+
     static {
         reloadConfig();
         isFirstStart = Files.notExists(Path.of(CONFIG_FILE));
@@ -60,41 +63,153 @@ public class AppConfig {
             }
         }
         // 将更新后的配置写回文件
-        var gson = new GsonBuilder().serializeNulls().create();
         try (FileWriter writer = new FileWriter(CONFIG_FILE)) {
-            gson.toJson(configData, writer);
+            CONFIG_GSON.toJson(getConfigData(), writer);
         } catch (IOException e) {
             log.error("写入配置文件失败", e);
         }
     }
 
     /**
-     * 重新加载配置文件并更新所有配置字段。
-     * 这是一个同步方法，以防止并发重载问题。
+     * 获取当前生效的配置快照。
+     */
+    public static ConfigSnapshot current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 注册配置重新加载的监听器，每次发布新快照后以（旧快照，新快照）调用。
+     * 监听器在重新加载的线程中持有配置锁调用，耗时的操作应交给其他线程执行。
+     */
+    public static void addReloadListener(BiConsumer<ConfigSnapshot, ConfigSnapshot> listener) {
+        RELOAD_LISTENERS.add(listener);
+    }
+
+    /**
+     * 获取当前生效的原始配置的副本，仅用于展示和回写。
+     */
+    public static ConfigData getConfigData() {
+        return CURRENT.get().copyConfigData();
+    }
+
+    /**
+     * 重新加载配置文件并发布新的配置快照。
+     * 写入方之间通过同步互斥，读取方始终只会看到完整的旧快照或新快照。
      */
     public static synchronized void reloadConfig() {
         log.info("正在重新加载配置...");
-        configData = loadConfig();
+        byte[] content = readConfigFile();
+        ConfigData configData = null;
+        if (content != null) {
+            try {
+                configData = parseConfig(content);
+            } catch (JsonParseException e) {
+                log.error("配置文件 '{}' 格式错误，将使用默认配置。", CONFIG_FILE, e);
+            }
+        }
+        if (configData == null) {
+            configData = new ConfigData(); // 使用默认配置
+        }
+        publish(configData, content);
+    }
+
+    /**
+     * 当配置文件内容与上次加载时不同时重新加载。
+     * 文件格式错误（例如编辑器写入到一半）时保留当前配置。
+     *
+     * @return 是否发布了新的配置快照
+     */
+    public static synchronized boolean reloadConfigIfChanged() {
+        byte[] content = readConfigFile();
+        if (content == null || Arrays.equals(digest(content), loadedFileDigest)) {
+            return false;
+        }
+        ConfigData configData;
+        try {
+            configData = parseConfig(content);
+        } catch (JsonParseException e) {
+            log.warn("配置文件 '{}' 格式错误，保留当前配置: {}", CONFIG_FILE, e.getMessage());
+            return false;
+        }
+        if (configData == null) {
+            return false;
+        }
+        log.info("检测到配置文件变化，正在重新加载配置...");
+        publish(configData, content);
+        return true;
+    }
+
+    private static void publish(ConfigData configData, byte[] content) {
+        ConfigSnapshot snapshot = buildSnapshot(configData);
+        ConfigSnapshot previous = CURRENT.getAndSet(snapshot);
+        loadedFileDigest = content != null ? digest(content) : null;
+        logConfiguration(snapshot);
+        log.info("配置重新加载完成。");
+        if (previous != null) {
+            for (BiConsumer<ConfigSnapshot, ConfigSnapshot> listener : RELOAD_LISTENERS) {
+                try {
+                    listener.accept(previous, snapshot);
+                } catch (RuntimeException e) {
+                    log.error("配置重新加载监听器执行失败", e);
+                }
+            }
+        }
+    }
 
-        // 从加载的配置初始化字段
-        GPT_LOAD_BASE_URL = getEnvOrDefault("GPT_LOAD_BASE_URL", configData.getGptLoad().getBaseUrl());
-        GPT_LOAD_AUTH_KEY = getEnvOrDefault("GPT_LOAD_AUTH_KEY", configData.getGptLoad().getAuthKey());
+    private static ConfigSnapshot buildSnapshot(ConfigData configData) {
+        // 补全旧版本配置文件中缺失的字段
+        if (configData.getGptLoadSources() == null) {
+            configData.setGptLoadSources(new ArrayList<>());
+        }
+        if (configData.getNewApiTargets() == null) {
+            configData.setNewApiTargets(new ArrayList<>());
+        }
+        if (configData.getPrune() == null) {
+            configData.setPrune(new Prune());
+        }
+        if (configData.getHistory() == null) {
+            configData.setHistory(new History());
+        }
+        if (configData.getWebhook() == null) {
+            configData.setWebhook(new Webhook());
+        }
+        if (configData.getAdmin() == null) {
+            configData.setAdmin(new Admin());
+        }
+
+        // GPT-Load配置
+        String gptLoadBaseUrl = getEnvOrDefault("GPT_LOAD_BASE_URL", configData.getGptLoad().getBaseUrl());
+        String gptLoadAuthKey = getEnvOrDefault("GPT_LOAD_AUTH_KEY", configData.getGptLoad().getAuthKey());
+        List<GptLoadSource> gptLoadSources = resolveGptLoadSources(configData, gptLoadBaseUrl, gptLoadAuthKey);
+        if (!configData.getGptLoadSources().isEmpty()) {
+            // 多源模式下以第一个源作为主源，用于状态展示和连接测试
+            gptLoadBaseUrl = gptLoadSources.get(0).getBaseUrl();
+            gptLoadAuthKey = gptLoadSources.get(0).getAuthKey();
+        }
 
-        NEW_API_BASE_URL = getEnvOrDefault("NEW_API_BASE_URL", configData.getNewApi().getBaseUrl());
-        NEW_API_ACCESS_TOKEN = getEnvOrDefault("NEW_API_ACCESS_TOKEN", configData.getNewApi().getAccessToken());
-        NEW_API_USER_ID = getEnvOrDefault("NEW_API_USER_ID", configData.getNewApi().getUserId());
+        // New-API配置
+        String newApiBaseUrl = getEnvOrDefault("NEW_API_BASE_URL", configData.getNewApi().getBaseUrl());
+        String newApiAccessToken = getEnvOrDefault("NEW_API_ACCESS_TOKEN", configData.getNewApi().getAccessToken());
+        String newApiUserId = getEnvOrDefault("NEW_API_USER_ID", configData.getNewApi().getUserId());
         String authHeaderTypeStr = getEnvOrDefault("NEW_API_AUTH_HEADER_TYPE", configData.getNewApi().getAuthType());
+        AuthHeaderType newApiAuthHeaderType;
         try {
-            NEW_API_AUTH_HEADER_TYPE = AuthHeaderType.valueOf(authHeaderTypeStr);
+            newApiAuthHeaderType = AuthHeaderType.valueOf(authHeaderTypeStr);
         } catch (IllegalArgumentException e) {
             log.warn("无效的 authHeaderType 值 '{}', 将使用默认值 'NEW_API'", authHeaderTypeStr);
-            NEW_API_AUTH_HEADER_TYPE = AuthHeaderType.NEW_API;
+            newApiAuthHeaderType = AuthHeaderType.NEW_API;
+        }
+        NewApiTarget defaultTarget = new NewApiTarget(configData.getNewApi().getName(), newApiBaseUrl, newApiAccessToken,
+                newApiUserId, newApiAuthHeaderType);
+        List<NewApiTarget> newApiTargets = resolveNewApiTargets(configData, defaultTarget);
+        if (!configData.getNewApiTargets().isEmpty()) {
+            // 多目标模式下以第一个目标作为主目标，用于状态展示和接口查询
+            NewApiTarget primary = newApiTargets.get(0);
+            newApiBaseUrl = primary.getBaseUrl();
+            newApiAccessToken = primary.getAccessToken();
+            newApiUserId = primary.getUserId();
+            newApiAuthHeaderType = primary.getAuthHeaderType();
         }
-
-        SERVER_PORT = getIntEnv("SERVER_PORT", configData.getServer().getPort());
-
-        CONNECTION_TIMEOUT = getIntEnv("CONNECTION_TIMEOUT", configData.getSync().getConnectionTimeout());
-        READ_TIMEOUT = getIntEnv("READ_TIMEOUT", configData.getSync().getReadTimeout());
 
         List<String> defaultStandardModels = List.of(
                 "gpt-4o",
@@ -110,42 +225,200 @@ public class AppConfig {
                 "gemini-2.5-flash",
                 "gemini-2.5-pro"
         );
-        if (configData.getModelRedirect() == null || configData.getModelRedirect().getStandardModels().isEmpty()) {
+        if (configData.getModelRedirect() == null || configData.getModelRedirect().getStandardModels() == null
+            || configData.getModelRedirect().getStandardModels().isEmpty()) {
             ModelRedirect modelRedirect = new ModelRedirect();
             modelRedirect.setStandardModels(defaultStandardModels);
             configData.setModelRedirect(modelRedirect);
         }
-        STANDARD_MODELS = configData.getModelRedirect().getStandardModels();
 
-        LOG_LEVEL = getEnvOrDefault("LOG_LEVEL", configData.getLog().getLevel());
+        String modelDiscoveryStr = getEnvOrDefault("MODEL_DISCOVERY", configData.getSync().getModelDiscovery());
+        ModelDiscovery modelDiscovery;
+        try {
+            modelDiscovery = ModelDiscovery.valueOf(modelDiscoveryStr);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("无效的 modelDiscovery 值 '{}', 将使用默认值 'NEW_API'", modelDiscoveryStr);
+            modelDiscovery = ModelDiscovery.NEW_API;
+        }
 
-        logConfiguration();
-        log.info("配置重新加载完成。");
+        String coordinationModeStr = getEnvOrDefault("COORDINATION_MODE", configData.getCoordination().getMode());
+        CoordinationMode coordinationMode;
+        try {
+            coordinationMode = CoordinationMode.valueOf(coordinationModeStr);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("无效的 coordination.mode 值 '{}', 将使用默认值 'NONE'", coordinationModeStr);
+            coordinationMode = CoordinationMode.NONE;
+        }
+
+        Prune prune = configData.getPrune();
+        History history = configData.getHistory();
+        Webhook webhook = configData.getWebhook();
+        Coordination coordination = configData.getCoordination();
+        Admin admin = configData.getAdmin();
+        return ConfigSnapshot.builder()
+                .configDataJson(CONFIG_GSON.toJson(configData))
+                .gptLoadBaseUrl(gptLoadBaseUrl)
+                .gptLoadAuthKey(gptLoadAuthKey)
+                .gptLoadSources(gptLoadSources)
+                .newApiBaseUrl(newApiBaseUrl)
+                .newApiAccessToken(newApiAccessToken)
+                .newApiUserId(newApiUserId)
+                .newApiAuthHeaderType(newApiAuthHeaderType)
+                .newApiTargets(newApiTargets)
+                .serverPort(getIntEnv("SERVER_PORT", configData.getServer().getPort()))
+                .serverVirtualThreads(getBooleanEnv("SERVER_VIRTUAL_THREADS", configData.getServer().isVirtualThreads()))
+                .serverMaxConcurrentRequests(getIntEnv("SERVER_MAX_CONCURRENT_REQUESTS", configData.getServer().getMaxConcurrentRequests()))
+                .connectionTimeout(getIntEnv("CONNECTION_TIMEOUT", configData.getSync().getConnectionTimeout()))
+                .readTimeout(getIntEnv("READ_TIMEOUT", configData.getSync().getReadTimeout()))
+                .modelDiscovery(modelDiscovery)
+                .modelDiscoveryConcurrency(Math.max(1, configData.getSync().getModelDiscoveryConcurrency()))
+                .modelCacheTtlSeconds(Math.max(0, getIntEnv("MODEL_CACHE_TTL_SECONDS", configData.getSync().getModelCacheTtlSeconds())))
+                .skipUnchangedMaxAgeMinutes(Math.max(0, getIntEnv("SKIP_UNCHANGED_MAX_AGE_MINUTES", configData.getSync().getSkipUnchangedMaxAgeMinutes())))
+                .runTimeoutSeconds(Math.max(0, getIntEnv("SYNC_RUN_TIMEOUT_SECONDS", configData.getSync().getRunTimeoutSeconds())))
+                .standardModels(List.copyOf(configData.getModelRedirect().getStandardModels()))
+                .prune(new ConfigSnapshot.PruneSettings(prune.isEnabled(), prune.isDryRun(),
+                        prune.getGracePeriodMinutes(), prune.getBatchSize()))
+                .history(new ConfigSnapshot.HistorySettings(history.isEnabled(), history.getGroupRetentionDays(),
+                        history.getRunRetentionDays(), history.getRollupRetentionDays()))
+                .webhook(new ConfigSnapshot.WebhookSettings(getEnvOrDefault("WEBHOOK_TOKEN", webhook.getToken() != null ? webhook.getToken() : ""),
+                        webhook.getDebounceMillis(), webhook.getMaxDelayMillis()))
+                .coordination(new ConfigSnapshot.CoordinationSettings(coordinationMode,
+                        getEnvOrDefault("COORDINATION_DB", coordination.getDbPath()),
+                        getEnvOrDefault("COORDINATION_MEMBER_ID", coordination.getMemberId() != null ? coordination.getMemberId() : ""),
+                        Math.max(3, getIntEnv("COORDINATION_LEASE_SECONDS", coordination.getLeaseSeconds()))))
+                .adminToken(getEnvOrDefault("ADMIN_TOKEN", admin.getToken() != null ? admin.getToken() : ""))
+                .logLevel(getEnvOrDefault("LOG_LEVEL", configData.getLog().getLevel()))
+                .build();
+    }
+
+    /**
+     * 解析 gpt-load 数据源列表。
+     * 如果配置了 gptLoadSources 则使用该列表，否则使用单个 gptLoad 配置（支持环境变量覆盖）。
+     */
+    private static List<GptLoadSource> resolveGptLoadSources(ConfigData configData, String baseUrl, String authKey) {
+        List<GptLoad> configured = configData.getGptLoadSources();
+        if (configured.isEmpty()) {
+            return List.of(new GptLoadSource(configData.getGptLoad().getName(), baseUrl, authKey));
+        }
+
+        List<GptLoadSource> sources = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < configured.size(); i++) {
+            GptLoad gptLoad = configured.get(i);
+            if (gptLoad.getBaseUrl() == null || gptLoad.getBaseUrl().isBlank()) {
+                log.warn("忽略未配置 baseUrl 的 gpt-load 源 (索引: {})", i);
+                continue;
+            }
+            String name = gptLoad.getName() == null || gptLoad.getName().isBlank() ? "source-" + (i + 1) : gptLoad.getName();
+            if (!names.add(name)) {
+                log.warn("gpt-load 源名称重复: '{}', 渠道名称可能无法区分来源", name);
+            }
+            sources.add(new GptLoadSource(name, gptLoad.getBaseUrl(), gptLoad.getAuthKey() == null ? "" : gptLoad.getAuthKey()));
+        }
+        if (sources.isEmpty()) {
+            log.warn("gptLoadSources 中没有有效的源，将使用 gptLoad 配置");
+            return List.of(new GptLoadSource(configData.getGptLoad().getName(), baseUrl, authKey));
+        }
+        return List.copyOf(sources);
+    }
+
+    /**
+     * 解析 New-API 同步目标列表。
+     * 如果配置了 newApiTargets 则使用该列表，否则使用单个 newApi 配置（支持环境变量覆盖）。
+     */
+    private static List<NewApiTarget> resolveNewApiTargets(ConfigData configData, NewApiTarget defaultTarget) {
+        List<NewApi> configured = configData.getNewApiTargets();
+        if (configured.isEmpty()) {
+            return List.of(defaultTarget);
+        }
+
+        List<NewApiTarget> targets = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < configured.size(); i++) {
+            NewApi newApi = configured.get(i);
+            if (newApi.getBaseUrl() == null || newApi.getBaseUrl().isBlank()) {
+                log.warn("忽略未配置 baseUrl 的 New-API 目标 (索引: {})", i);
+                continue;
+            }
+            String name = newApi.getName() == null || newApi.getName().isBlank() ? "target-" + (i + 1) : newApi.getName();
+            if (!names.add(name)) {
+                log.warn("New-API 目标名称重复: '{}'", name);
+            }
+            AuthHeaderType authHeaderType;
+            try {
+                authHeaderType = AuthHeaderType.valueOf(newApi.getAuthType());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                log.warn("New-API 目标 '{}' 的 authHeaderType 值 '{}' 无效, 将使用默认值 'NEW_API'", name, newApi.getAuthType());
+                authHeaderType = AuthHeaderType.NEW_API;
+            }
+            targets.add(new NewApiTarget(name, newApi.getBaseUrl(),
+                    newApi.getAccessToken() == null ? "" : newApi.getAccessToken(), newApi.getUserId(), authHeaderType));
+        }
+        if (targets.isEmpty()) {
+            log.warn("newApiTargets 中没有有效的目标，将使用 newApi 配置");
+            return List.of(defaultTarget);
+        }
+        return List.copyOf(targets);
     }
 
-    private static ConfigData loadConfig() {
-        try (FileReader reader = new FileReader(CONFIG_FILE, StandardCharsets.UTF_8)) {
+    /**
+     * 读取配置文件内容，文件不存在或无法读取时返回 null。
+     */
+    private static byte[] readConfigFile() {
+        try {
+            byte[] content = Files.readAllBytes(Path.of(CONFIG_FILE));
             log.info("从 {} 加载配置...", CONFIG_FILE);
-            return new Gson().fromJson(reader, ConfigData.class);
+            return content;
         } catch (IOException e) {
             log.error("无法加载配置文件 '{}'. 请确保文件存在且格式正确。将使用默认配置。", CONFIG_FILE, e);
-            return new ConfigData(); // 返回默认配置
+            return null;
         }
     }
 
-    private static void logConfiguration() {
+    private static ConfigData parseConfig(byte[] content) {
+        return new Gson().fromJson(new String(content, StandardCharsets.UTF_8), ConfigData.class);
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void logConfiguration(ConfigSnapshot config) {
         log.info("==================== 应用配置 ====================");
-        log.info("GPT_LOAD_BASE_URL: {}", GPT_LOAD_BASE_URL);
-        log.info("GPT_LOAD_AUTH_KEY: {}", GPT_LOAD_AUTH_KEY.isEmpty() ? "未设置" : "已设置");
-        log.info("NEW_API_BASE_URL: {}", NEW_API_BASE_URL);
-        log.info("NEW_API_ACCESS_TOKEN: {}", NEW_API_ACCESS_TOKEN.isEmpty() ? "未设置" : "已设置");
-        log.info("NEW_API_USER_ID: {}", NEW_API_USER_ID);
-        log.info("NEW_API_AUTH_HEADER_TYPE: {}", NEW_API_AUTH_HEADER_TYPE.getHeaderName());
-        log.info("SERVER_PORT: {}", SERVER_PORT);
-        log.info("CONNECTION_TIMEOUT: {}ms", CONNECTION_TIMEOUT);
-        log.info("READ_TIMEOUT: {}ms", READ_TIMEOUT);
-        log.info("STANDARD_MODELS_COUNT: {}", STANDARD_MODELS.size());
-        log.info("LOG_LEVEL: {}", LOG_LEVEL);
+        log.info("GPT_LOAD_BASE_URL: {}", config.getGptLoadBaseUrl());
+        log.info("GPT_LOAD_AUTH_KEY: {}", config.getGptLoadAuthKey().isEmpty() ? "未设置" : "已设置");
+        log.info("GPT_LOAD_SOURCES: {}", config.getGptLoadSources().stream().map(s -> s.getName() + "=" + s.getBaseUrl()).toList());
+        log.info("NEW_API_BASE_URL: {}", config.getNewApiBaseUrl());
+        log.info("NEW_API_ACCESS_TOKEN: {}", config.getNewApiAccessToken().isEmpty() ? "未设置" : "已设置");
+        log.info("NEW_API_USER_ID: {}", config.getNewApiUserId());
+        log.info("NEW_API_AUTH_HEADER_TYPE: {}", config.getNewApiAuthHeaderType().getHeaderName());
+        log.info("NEW_API_TARGETS: {}", config.getNewApiTargets().stream().map(t -> t.getName() + "=" + t.getBaseUrl()).toList());
+        log.info("SERVER_PORT: {}", config.getServerPort());
+        log.info("SERVER_VIRTUAL_THREADS: {} (maxConcurrentRequests={})", config.isServerVirtualThreads(),
+                config.getServerMaxConcurrentRequests());
+        log.info("CONNECTION_TIMEOUT: {}ms", config.getConnectionTimeout());
+        log.info("READ_TIMEOUT: {}ms", config.getReadTimeout());
+        log.info("MODEL_DISCOVERY: {} (并发: {})", config.getModelDiscovery(), config.getModelDiscoveryConcurrency());
+        log.info("MODEL_CACHE_TTL_SECONDS: {}", config.getModelCacheTtlSeconds());
+        log.info("SKIP_UNCHANGED_MAX_AGE_MINUTES: {}", config.getSkipUnchangedMaxAgeMinutes());
+        log.info("SYNC_RUN_TIMEOUT_SECONDS: {}", config.getRunTimeoutSeconds());
+        log.info("STANDARD_MODELS_COUNT: {}", config.getStandardModels().size());
+        log.info("PRUNE: enabled={}, dryRun={}, gracePeriod={}min, batchSize={}", config.getPrune().isEnabled(),
+                config.getPrune().isDryRun(), config.getPrune().getGracePeriodMinutes(), config.getPrune().getBatchSize());
+        log.info("HISTORY: enabled={}, retention(groups/runs/rollups)={}/{}/{}d", config.getHistory().isEnabled(),
+                config.getHistory().getGroupRetentionDays(), config.getHistory().getRunRetentionDays(),
+                config.getHistory().getRollupRetentionDays());
+        log.info("WEBHOOK: token={}, debounce={}ms, maxDelay={}ms", config.getWebhook().getToken().isEmpty() ? "未设置" : "已设置",
+                config.getWebhook().getDebounceMillis(), config.getWebhook().getMaxDelayMillis());
+        log.info("COORDINATION: mode={}, db={}, memberId={}, lease={}s", config.getCoordination().getMode(),
+                config.getCoordination().getDbPath(), config.getCoordination().getMemberId().isEmpty() ? "自动" : config.getCoordination().getMemberId(),
+                config.getCoordination().getLeaseSeconds());
+        log.info("ADMIN: token={}", config.getAdminToken().isEmpty() ? "未设置（管理接口已禁用）" : "已设置");
+        log.info("LOG_LEVEL: {}", config.getLogLevel());
         log.info("==================================================");
     }
 
@@ -154,6 +427,14 @@ public class AppConfig {
         return (value != null && !value.trim().isEmpty()) ? value : defaultValue;
     }
 
+    private static boolean getBooleanEnv(String name, boolean defaultValue) {
+        String value = System.getenv(name);
+        if (value != null && !value.trim().isEmpty()) {
+            return Boolean.parseBoolean(value.trim());
+        }
+        return defaultValue;
+    }
+
     private static int getIntEnv(String name, int defaultValue) {
         String value = System.getenv(name);
         if (value != null && !value.trim().isEmpty()) {
@@ -170,21 +451,36 @@ public class AppConfig {
     @Data
     public static class ConfigData {
         private GptLoad gptLoad = new GptLoad();
+        /**
+         * 多个 gpt-load 源，非空时替代 gptLoad 配置
+         */
+        private List<GptLoad> gptLoadSources = new ArrayList<>();
         private NewApi newApi = new NewApi();
+        /**
+         * 多个 New-API 同步目标，非空时替代 newApi 配置
+         */
+        private List<NewApi> newApiTargets = new ArrayList<>();
         private Server server = new Server();
         private Sync sync = new Sync();
         private Log log = new Log();
         private ModelRedirect modelRedirect = new ModelRedirect();
+        private Prune prune = new Prune();
+        private History history = new History();
+        private Webhook webhook = new Webhook();
+        private Coordination coordination = new Coordination();
+        private Admin admin = new Admin();
     }
 
     @Data
     public static class GptLoad {
+        private String name = "default";
         private String baseUrl = "http://localhost:3001";
         private String authKey = "";
     }
 
     @Data
     public static class NewApi {
+        private String name = "default";
         private String baseUrl = "http://localhost:3000";
         private String accessToken = "";
         private String userId = "1";
@@ -194,12 +490,127 @@ public class AppConfig {
     @Data
     public static class Server {
         private int port = 7000;
+        /**
+         * 是否在虚拟线程上处理请求（需要重启生效）
+         */
+        private boolean virtualThreads = false;
+        /**
+         * 虚拟线程模式下同时处理的最大请求数，超出的请求排队等待
+         */
+        private int maxConcurrentRequests = 256;
     }
 
     @Data
     public static class Sync {
         private int connectionTimeout = 10000;
         private int readTimeout = 30000;
+        /**
+         * 获取渠道模型列表的方式: NEW_API 或 GPT_LOAD，见 {@link ModelDiscovery}
+         */
+        private String modelDiscovery = ModelDiscovery.NEW_API.name();
+        /**
+         * GPT_LOAD 方式下同时请求模型列表的分组数
+         */
+        private int modelDiscoveryConcurrency = 16;
+        /**
+         * 上游模型列表的缓存时长（秒），相同 base_url 和密钥的渠道共用，0 表示不缓存
+         */
+        private int modelCacheTtlSeconds = 600;
+        /**
+         * gpt-load 分组和 New-API 渠道指纹都未变化时跳过完整同步的最长时间（分钟），
+         * 距上次完整同步超过该时间后仍执行一次完整同步，0 表示从不跳过。
+         * 渠道指纹只由渠道总数和第一个渠道的ID组成，在 New-API 中手动修改渠道（模型、映射、密钥等）
+         * 不会改变指纹，这类修改最长要等该时间后才会被同步覆盖；经常手动修改渠道时应调小或设为 0
+         */
+        private int skipUnchangedMaxAgeMinutes = 60;
+        /**
+         * 单次同步的时限（秒），超过后停止仍在进行的上游调用并返回部分结果，0 表示不限制
+         */
+        private int runTimeoutSeconds = 1800;
+    }
+
+    @Data
+    public static class Prune {
+        /**
+         * 是否在同步后清理失去 gpt-load 分组的渠道
+         */
+        private boolean enabled = false;
+        /**
+         * 只报告将被删除的渠道，不实际删除
+         */
+        private boolean dryRun = true;
+        /**
+         * 渠道持续失去分组超过该时长后才会被删除
+         */
+        private int gracePeriodMinutes = 60;
+        /**
+         * 每次批量删除请求包含的渠道数量
+         */
+        private int batchSize = 100;
+    }
+
+    @Data
+    public static class History {
+        /**
+         * 是否记录同步历史（data/sync-history.db）
+         */
+        private boolean enabled = true;
+        /**
+         * 每个分组的同步结果保留天数，这部分数据量最大
+         */
+        private int groupRetentionDays = 14;
+        /**
+         * 每次同步的汇总记录保留天数
+         */
+        private int runRetentionDays = 90;
+        /**
+         * 按小时和按天的汇总统计保留天数
+         */
+        private int rollupRetentionDays = 730;
+    }
+
+    @Data
+    public static class Webhook {
+        /**
+         * 调用 /sync/webhook 时需要在 X-Webhook-Token 请求头中提供的令牌，为空时不校验
+         */
+        private String token = "";
+        /**
+         * 最后一次变更通知后等待该时长仍无新通知时才开始同步
+         */
+        private int debounceMillis = 2000;
+        /**
+         * 从第一次变更通知起最多等待的时长，持续有通知时也会在此之后同步
+         */
+        private int maxDelayMillis = 10000;
+    }
+
+    @Data
+    public static class Coordination {
+        /**
+         * 多副本协调方式: NONE、LEADER 或 SHARDED，见 {@link CoordinationMode}（需要重启生效）
+         */
+        private String mode = CoordinationMode.NONE.name();
+        /**
+         * 协调用的 SQLite 文件，所有副本必须指向共享卷上的同一个文件
+         */
+        private String dbPath = DATA_PATH + "/coordination.db";
+        /**
+         * 本副本的成员ID，为空时使用 "主机名-进程号"
+         */
+        private String memberId = "";
+        /**
+         * 成员和 leader 租约的有效期（秒），每隔三分之一有效期续约一次，副本停止续约超过该时长后视为下线
+         */
+        private int leaseSeconds = 30;
+    }
+
+    @Data
+    public static class Admin {
+        /**
+         * 调用 /admin/* 管理接口时需要在 X-Admin-Token 请求头中提供的令牌，为空时管理接口不可用
+         */
+        private String token = "";
     }
 
     @Data
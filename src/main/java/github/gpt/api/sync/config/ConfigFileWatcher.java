@@ -0,0 +1,84 @@
+package github.gpt.api.sync.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监听 data/config.json 的变化并自动重新加载配置。
+ * <p>
+ * 编辑器保存文件时通常会在短时间内产生多个事件，这里在最后一个事件之后等待一段时间再重新加载；
+ * 内容未变化（例如 PUT /config 已经重新加载过）时不会重复发布快照。
+ */
+@Slf4j
+public class ConfigFileWatcher {
+
+    private static final long DEBOUNCE_MS = 500;
+
+    private final Path configDir = Path.of(AppConfig.DATA_PATH);
+    private final Path configFileName = Path.of(AppConfig.CONFIG_FILE).getFileName();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "config-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingReload;
+
+    /**
+     * 启动后台监听线程
+     */
+    public void start() {
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            configDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("无法监听配置目录 {}, 配置热加载不可用", configDir, e);
+            return;
+        }
+
+        Thread thread = new Thread(() -> watch(watchService), "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("已开始监听配置文件变化: {}", AppConfig.CONFIG_FILE);
+    }
+
+    private void watch(WatchService watchService) {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || configFileName.equals(event.context())) {
+                    scheduleReload();
+                }
+            }
+            if (!key.reset()) {
+                log.warn("配置目录 {} 已不可访问，停止监听", configDir);
+                return;
+            }
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = scheduler.schedule(() -> {
+            try {
+                AppConfig.reloadConfigIfChanged();
+            } catch (Exception e) {
+                log.error("自动重新加载配置失败", e);
+            }
+        }, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,115 @@
+package github.gpt.api.sync.config;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 某一时刻的完整应用配置（已应用环境变量覆盖），创建后不可修改。
+ * <p>
+ * 通过 {@link AppConfig#current()} 获取。一次操作中应只获取一次快照并始终使用它，
+ * 这样即使期间配置被重新加载，也不会读到新旧混杂的配置。
+ */
+@Value
+@Builder
+public class ConfigSnapshot {
+
+    /**
+     * 加载该快照时使用的原始配置（JSON），仅用于展示和回写。
+     * 不参与 equals/hashCode，判断配置是否变化时只比较解析后的字段。
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    String configDataJson;
+
+    // GPT-Load配置（多源时为第一个源）
+    String gptLoadBaseUrl;
+    String gptLoadAuthKey;
+    List<GptLoadSource> gptLoadSources;
+
+    // New-API配置（多目标时为第一个目标）
+    String newApiBaseUrl;
+    String newApiAccessToken;
+    String newApiUserId;
+    AuthHeaderType newApiAuthHeaderType;
+    List<NewApiTarget> newApiTargets;
+
+    // 服务器配置
+    int serverPort;
+    boolean serverVirtualThreads;
+    int serverMaxConcurrentRequests;
+
+    // 同步配置
+    int connectionTimeout;
+    int readTimeout;
+    ModelDiscovery modelDiscovery;
+    int modelDiscoveryConcurrency;
+    int modelCacheTtlSeconds;
+    int skipUnchangedMaxAgeMinutes;
+    int runTimeoutSeconds;
+
+    // 模型重定向配置
+    List<String> standardModels;
+
+    // 孤儿渠道清理配置
+    PruneSettings prune;
+
+    // 同步历史配置
+    HistorySettings history;
+
+    // 变更通知配置
+    WebhookSettings webhook;
+
+    // 多副本协调配置
+    CoordinationSettings coordination;
+
+    // 管理接口令牌，为空时管理接口不可用
+    String adminToken;
+
+    // 日志配置
+    String logLevel;
+
+    /**
+     * 返回原始配置的副本，修改副本不会影响该快照。
+     */
+    public AppConfig.ConfigData copyConfigData() {
+        return AppConfig.CONFIG_GSON.fromJson(configDataJson, AppConfig.ConfigData.class);
+    }
+
+    @Value
+    public static class PruneSettings {
+        boolean enabled;
+        boolean dryRun;
+        int gracePeriodMinutes;
+        int batchSize;
+    }
+
+    @Value
+    public static class HistorySettings {
+        boolean enabled;
+        int groupRetentionDays;
+        int runRetentionDays;
+        int rollupRetentionDays;
+    }
+
+    @Value
+    public static class CoordinationSettings {
+        CoordinationMode mode;
+        String dbPath;
+        String memberId;
+        int leaseSeconds;
+    }
+
+    @Value
+    public static class WebhookSettings {
+        String token;
+        int debounceMillis;
+        int maxDelayMillis;
+    }
+}
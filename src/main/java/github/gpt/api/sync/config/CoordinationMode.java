@@ -0,0 +1,20 @@
+package github.gpt.api.sync.config;
+
+/**
+ * 多个副本之间协调同步的方式，副本通过共享卷上的同一个 SQLite 文件协调
+ */
+public enum CoordinationMode {
+    /**
+     * 不协调，每个实例独立同步（单实例部署）
+     */
+    NONE,
+    /**
+     * 选出一个 leader 执行所有同步，其他副本收到的同步请求转交给 leader
+     */
+    LEADER,
+    /**
+     * 按一致性哈希把 gpt-load 分组分给所有存活的副本，每个副本只写入自己负责的分组；
+     * 孤儿渠道清理只由 leader 执行
+     */
+    SHARDED
+}
@@ -0,0 +1,16 @@
+package github.gpt.api.sync.config;
+
+import lombok.Value;
+
+/**
+ * 一个已解析的 gpt-load 数据源（已应用环境变量覆盖）。
+ */
+@Value
+public class GptLoadSource {
+    /**
+     * 源名称，用于日志和多源场景下的渠道命名
+     */
+    String name;
+    String baseUrl;
+    String authKey;
+}
@@ -0,0 +1,16 @@
+package github.gpt.api.sync.config;
+
+/**
+ * 获取渠道实际模型列表的方式
+ */
+public enum ModelDiscovery {
+    /**
+     * 写入渠道后通过 New-API 的 fetch_models 接口获取，New-API 再经由 gpt-load 请求上游，
+     * 需要渠道ID，因此新渠道要在创建后再写入一次模型
+     */
+    NEW_API,
+    /**
+     * 写入渠道前直接请求 gpt-load 的 /proxy/{分组}/ 模型列表接口，首次写入即带上最终的模型和映射
+     */
+    GPT_LOAD
+}
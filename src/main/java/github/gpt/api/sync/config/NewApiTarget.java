@@ -0,0 +1,18 @@
+package github.gpt.api.sync.config;
+
+import lombok.Value;
+
+/**
+ * 一个已解析的 New-API 同步目标（已应用环境变量覆盖）。
+ */
+@Value
+public class NewApiTarget {
+    /**
+     * 目标名称，用于日志和同步结果中区分不同的 New-API 实例
+     */
+    String name;
+    String baseUrl;
+    String accessToken;
+    String userId;
+    AuthHeaderType authHeaderType;
+}
@@ -8,7 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 @Slf4j
 public class ConfigController {
@@ -28,9 +32,23 @@ public class ConfigController {
         if (safeConfig.getGptLoad() != null) {
             safeConfig.getGptLoad().setAuthKey("******");
         }
+        if (safeConfig.getGptLoadSources() != null) {
+            safeConfig.getGptLoadSources().forEach(source -> source.setAuthKey("******"));
+        }
         if (safeConfig.getNewApi() != null) {
             safeConfig.getNewApi().setAccessToken("******");
         }
+        if (safeConfig.getNewApiTargets() != null) {
+            safeConfig.getNewApiTargets().forEach(target -> target.setAccessToken("******"));
+        }
+        if (safeConfig.getWebhook() != null && safeConfig.getWebhook().getToken() != null
+            && !safeConfig.getWebhook().getToken().isEmpty()) {
+            safeConfig.getWebhook().setToken("******");
+        }
+        if (safeConfig.getAdmin() != null && safeConfig.getAdmin().getToken() != null
+            && !safeConfig.getAdmin().getToken().isEmpty()) {
+            safeConfig.getAdmin().setToken("******");
+        }
 
         ctx.json(safeConfig);
     }
@@ -70,6 +88,19 @@ public class ConfigController {
                     newConfigData.getGptLoad().setBaseUrl(baseUrl.substring(0, baseUrl.length() - 1));
                 }
             }
+            if (newConfigData.getGptLoadSources() != null) {
+                List<AppConfig.GptLoad> sources = newConfigData.getGptLoadSources();
+                for (int i = 0; i < sources.size(); i++) {
+                    AppConfig.GptLoad source = sources.get(i);
+                    if ("******".equals(source.getAuthKey())) {
+                        source.setAuthKey(findGptLoadSourceAuthKey(currentConfig, source, i));
+                    }
+                    String baseUrl = source.getBaseUrl();
+                    if (baseUrl != null && baseUrl.endsWith("/")) {
+                        source.setBaseUrl(baseUrl.substring(0, baseUrl.length() - 1));
+                    }
+                }
+            }
             if (newConfigData.getNewApi() != null) {
                 if ("******".equals(newConfigData.getNewApi().getAccessToken())) {
                     newConfigData.getNewApi().setAccessToken(currentConfig.getNewApi().getAccessToken());
@@ -80,6 +111,27 @@ public class ConfigController {
                 }
             }
 
+            if (newConfigData.getNewApiTargets() != null) {
+                List<AppConfig.NewApi> targets = newConfigData.getNewApiTargets();
+                for (int i = 0; i < targets.size(); i++) {
+                    AppConfig.NewApi target = targets.get(i);
+                    if ("******".equals(target.getAccessToken())) {
+                        target.setAccessToken(findNewApiTargetAccessToken(currentConfig, target, i));
+                    }
+                    String baseUrl = target.getBaseUrl();
+                    if (baseUrl != null && baseUrl.endsWith("/")) {
+                        target.setBaseUrl(baseUrl.substring(0, baseUrl.length() - 1));
+                    }
+                }
+            }
+
+            if (newConfigData.getWebhook() != null && "******".equals(newConfigData.getWebhook().getToken())) {
+                newConfigData.getWebhook().setToken(currentConfig.getWebhook().getToken());
+            }
+            if (newConfigData.getAdmin() != null && "******".equals(newConfigData.getAdmin().getToken())) {
+                newConfigData.getAdmin().setToken(currentConfig.getAdmin().getToken());
+            }
+
             // 将更新后的配置写回文件
             try (FileWriter writer = new FileWriter(AppConfig.CONFIG_FILE)) {
                 gson.toJson(newConfigData, writer);
@@ -91,6 +143,9 @@ public class ConfigController {
             log.info("配置文件 config.json 已被API更新并重新加载。");
             ctx.json(Map.of("success", true, "message", "配置已成功更新并重新加载。"));
 
+        } catch (IllegalArgumentException e) {
+            log.warn("拒绝更新配置: {}", e.getMessage());
+            ctx.status(400).json(Map.of("success", false, "error", e.getMessage()));
         } catch (IOException e) {
             log.error("写入配置文件失败", e);
             ctx.status(500).json(Map.of("success", false, "error", "写入配置文件时发生IO错误: " + e.getMessage()));
@@ -99,4 +154,70 @@ public class ConfigController {
             ctx.status(500).json(Map.of("success", false, "error", "更新配置时发生未知错误: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 查找当前配置中与请求里第 index 个 gpt-load 源对应的源的 authKey，用于保留被屏蔽的敏感字段。
+     *
+     * @throws IllegalArgumentException 找不到对应的源时抛出，避免把密钥写成空值
+     */
+    private String findGptLoadSourceAuthKey(AppConfig.ConfigData currentConfig, AppConfig.GptLoad source, int index) {
+        AppConfig.GptLoad previous = findPrevious(currentConfig.getGptLoadSources(), source, index,
+                AppConfig.GptLoad::getName, AppConfig.GptLoad::getBaseUrl, "source-");
+        if (previous == null) {
+            throw new IllegalArgumentException("无法确定 gpt-load 源 '" + source.getName() + "' (" + source.getBaseUrl()
+                                               + ") 对应的原有配置，请重新填写 authKey");
+        }
+        return previous.getAuthKey();
+    }
+
+    /**
+     * 查找当前配置中与请求里第 index 个条目对应的条目。先按 baseUrl 匹配（重命名后仍能找到），
+     * 再按解析后的名称匹配（未命名的条目解析为 前缀+序号，修改 baseUrl 后仍能找到）；只在唯一匹配时返回。
+     *
+     * @return 对应的条目，找不到或有多个匹配时返回 null
+     */
+    static <T> T findPrevious(List<T> current, T updated, int index, Function<T, String> name, Function<T, String> baseUrl,
+                              String namePrefix) {
+        if (current == null || current.isEmpty()) {
+            return null;
+        }
+        String updatedBaseUrl = trimTrailingSlash(baseUrl.apply(updated));
+        T match = unique(current, i -> updatedBaseUrl != null && updatedBaseUrl.equals(trimTrailingSlash(baseUrl.apply(current.get(i)))));
+        if (match != null) {
+            return match;
+        }
+        String updatedName = resolvedName(name.apply(updated), namePrefix, index);
+        return unique(current, i -> updatedName.equals(resolvedName(name.apply(current.get(i)), namePrefix, i)));
+    }
+
+    private static <T> T unique(List<T> entries, IntPredicate matches) {
+        int[] indexes = IntStream.range(0, entries.size()).filter(matches).toArray();
+        return indexes.length == 1 ? entries.get(indexes[0]) : null;
+    }
+
+    /**
+     * 与 AppConfig 解析列表时的命名一致：未命名的条目为 前缀+序号（从 1 开始）
+     */
+    private static String resolvedName(String name, String namePrefix, int index) {
+        return name == null || name.isBlank() ? namePrefix + (index + 1) : name;
+    }
+
+    private static String trimTrailingSlash(String baseUrl) {
+        return baseUrl != null && baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * 查找当前配置中与请求里第 index 个 New-API 目标对应的目标的 accessToken，用于保留被屏蔽的敏感字段。
+     *
+     * @throws IllegalArgumentException 找不到对应的目标时抛出，避免把令牌写成空值
+     */
+    private String findNewApiTargetAccessToken(AppConfig.ConfigData currentConfig, AppConfig.NewApi target, int index) {
+        AppConfig.NewApi previous = findPrevious(currentConfig.getNewApiTargets(), target, index,
+                AppConfig.NewApi::getName, AppConfig.NewApi::getBaseUrl, "target-");
+        if (previous == null) {
+            throw new IllegalArgumentException("无法确定 New-API 目标 '" + target.getName() + "' (" + target.getBaseUrl()
+                                               + ") 对应的原有配置，请重新填写 accessToken");
+        }
+        return previous.getAccessToken();
+    }
+}
@@ -0,0 +1,221 @@
+package github.gpt.api.sync.controller;
+
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.jfr.GroupSyncEvent;
+import github.gpt.api.sync.jfr.ModelMappingEvent;
+import github.gpt.api.sync.jfr.SyncRunEvent;
+import github.gpt.api.sync.jfr.UpstreamCallEvent;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 管理用于在线分析同步性能的 JFR 录制。
+ * <p>
+ * 同一时间最多只有一个录制，使用 JDK 自带的 default 配置（开销约 1%）加上本服务的自定义事件
+ * （见 github.gpt.api.sync.jfr 包），并按时长和大小限制保留的数据，长时间开启也不会占满磁盘。
+ * <p>
+ * 录制包含线程栈等运行时细节，所有接口都需要在 X-Admin-Token 请求头中提供 admin.token，
+ * 未配置令牌时接口不可用。
+ */
+@Slf4j
+public class RecordingController {
+
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private static final String RECORDING_NAME = "gpt-api-sync";
+    private static final int DEFAULT_MAX_AGE_MINUTES = 10;
+    private static final int MAX_AGE_LIMIT_MINUTES = 24 * 60;
+    private static final int DEFAULT_MAX_SIZE_MB = 64;
+    private static final int MAX_SIZE_LIMIT_MB = 1024;
+    /**
+     * 这些事件会记录环境变量、系统属性以及本进程和主机上其他进程的命令行，
+     * 其中包含上游令牌等敏感配置，录制中始终关闭
+     */
+    private static final String[] SENSITIVE_EVENTS = {
+            "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty",
+            "jdk.JVMInformation",
+            "jdk.SystemProcess"
+    };
+
+    private Recording recording;
+
+    /**
+     * 查看当前录制状态
+     */
+    public synchronized void handleStatus(Context ctx) {
+        if (!authorize(ctx)) {
+            return;
+        }
+        ctx.json(status());
+    }
+
+    /**
+     * 开始录制。可选参数 maxAgeMinutes（默认 10，最大 1440）和 maxSizeMb（默认 64，最大 1024）
+     */
+    public synchronized void handleStart(Context ctx) {
+        if (!authorize(ctx)) {
+            return;
+        }
+        if (isRunning()) {
+            ctx.status(HttpStatus.CONFLICT).json(Map.of("success", false, "error", "已有正在进行的录制", "recording", status()));
+            return;
+        }
+
+        int maxAgeMinutes;
+        int maxSizeMb;
+        try {
+            maxAgeMinutes = boundedParam(ctx, "maxAgeMinutes", DEFAULT_MAX_AGE_MINUTES, MAX_AGE_LIMIT_MINUTES);
+            maxSizeMb = boundedParam(ctx, "maxSizeMb", DEFAULT_MAX_SIZE_MB, MAX_SIZE_LIMIT_MB);
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST).json(Map.of("success", false, "error", e.getMessage()));
+            return;
+        }
+
+        try {
+            if (recording != null) {
+                recording.close();
+            }
+            Recording newRecording = new Recording(Configuration.getConfiguration("default"));
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            newRecording.setMaxSize(maxSizeMb * 1024L * 1024L);
+            newRecording.enable(SyncRunEvent.class);
+            newRecording.enable(GroupSyncEvent.class);
+            newRecording.enable(UpstreamCallEvent.class);
+            newRecording.enable(ModelMappingEvent.class);
+            for (String event : SENSITIVE_EVENTS) {
+                newRecording.disable(event);
+            }
+            newRecording.start();
+            recording = newRecording;
+            log.info("JFR 录制已开始，最长保留 {} 分钟，最大 {}MB", maxAgeMinutes, maxSizeMb);
+            ctx.json(Map.of("success", true, "recording", status()));
+        } catch (IOException | ParseException e) {
+            log.error("开始 JFR 录制失败", e);
+            ctx.status(500).json(Map.of("success", false, "error", "开始录制失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 导出当前录制中保留的数据（.jfr 文件），录制继续进行
+     */
+    public void handleDump(Context ctx) {
+        if (!authorize(ctx)) {
+            return;
+        }
+        Path file = null;
+        try {
+            // 只在导出到临时文件时持有锁，向客户端传输时不阻塞其他请求
+            synchronized (this) {
+                if (recording == null || recording.getState() == RecordingState.CLOSED) {
+                    ctx.status(HttpStatus.NOT_FOUND).json(Map.of("success", false, "error", "没有可导出的录制，请先开始录制"));
+                    return;
+                }
+                file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+                recording.dump(file);
+            }
+            log.info("已导出 JFR 录制，大小: {} 字节", Files.size(file));
+            ctx.contentType("application/octet-stream");
+            ctx.header("Content-Disposition", "attachment; filename=\"" + RECORDING_NAME + "-" + System.currentTimeMillis() + ".jfr\"");
+            Files.copy(file, ctx.outputStream());
+        } catch (IOException e) {
+            log.error("导出 JFR 录制失败", e);
+            if (!ctx.res().isCommitted()) {
+                ctx.status(500).json(Map.of("success", false, "error", "导出录制失败: " + e.getMessage()));
+            }
+        } finally {
+            deleteTempFile(file);
+        }
+    }
+
+    /**
+     * 停止并丢弃当前录制，需要保留数据时先调用导出
+     */
+    public synchronized void handleStop(Context ctx) {
+        if (!authorize(ctx)) {
+            return;
+        }
+        if (recording == null) {
+            ctx.status(HttpStatus.NOT_FOUND).json(Map.of("success", false, "error", "没有正在进行的录制"));
+            return;
+        }
+        recording.close();
+        recording = null;
+        log.info("JFR 录制已停止");
+        ctx.json(Map.of("success", true));
+    }
+
+    /**
+     * 校验管理令牌，未通过时写入错误响应并返回 false
+     */
+    private static boolean authorize(Context ctx) {
+        String token = AppConfig.current().getAdminToken();
+        if (token.isEmpty()) {
+            ctx.status(HttpStatus.FORBIDDEN).json(Map.of("success", false, "error", "未配置 admin.token（或环境变量 ADMIN_TOKEN），管理接口不可用"));
+            return false;
+        }
+        if (!WebhookController.tokenMatches(token, ctx.header(TOKEN_HEADER))) {
+            ctx.status(HttpStatus.UNAUTHORIZED).json(Map.of("success", false, "error", "无效的管理令牌"));
+            return false;
+        }
+        return true;
+    }
+
+    private static void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除 JFR 临时文件 {} 失败: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", isRunning());
+        if (recording != null) {
+            status.put("state", recording.getState().name());
+            status.put("started_at", recording.getStartTime() != null ? recording.getStartTime().toEpochMilli() : null);
+            status.put("max_age_minutes", recording.getMaxAge() != null ? recording.getMaxAge().toMinutes() : null);
+            status.put("max_size_mb", recording.getMaxSize() / 1024 / 1024);
+            status.put("size_bytes", recording.getSize());
+        }
+        return status;
+    }
+
+    private static int boundedParam(Context ctx, String name, int defaultValue, int limit) {
+        String value = ctx.queryParam(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < 1 || parsed > limit) {
+                throw new IllegalArgumentException(name + " 必须在 1 到 " + limit + " 之间");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 必须是整数");
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package github.gpt.api.sync.controller;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 提供前端页面 index.html 和 assets/ 下的构建产物。
+ * <p>
+ * 优先返回构建时生成的 .br/.gz 预压缩文件（见 gpt-api-sync-ui/vite.config.ts），
+ * 缺少 .gz 时在加载时压缩一次并缓存在内存中。assets/ 下的文件名带有内容哈希，
+ * 按 immutable 长期缓存；index.html 每次都需要通过 ETag 重新验证，以便发布新版本后立即生效。
+ * 其余静态文件（如 vite.svg）仍由 Javalin 的静态文件处理器提供。
+ */
+@Slf4j
+public class StaticAssetController {
+
+    public static final String INDEX_PATH = "/index.html";
+    public static final String ASSETS_PREFIX = "/assets/";
+
+    private static final String STATIC_ROOT = "/static";
+    private static final String IMMUTABLE_CACHE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE = "no-cache";
+    private static final Pattern ASSET_REFERENCE = Pattern.compile("(?:src|href)=\"(/assets/[^\"]+)\"");
+
+    /**
+     * 路径 -> 已加载的资源。只缓存存在的资源，路径由客户端提供，不存在的路径不占用缓存
+     */
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    public StaticAssetController() {
+        preload();
+    }
+
+    /**
+     * 是否由本控制器处理该路径，供静态文件处理器跳过
+     */
+    public static boolean handles(String path) {
+        return INDEX_PATH.equals(path) || path.startsWith(ASSETS_PREFIX);
+    }
+
+    /**
+     * 提供 index.html，使用 ETag 进行协商缓存
+     */
+    public void handleIndex(Context ctx) {
+        serve(ctx, INDEX_PATH, REVALIDATE_CACHE);
+    }
+
+    /**
+     * 提供 assets/ 下带内容哈希的文件，长期缓存
+     */
+    public void handleAsset(Context ctx) {
+        String path = ctx.pathParam("path");
+        if (path.contains("..") || path.contains("\\")) {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+        serve(ctx, ASSETS_PREFIX + path, IMMUTABLE_CACHE);
+    }
+
+    private void serve(Context ctx, String path, String cacheControl) {
+        Asset asset = asset(path);
+        if (asset == null) {
+            ctx.status(HttpStatus.NOT_FOUND).result("Not Found");
+            return;
+        }
+
+        String acceptEncoding = ctx.header("Accept-Encoding");
+        byte[] body = asset.identity;
+        String encoding = null;
+        if (asset.brotli != null && accepts(acceptEncoding, "br")) {
+            body = asset.brotli;
+            encoding = "br";
+        } else if (asset.gzip != null && accepts(acceptEncoding, "gzip")) {
+            body = asset.gzip;
+            encoding = "gzip";
+        }
+        // 不同编码的响应体不同，强 ETag 需要区分编码
+        String etag = "\"" + asset.hash + (encoding != null ? "-" + encoding : "") + "\"";
+
+        ctx.header("Cache-Control", cacheControl);
+        ctx.header("Vary", "Accept-Encoding");
+        ctx.header("ETag", etag);
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains("\"" + asset.hash)) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+        if (encoding != null) {
+            ctx.header("Content-Encoding", encoding);
+        }
+        ctx.contentType(asset.contentType);
+        ctx.result(body);
+    }
+
+    /**
+     * 启动时加载 index.html 及其引用的资源，避免首个请求承担压缩开销
+     */
+    private void preload() {
+        Asset index = asset(INDEX_PATH);
+        if (index == null) {
+            log.warn("未找到前端页面 {}{}", STATIC_ROOT, INDEX_PATH);
+            return;
+        }
+        Matcher matcher = ASSET_REFERENCE.matcher(new String(index.identity, StandardCharsets.UTF_8));
+        int count = 1;
+        while (matcher.find()) {
+            if (asset(matcher.group(1)) != null) {
+                count++;
+            }
+        }
+        log.info("已加载 {} 个前端资源", count);
+    }
+
+    /**
+     * 返回已缓存的资源，未缓存时从类路径加载，存在时才放入缓存
+     */
+    private Asset asset(String path) {
+        Asset asset = assets.get(path);
+        if (asset != null) {
+            return asset;
+        }
+        Optional<Asset> loaded = load(path);
+        if (loaded.isEmpty()) {
+            return null;
+        }
+        Asset existing = assets.putIfAbsent(path, loaded.get());
+        return existing != null ? existing : loaded.get();
+    }
+
+    private Optional<Asset> load(String path) {
+        try {
+            byte[] identity = readResource(path);
+            if (identity == null) {
+                return Optional.empty();
+            }
+            String contentType = contentType(path);
+            byte[] brotli = readResource(path + ".br");
+            byte[] gzip = readResource(path + ".gz");
+            if (gzip == null && isCompressible(contentType)) {
+                gzip = gzip(identity);
+            }
+            return Optional.of(new Asset(identity, gzip, brotli, contentType, sha256(identity)));
+        } catch (IOException e) {
+            log.error("加载前端资源失败: {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    private byte[] readResource(String path) throws IOException {
+        try (InputStream in = StaticAssetController.class.getResourceAsStream(STATIC_ROOT + path)) {
+            return in != null ? in.readAllBytes() : null;
+        }
+    }
+
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase(encoding)) {
+                return tokens.length < 2 || !tokens[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(String path) {
+        String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+        return switch (extension) {
+            case "html" -> "text/html; charset=utf-8";
+            case "js" -> "text/javascript; charset=utf-8";
+            case "css" -> "text/css; charset=utf-8";
+            case "json" -> "application/json; charset=utf-8";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "ico" -> "image/x-icon";
+            case "woff2" -> "font/woff2";
+            case "woff" -> "font/woff";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/json")
+               || contentType.startsWith("image/svg");
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Asset(byte[] identity, byte[] gzip, byte[] brotli, String contentType, String hash) {
+    }
+}
@@ -0,0 +1,120 @@
+package github.gpt.api.sync.controller;
+
+import github.gpt.api.sync.service.SyncHistoryStore;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 查询同步历史。
+ * <p>
+ * 时间参数 from/to 支持毫秒时间戳、ISO-8601 时刻（2025-01-01T00:00:00Z）或 UTC 日期（2025-01-01），
+ * 区间为 [from, to)，默认 to 为当前时间。
+ */
+@Slf4j
+public class SyncHistoryController {
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private final SyncHistoryStore syncHistoryStore;
+
+    public SyncHistoryController(SyncHistoryStore syncHistoryStore) {
+        this.syncHistoryStore = syncHistoryStore;
+    }
+
+    /**
+     * 查询同步历史：默认返回时间范围内的同步记录；
+     * 指定 group 时返回该分组在各次同步中的结果；指定 rollup=hour|day 时返回汇总统计。
+     */
+    public void handleHistory(Context ctx) {
+        try {
+            String rollup = ctx.queryParam("rollup");
+            String group = ctx.queryParam("group");
+            long to = parseTime(ctx.queryParam("to"), System.currentTimeMillis());
+            long defaultRange = SyncHistoryStore.BUCKET_DAY.equals(rollup) ? 90 * DAY_MS : 7 * DAY_MS;
+            long from = parseTime(ctx.queryParam("from"), to - defaultRange);
+            int limit = parseLimit(ctx.queryParam("limit"));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("from", from);
+            response.put("to", to);
+            if (rollup != null) {
+                if (!SyncHistoryStore.BUCKET_HOUR.equals(rollup) && !SyncHistoryStore.BUCKET_DAY.equals(rollup)) {
+                    throw new IllegalArgumentException("rollup 只能是 hour 或 day");
+                }
+                response.put("rollup", rollup);
+                response.put("buckets", syncHistoryStore.findRollups(rollup, from, to));
+            } else if (group != null && !group.isBlank()) {
+                response.put("group", group);
+                response.put("outcomes", syncHistoryStore.findGroupOutcomes(group, from, to, limit));
+            } else {
+                response.put("runs", syncHistoryStore.findRuns(from, to, limit));
+            }
+            ctx.json(response);
+        } catch (IllegalArgumentException e) {
+            ctx.status(HttpStatus.BAD_REQUEST).json(Map.of("success", false, "error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("查询同步历史失败", e);
+            ctx.status(500).json(Map.of("success", false, "error", "查询同步历史失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询单次同步记录及其中每个分组的结果
+     */
+    public void handleRun(Context ctx) {
+        try {
+            long id = Long.parseLong(ctx.pathParam("id"));
+            Map<String, Object> run = syncHistoryStore.findRun(id);
+            if (run == null) {
+                ctx.status(HttpStatus.NOT_FOUND).json(Map.of("success", false, "error", "同步记录不存在: " + id));
+                return;
+            }
+            ctx.json(run);
+        } catch (NumberFormatException e) {
+            ctx.status(HttpStatus.BAD_REQUEST).json(Map.of("success", false, "error", "无效的同步记录ID"));
+        } catch (Exception e) {
+            log.error("查询同步记录失败", e);
+            ctx.status(500).json(Map.of("success", false, "error", "查询同步记录失败: " + e.getMessage()));
+        }
+    }
+
+    private static long parseTime(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        String trimmed = value.trim();
+        try {
+            if (trimmed.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(trimmed);
+            }
+            if (trimmed.length() == 10) {
+                return LocalDate.parse(trimmed).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+            return Instant.parse(trimmed).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的时间: " + value);
+        }
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的 limit: " + value);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package github.gpt.api.sync.controller;
+
+import com.google.gson.JsonSyntaxException;
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.service.GroupChangeDebouncer;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 接收 gpt-load 分组变更通知，合并后只同步变更的分组。
+ * <p>
+ * 请求体为 {"ids": [1, 2], "names": ["group-a"]}，至少提供一项。
+ * 配置了 webhook.token 时需要在 X-Webhook-Token 请求头中提供相同的令牌。
+ */
+@Slf4j
+public class WebhookController {
+
+    public static final String TOKEN_HEADER = "X-Webhook-Token";
+
+
+    private final GroupChangeDebouncer debouncer;
+
+    public WebhookController(GroupChangeDebouncer debouncer) {
+        this.debouncer = debouncer;
+    }
+
+    public void handleGroupChange(Context ctx) {
+        String token = AppConfig.current().getWebhook().getToken();
+        if (!token.isEmpty() && !tokenMatches(token, ctx.header(TOKEN_HEADER))) {
+            ctx.status(HttpStatus.UNAUTHORIZED).json(Map.of("success", false, "error", "无效的 webhook 令牌"));
+            return;
+        }
+
+        ChangeRequest request;
+        try {
+            request = Json.GSON.fromJson(ctx.body(), ChangeRequest.class);
+        } catch (JsonSyntaxException e) {
+            ctx.status(HttpStatus.BAD_REQUEST).json(Map.of("success", false, "error", "无效的请求体: " + e.getMessage()));
+            return;
+        }
+        List<Integer> ids = request != null && request.ids != null ? request.ids.stream().filter(Objects::nonNull).toList() : List.of();
+        List<String> names = new ArrayList<>();
+        if (request != null && request.names != null) {
+            for (String name : request.names) {
+                if (name != null && !name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        if (ids.isEmpty() && names.isEmpty()) {
+            ctx.status(HttpStatus.BAD_REQUEST).json(Map.of("success", false, "error", "ids 和 names 不能同时为空"));
+            return;
+        }
+
+        GroupChangeDebouncer.Pending pending = debouncer.submit(ids, names);
+        log.info("收到分组变更通知: ids={}, names={}, 等待同步的分组: {}", ids, names, pending.groups());
+        ctx.status(HttpStatus.ACCEPTED).json(Map.of(
+                "success", true,
+                "accepted", ids.size() + names.size(),
+                "pending", pending.groups(),
+                "flush_in_ms", pending.flushInMillis()
+        ));
+    }
+
+    static boolean tokenMatches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Data
+    private static class ChangeRequest {
+        private List<Integer> ids;
+        private List<String> names;
+    }
+}
@@ -0,0 +1,33 @@
+package github.gpt.api.sync.jfr;
+
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 单个分组写入单个 New-API 目标（创建或更新渠道）的 JFR 事件，取值见 {@link GroupSyncOutcome}
+ */
+@Name("gptapisync.GroupSync")
+@Label("Group Sync")
+@Category({"GPT-API Sync"})
+@Description("将一个 gpt-load 分组创建或更新为 New-API 渠道")
+@StackTrace(false)
+public class GroupSyncEvent extends jdk.jfr.Event {
+
+    @Label("Target")
+    public String target;
+
+    @Label("Group")
+    public String group;
+
+    @Label("Action")
+    @Description("create 或 update")
+    public String action;
+
+    @Label("Outcome")
+    @Description("success、failed（上游拒绝）或 error（发生异常）")
+    public String outcome;
+}
@@ -0,0 +1,32 @@
+package github.gpt.api.sync.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 为单个渠道计算模型重定向映射的 JFR 事件，只在实际计算时产生，命中缓存不会产生
+ */
+@Name("gptapisync.ModelMapping")
+@Label("Model Mapping")
+@Category({"GPT-API Sync"})
+@Description("为一个渠道计算标准模型到实际模型的重定向映射")
+@StackTrace(false)
+public class ModelMappingEvent extends jdk.jfr.Event {
+
+    @Label("Channel ID")
+    @Description("渠道ID；通过 gpt-load 获取模型时渠道尚未写入，为分组在本次同步中的序号")
+    public int channelId;
+
+    @Label("Standard Models")
+    public int standardModels;
+
+    @Label("Actual Models")
+    public int actualModels;
+
+    @Label("Mappings")
+    @Description("生成的重定向条目数")
+    public int mappings;
+}
@@ -0,0 +1,39 @@
+package github.gpt.api.sync.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次完整同步（{@code SyncPipelineService#run}）的 JFR 事件，持续时间即同步总耗时
+ */
+@Name("gptapisync.SyncRun")
+@Label("Sync Run")
+@Category({"GPT-API Sync"})
+@Description("一次完整的 gpt-load 到 New-API 同步")
+@StackTrace(false)
+public class SyncRunEvent extends jdk.jfr.Event {
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Groups Fetched")
+    public int groupsFetched;
+
+    @Label("Targets")
+    public int targets;
+
+    @Label("Channels Created")
+    public int channelsCreated;
+
+    @Label("Channels Updated")
+    public int channelsUpdated;
+
+    @Label("Channels Failed")
+    public int channelsFailed;
+
+    @Label("Error")
+    public String error;
+}
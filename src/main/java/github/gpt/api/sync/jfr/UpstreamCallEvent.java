@@ -0,0 +1,107 @@
+package github.gpt.api.sync.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * 对 gpt-load 或 New-API 的一次 HTTP 调用的 JFR 事件。
+ * <p>
+ * 用法：调用前 {@link #start}，拿到响应码后 {@link #response}，读取响应体时用 {@link #countResponse} 包装输入流，
+ * 最后在 finally 中 {@link #commit()}。未开启录制时 {@link #countResponse} 直接返回原始流，几乎没有额外开销。
+ */
+@Name("gptapisync.UpstreamCall")
+@Label("Upstream Call")
+@Category({"GPT-API Sync"})
+@Description("对 gpt-load 或 New-API 的一次 HTTP 调用")
+@StackTrace(false)
+public class UpstreamCallEvent extends jdk.jfr.Event {
+
+    public static final String GPT_LOAD = "gpt-load";
+    public static final String NEW_API = "new-api";
+
+    @Label("Upstream")
+    @Description("gpt-load 或 new-api")
+    public String upstream;
+
+    @Label("Name")
+    @Description("gpt-load 源或 New-API 目标的名称")
+    public String name;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    @Description("接口路径模板，如 /api/channel/fetch_models/{id}")
+    public String endpoint;
+
+    @Label("Status")
+    @Description("HTTP 响应码，未收到响应时为 -1")
+    public int status = -1;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("读取的响应体字节数；未读取响应体时为 Content-Length，未知时为 -1")
+    @DataAmount
+    public long responseBytes = -1;
+
+    /**
+     * 创建事件并开始计时
+     */
+    public static UpstreamCallEvent start(String upstream, String method, String endpoint) {
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.upstream = upstream;
+        event.method = method;
+        event.endpoint = endpoint;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 记录响应码和响应头中的 Content-Length
+     */
+    public void response(HttpURLConnection connection, int status) {
+        this.status = status;
+        this.responseBytes = connection.getContentLengthLong();
+    }
+
+    /**
+     * 包装响应体输入流，统计实际读取的字节数
+     */
+    public InputStream countResponse(InputStream in) {
+        if (!isEnabled()) {
+            return in;
+        }
+        responseBytes = 0;
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    responseBytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    responseBytes += n;
+                }
+                return n;
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package github.gpt.api.sync.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 将 New-API 渠道写请求的 JSON 直接编码到可复用的缓冲区，再按固定长度写入连接。
+ * <p>
+ * 不再先构建 Map、生成 String、再转换为 byte[]，每个请求体只编码一次。
+ * 每个实例只保留一个空闲缓冲区。同一目标的写请求并不保证顺序发出：完整同步时，模型阶段写回模型的
+ * updateChannel 与写入阶段的 create/update 在不同线程上同时进行。取不到空闲缓冲区的调用临时创建一个，
+ * 用完后只有一个能放回复用。超过 {@link #MAX_RETAINED_BYTES} 的缓冲区用完即丢弃。
+ */
+@Slf4j
+public final class ChannelRequestWriter {
+
+    /**
+     * 可保留复用的缓冲区最大容量
+     */
+    static final int MAX_RETAINED_BYTES = 1 << 20;
+
+    private static final TypeAdapter<NewApiChannel.ChannelInfo> CHANNEL_INFO_ADAPTER = Json.GSON.getAdapter(NewApiChannel.ChannelInfo.class);
+
+    private final AtomicReference<Buffer> idle = new AtomicReference<>();
+
+    /**
+     * 向 JsonWriter 写出请求体
+     */
+    @FunctionalInterface
+    public interface Body {
+        void write(JsonWriter out) throws IOException;
+    }
+
+    /**
+     * 编码请求体并写入连接。连接需已设置 doOutput，且尚未打开输出流。
+     *
+     * @return 请求体字节数
+     */
+    public int send(HttpURLConnection connection, Body body) throws IOException {
+        Buffer buffer = idle.getAndSet(null);
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+        boolean encoded = false;
+        try {
+            JsonWriter out = new JsonWriter(buffer.writer);
+            // 与 Gson 默认行为一致，嵌套对象中的 null 字段省略
+            out.setSerializeNulls(false);
+            body.write(out);
+            out.flush();
+            encoded = true;
+            int length = buffer.bytes.size();
+            if (log.isDebugEnabled()) {
+                log.debug("请求体: {}", buffer.bytes.toString(StandardCharsets.UTF_8));
+            }
+            connection.setFixedLengthStreamingMode(length);
+            try (OutputStream os = connection.getOutputStream()) {
+                buffer.bytes.writeTo(os);
+            }
+            return length;
+        } finally {
+            // 编码中途失败时 writer 中可能残留未刷出的字符，不再复用
+            if (encoded && buffer.bytes.capacity() <= MAX_RETAINED_BYTES) {
+                buffer.bytes.reset();
+                idle.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * 写出创建渠道的请求体：{"mode": "single", "channel": {...}}
+     */
+    public static void writeCreateRequest(JsonWriter out, NewApiChannel channel) throws IOException {
+        out.beginObject();
+        out.name("mode").value("single");
+        out.name("channel");
+        writeChannel(out, channel);
+        out.endObject();
+    }
+
+    /**
+     * 写出渠道数据。数值字段总是写出；字符串和复杂类型字段为 null 时省略，
+     * 避免覆盖 New-API 中已有的值。created_time、balance 等由 New-API 维护的字段不写出。
+     */
+    public static void writeChannel(JsonWriter out, NewApiChannel channel) throws IOException {
+        out.beginObject();
+
+        // 基本信息
+        out.name("id").value(channel.getId());
+        out.name("name").value(channel.getName());
+        out.name("type").value(channel.getType());
+        out.name("status").value(channel.getStatus());
+        out.name("priority").value(channel.getPriority());
+        out.name("weight").value(channel.getWeight());
+        out.name("auto_ban").value(channel.getAutoBan());
+
+        // 字符串和复杂类型字段，进行非空检查
+        writeIfPresent(out, "key", channel.getKey());
+        writeIfPresent(out, "openai_organization", channel.getOpenaiOrganization());
+        writeIfPresent(out, "test_model", channel.getTestModel());
+        writeIfPresent(out, "base_url", channel.getBaseUrl());
+        writeIfPresent(out, "other", channel.getOther());
+        writeIfPresent(out, "models", channel.getModels());
+        writeIfPresent(out, "group", channel.getGroupName());
+        writeIfPresent(out, "model_mapping", channel.getModelMapping());
+        writeIfPresent(out, "status_code_mapping", channel.getStatusCodeMapping());
+        writeIfPresent(out, "other_info", channel.getOtherInfo());
+        writeIfPresent(out, "settings", channel.getSettings());
+        writeIfPresent(out, "tag", channel.getTag());
+        writeIfPresent(out, "setting", channel.getSetting());
+        if (channel.getChannelInfo() != null) {
+            out.name("channel_info");
+            CHANNEL_INFO_ADAPTER.write(out, channel.getChannelInfo());
+        }
+
+        out.endObject();
+    }
+
+    private static void writeIfPresent(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static final class Buffer {
+        private final Bytes bytes = new Bytes();
+        private final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 暴露容量的 ByteArrayOutputStream，用于判断是否保留复用
+     */
+    private static final class Bytes extends ByteArrayOutputStream {
+        private Bytes() {
+            super(4096);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package github.gpt.api.sync.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import github.gpt.api.sync.model.gptload.GptLoadApiResponse;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 共享的 Gson 实例和常用的泛型类型。
+ * <p>
+ * gpt-load 和 New-API 的模型类使用 {@link ModelTypeAdapters} 中的手写 TypeAdapter，不经过反射绑定；
+ * Gson 实例是线程安全的，各服务共用同一个实例，TypeAdapter 只创建一次。
+ * 需要其他序列化选项时使用 {@code Json.GSON.newBuilder()}，手写的 TypeAdapter 会被保留。
+ */
+public final class Json {
+
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapters())
+            .create();
+
+    /**
+     * gpt-load {@code GET /api/groups} 的响应
+     */
+    public static final Type GPT_LOAD_GROUPS_RESPONSE = new TypeToken<GptLoadApiResponse<List<GptLoadGroup>>>() {
+    }.getType();
+
+    /**
+     * 渠道的 model_mapping
+     */
+    public static final Type MODEL_MAPPING = new TypeToken<Map<String, String>>() {
+    }.getType();
+
+    private Json() {
+    }
+}
@@ -0,0 +1,423 @@
+package github.gpt.api.sync.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import github.gpt.api.sync.model.gptload.GptLoadApiResponse;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import github.gpt.api.sync.model.gptload.Upstream;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelResponseWrapper;
+import github.gpt.api.sync.model.newapi.NewApiGetAllChannelsResponse;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * gpt-load 和 New-API 模型类的手写 TypeAdapter，按字段名 switch 直接读写，不使用反射绑定。
+ * <p>
+ * 字段名与模型类上的 {@code @SerializedName} 一致；未知字段跳过，null 值保留字段默认值，
+ * 与反射绑定的行为相同。字符串字段遇到对象或数组时按 JSON 文本保存，而不是报错。
+ * 通过 {@link Json#GSON} 使用。
+ */
+final class ModelTypeAdapters implements TypeAdapterFactory {
+
+    private static final TypeToken<List<Upstream>> UPSTREAM_LIST = new TypeToken<>() {
+    };
+    private static final TypeToken<List<NewApiChannel>> CHANNEL_LIST = new TypeToken<>() {
+    };
+    private static final TypeToken<Map<String, Integer>> TYPE_COUNTS = new TypeToken<>() {
+    };
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == NewApiChannel.class) {
+            return (TypeAdapter<T>) new NewApiChannelAdapter(gson.getAdapter(NewApiChannel.ChannelInfo.class)).nullSafe();
+        }
+        if (rawType == NewApiChannel.ChannelInfo.class) {
+            return (TypeAdapter<T>) new ChannelInfoAdapter().nullSafe();
+        }
+        if (rawType == NewApiChannelResponseWrapper.class) {
+            return (TypeAdapter<T>) new ChannelResponseWrapperAdapter(gson.getAdapter(NewApiGetAllChannelsResponse.class)).nullSafe();
+        }
+        if (rawType == NewApiGetAllChannelsResponse.class) {
+            return (TypeAdapter<T>) new ChannelPageAdapter(gson.getAdapter(CHANNEL_LIST), gson.getAdapter(TYPE_COUNTS)).nullSafe();
+        }
+        if (rawType == GptLoadGroup.class) {
+            return (TypeAdapter<T>) new GptLoadGroupAdapter(gson.getAdapter(UPSTREAM_LIST), gson.getAdapter(Object.class)).nullSafe();
+        }
+        if (rawType == Upstream.class) {
+            return (TypeAdapter<T>) new UpstreamAdapter().nullSafe();
+        }
+        if (rawType == GptLoadApiResponse.class) {
+            Type dataType = type.getType() instanceof ParameterizedType parameterized
+                    ? parameterized.getActualTypeArguments()[0] : Object.class;
+            return (TypeAdapter<T>) new GptLoadApiResponseAdapter<>(gson.getAdapter(TypeToken.get(dataType))).nullSafe();
+        }
+        return null;
+    }
+
+    private static final class NewApiChannelAdapter extends TypeAdapter<NewApiChannel> {
+
+        private final TypeAdapter<NewApiChannel.ChannelInfo> channelInfoAdapter;
+
+        private NewApiChannelAdapter(TypeAdapter<NewApiChannel.ChannelInfo> channelInfoAdapter) {
+            this.channelInfoAdapter = channelInfoAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, NewApiChannel channel) throws IOException {
+            out.beginObject();
+            out.name("id").value(channel.getId());
+            out.name("type").value(channel.getType());
+            out.name("key").value(channel.getKey());
+            out.name("openai_organization").value(channel.getOpenaiOrganization());
+            out.name("test_model").value(channel.getTestModel());
+            out.name("status").value(channel.getStatus());
+            out.name("name").value(channel.getName());
+            out.name("weight").value(channel.getWeight());
+            out.name("created_time").value(channel.getCreatedTime());
+            out.name("test_time").value(channel.getTestTime());
+            out.name("response_time").value(channel.getResponseTime());
+            out.name("base_url").value(channel.getBaseUrl());
+            out.name("other").value(channel.getOther());
+            out.name("balance").value(channel.getBalance());
+            out.name("balance_updated_time").value(channel.getBalanceUpdatedTime());
+            out.name("models").value(channel.getModels());
+            out.name("group").value(channel.getGroupName());
+            out.name("used_quota").value(channel.getUsedQuota());
+            out.name("model_mapping").value(channel.getModelMapping());
+            out.name("status_code_mapping").value(channel.getStatusCodeMapping());
+            out.name("priority").value(channel.getPriority());
+            out.name("auto_ban").value(channel.getAutoBan());
+            out.name("other_info").value(channel.getOtherInfo());
+            out.name("settings").value(channel.getSettings());
+            out.name("tag").value(channel.getTag());
+            out.name("setting").value(channel.getSetting());
+            out.name("channel_info");
+            channelInfoAdapter.write(out, channel.getChannelInfo());
+            out.endObject();
+        }
+
+        @Override
+        public NewApiChannel read(JsonReader in) throws IOException {
+            NewApiChannel channel = new NewApiChannel();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "id" -> channel.setId(in.nextInt());
+                    case "type" -> channel.setType(in.nextInt());
+                    case "key" -> channel.setKey(readString(in));
+                    case "openai_organization" -> channel.setOpenaiOrganization(readString(in));
+                    case "test_model" -> channel.setTestModel(readString(in));
+                    case "status" -> channel.setStatus(in.nextInt());
+                    case "name" -> channel.setName(readString(in));
+                    case "weight" -> channel.setWeight(in.nextInt());
+                    case "created_time" -> channel.setCreatedTime(in.nextLong());
+                    case "test_time" -> channel.setTestTime(in.nextLong());
+                    case "response_time" -> channel.setResponseTime(in.nextInt());
+                    case "base_url" -> channel.setBaseUrl(readString(in));
+                    case "other" -> channel.setOther(readString(in));
+                    case "balance" -> channel.setBalance(in.nextDouble());
+                    case "balance_updated_time" -> channel.setBalanceUpdatedTime(in.nextLong());
+                    case "models" -> channel.setModels(readString(in));
+                    case "group" -> channel.setGroupName(readString(in));
+                    case "used_quota" -> channel.setUsedQuota(in.nextLong());
+                    case "model_mapping" -> channel.setModelMapping(readString(in));
+                    case "status_code_mapping" -> channel.setStatusCodeMapping(readString(in));
+                    case "priority" -> channel.setPriority(in.nextInt());
+                    case "auto_ban" -> channel.setAutoBan(in.nextInt());
+                    case "other_info" -> channel.setOtherInfo(readString(in));
+                    case "settings" -> channel.setSettings(readString(in));
+                    case "tag" -> channel.setTag(readString(in));
+                    case "setting" -> channel.setSetting(readString(in));
+                    case "channel_info" -> channel.setChannelInfo(channelInfoAdapter.read(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return channel;
+        }
+    }
+
+    private static final class ChannelInfoAdapter extends TypeAdapter<NewApiChannel.ChannelInfo> {
+
+        @Override
+        public void write(JsonWriter out, NewApiChannel.ChannelInfo info) throws IOException {
+            out.beginObject();
+            out.name("is_multi_key").value(info.isMultiKey());
+            out.name("multi_key_size").value(info.getMultiKeySize());
+            out.name("multi_key_polling_index").value(info.getMultiKeyPollingIndex());
+            out.name("multi_key_mode").value(info.getMultiKeyMode());
+            out.endObject();
+        }
+
+        @Override
+        public NewApiChannel.ChannelInfo read(JsonReader in) throws IOException {
+            NewApiChannel.ChannelInfo info = new NewApiChannel.ChannelInfo();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "is_multi_key" -> info.setMultiKey(in.nextBoolean());
+                    case "multi_key_size" -> info.setMultiKeySize(in.nextInt());
+                    case "multi_key_polling_index" -> info.setMultiKeyPollingIndex(in.nextInt());
+                    case "multi_key_mode" -> info.setMultiKeyMode(readString(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return info;
+        }
+    }
+
+    private static final class ChannelResponseWrapperAdapter extends TypeAdapter<NewApiChannelResponseWrapper> {
+
+        private final TypeAdapter<NewApiGetAllChannelsResponse> pageAdapter;
+
+        private ChannelResponseWrapperAdapter(TypeAdapter<NewApiGetAllChannelsResponse> pageAdapter) {
+            this.pageAdapter = pageAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, NewApiChannelResponseWrapper wrapper) throws IOException {
+            out.beginObject();
+            out.name("data");
+            pageAdapter.write(out, wrapper.getData());
+            out.endObject();
+        }
+
+        @Override
+        public NewApiChannelResponseWrapper read(JsonReader in) throws IOException {
+            NewApiChannelResponseWrapper wrapper = new NewApiChannelResponseWrapper();
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("data".equals(in.nextName())) {
+                    wrapper.setData(pageAdapter.read(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return wrapper;
+        }
+    }
+
+    private static final class ChannelPageAdapter extends TypeAdapter<NewApiGetAllChannelsResponse> {
+
+        private final TypeAdapter<List<NewApiChannel>> itemsAdapter;
+        private final TypeAdapter<Map<String, Integer>> typeCountsAdapter;
+
+        private ChannelPageAdapter(TypeAdapter<List<NewApiChannel>> itemsAdapter, TypeAdapter<Map<String, Integer>> typeCountsAdapter) {
+            this.itemsAdapter = itemsAdapter;
+            this.typeCountsAdapter = typeCountsAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, NewApiGetAllChannelsResponse page) throws IOException {
+            out.beginObject();
+            out.name("items");
+            itemsAdapter.write(out, page.getItems());
+            out.name("page").value(page.getPage());
+            out.name("page_size").value(page.getPage_size());
+            out.name("total").value(page.getTotal());
+            out.name("type_counts");
+            typeCountsAdapter.write(out, page.getType_counts());
+            out.endObject();
+        }
+
+        @Override
+        public NewApiGetAllChannelsResponse read(JsonReader in) throws IOException {
+            NewApiGetAllChannelsResponse page = new NewApiGetAllChannelsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "items" -> page.setItems(itemsAdapter.read(in));
+                    case "page" -> page.setPage(in.nextInt());
+                    case "page_size" -> page.setPage_size(in.nextInt());
+                    case "total" -> page.setTotal(in.nextInt());
+                    case "type_counts" -> page.setType_counts(typeCountsAdapter.read(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return page;
+        }
+    }
+
+    private static final class GptLoadGroupAdapter extends TypeAdapter<GptLoadGroup> {
+
+        private final TypeAdapter<List<Upstream>> upstreamsAdapter;
+        private final TypeAdapter<Object> objectAdapter;
+
+        private GptLoadGroupAdapter(TypeAdapter<List<Upstream>> upstreamsAdapter, TypeAdapter<Object> objectAdapter) {
+            this.upstreamsAdapter = upstreamsAdapter;
+            this.objectAdapter = objectAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, GptLoadGroup group) throws IOException {
+            out.beginObject();
+            out.name("id").value(group.getId());
+            out.name("name").value(group.getName());
+            out.name("endpoint").value(group.getEndpoint());
+            out.name("display_name").value(group.getDisplayName());
+            out.name("description").value(group.getDescription());
+            out.name("upstreams");
+            upstreamsAdapter.write(out, group.getUpstreams());
+            out.name("channel_type").value(group.getChannelType());
+            out.name("sort").value(group.getSort());
+            out.name("test_model").value(group.getTestModel());
+            out.name("validation_endpoint").value(group.getValidationEndpoint());
+            out.name("param_overrides");
+            objectAdapter.write(out, group.getParamOverrides());
+            out.name("config");
+            objectAdapter.write(out, group.getConfig());
+            out.name("proxy_keys").value(group.getProxyKeys());
+            out.name("last_validated_at").value(group.getLastValidatedAt());
+            out.name("created_at").value(group.getCreatedAt());
+            out.name("updated_at").value(group.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public GptLoadGroup read(JsonReader in) throws IOException {
+            GptLoadGroup group = new GptLoadGroup();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "id" -> group.setId(in.nextInt());
+                    case "name" -> group.setName(readString(in));
+                    case "endpoint" -> group.setEndpoint(readString(in));
+                    case "display_name" -> group.setDisplayName(readString(in));
+                    case "description" -> group.setDescription(readString(in));
+                    case "upstreams" -> group.setUpstreams(upstreamsAdapter.read(in));
+                    case "channel_type" -> group.setChannelType(readString(in));
+                    case "sort" -> group.setSort(in.nextInt());
+                    case "test_model" -> group.setTestModel(readString(in));
+                    case "validation_endpoint" -> group.setValidationEndpoint(readString(in));
+                    case "param_overrides" -> group.setParamOverrides(objectAdapter.read(in));
+                    case "config" -> group.setConfig(objectAdapter.read(in));
+                    case "proxy_keys" -> group.setProxyKeys(readString(in));
+                    case "last_validated_at" -> group.setLastValidatedAt(readString(in));
+                    case "created_at" -> group.setCreatedAt(readString(in));
+                    case "updated_at" -> group.setUpdatedAt(readString(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return group;
+        }
+    }
+
+    private static final class UpstreamAdapter extends TypeAdapter<Upstream> {
+
+        @Override
+        public void write(JsonWriter out, Upstream upstream) throws IOException {
+            out.beginObject();
+            out.name("url").value(upstream.getUrl());
+            out.name("weight").value(upstream.getWeight());
+            out.endObject();
+        }
+
+        @Override
+        public Upstream read(JsonReader in) throws IOException {
+            Upstream upstream = new Upstream();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "url" -> upstream.setUrl(readString(in));
+                    case "weight" -> upstream.setWeight(in.nextInt());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return upstream;
+        }
+    }
+
+    private static final class GptLoadApiResponseAdapter<T> extends TypeAdapter<GptLoadApiResponse<T>> {
+
+        private final TypeAdapter<T> dataAdapter;
+
+        private GptLoadApiResponseAdapter(TypeAdapter<T> dataAdapter) {
+            this.dataAdapter = dataAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, GptLoadApiResponse<T> response) throws IOException {
+            out.beginObject();
+            out.name("code").value(response.getCode());
+            out.name("message").value(response.getMessage());
+            out.name("data");
+            dataAdapter.write(out, response.getData());
+            out.endObject();
+        }
+
+        @Override
+        public GptLoadApiResponse<T> read(JsonReader in) throws IOException {
+            GptLoadApiResponse<T> response = new GptLoadApiResponse<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "code" -> response.setCode(in.nextInt());
+                    case "message" -> response.setMessage(readString(in));
+                    case "data" -> response.setData(dataAdapter.read(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+
+    /**
+     * 读取字符串字段。数字和布尔值按文本读取，对象和数组保存为 JSON 文本
+     */
+    private static String readString(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case BEGIN_OBJECT, BEGIN_ARRAY -> JsonParser.parseReader(in).toString();
+            case BOOLEAN -> Boolean.toString(in.nextBoolean());
+            default -> in.nextString();
+        };
+    }
+}
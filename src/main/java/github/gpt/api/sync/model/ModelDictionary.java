@@ -0,0 +1,70 @@
+package github.gpt.api.sync.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局模型名称字典，为每个模型名称分配一个稳定的整数ID。
+ * <p>
+ * 所有渠道的模型集合都以这些ID组成的位图表示（见 {@link ModelSet}），相同的模型名称在内存中只保存一份。
+ * ID 只增不减，进程内一旦分配就不会改变。查询无锁，只有分配新ID时才加锁。
+ */
+public final class ModelDictionary {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[256];
+    private static int size;
+
+    private ModelDictionary() {
+    }
+
+    /**
+     * 获取模型名称对应的ID，名称不存在时分配新ID。
+     */
+    public static int idOf(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (ModelDictionary.class) {
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            // 先写入名称数组再发布ID，保证拿到ID的线程一定能查到名称
+            String[] current = names;
+            current[size] = name;
+            names = current;
+            IDS.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * 查询模型名称对应的ID，不分配新ID。
+     *
+     * @return ID，名称不存在时返回 -1
+     */
+    public static int find(String name) {
+        Integer id = IDS.get(name);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 获取ID对应的模型名称。
+     */
+    public static String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * 已分配的模型名称数量。
+     */
+    public static int size() {
+        return IDS.size();
+    }
+}
@@ -0,0 +1,139 @@
+package github.gpt.api.sync.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 不可变的模型集合，以 {@link ModelDictionary} 中的ID组成的位图存储。
+ * <p>
+ * 合并、求差和比较都是位运算，判断是否包含某个模型只需一次字典查询。
+ * 可以直接作为 Map 的键使用。
+ */
+public final class ModelSet {
+
+    public static final ModelSet EMPTY = new ModelSet(new BitSet());
+
+    private final BitSet bits;
+
+    private ModelSet(BitSet bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * 从模型名称集合创建，忽略空白名称。
+     */
+    public static ModelSet of(Collection<String> models) {
+        if (models == null || models.isEmpty()) {
+            return EMPTY;
+        }
+        BitSet bits = new BitSet();
+        for (String model : models) {
+            if (model != null && !model.isBlank()) {
+                bits.set(ModelDictionary.idOf(model.trim()));
+            }
+        }
+        return new ModelSet(bits);
+    }
+
+    /**
+     * 解析 New-API 中以逗号分隔的模型列表。
+     */
+    public static ModelSet parse(String commaJoined) {
+        if (commaJoined == null || commaJoined.isEmpty()) {
+            return EMPTY;
+        }
+        BitSet bits = new BitSet();
+        int start = 0;
+        while (start <= commaJoined.length()) {
+            int end = commaJoined.indexOf(',', start);
+            if (end < 0) {
+                end = commaJoined.length();
+            }
+            String model = commaJoined.substring(start, end).trim();
+            if (!model.isEmpty()) {
+                bits.set(ModelDictionary.idOf(model));
+            }
+            start = end + 1;
+        }
+        return new ModelSet(bits);
+    }
+
+    /**
+     * 是否包含指定模型。
+     */
+    public boolean contains(String model) {
+        int id = ModelDictionary.find(model);
+        return id >= 0 && bits.get(id);
+    }
+
+    /**
+     * 返回两个集合的并集。
+     */
+    public ModelSet union(ModelSet other) {
+        if (other.bits.isEmpty()) {
+            return this;
+        }
+        BitSet result = (BitSet) bits.clone();
+        result.or(other.bits);
+        return new ModelSet(result);
+    }
+
+    /**
+     * 返回在当前集合中但不在另一个集合中的模型。
+     */
+    public ModelSet difference(ModelSet other) {
+        BitSet result = (BitSet) bits.clone();
+        result.andNot(other.bits);
+        return new ModelSet(result);
+    }
+
+    public int size() {
+        return bits.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    /**
+     * 按字典ID顺序返回模型名称列表。
+     */
+    public List<String> toList() {
+        List<String> models = new ArrayList<>(size());
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            models.add(ModelDictionary.nameOf(id));
+        }
+        return models;
+    }
+
+    /**
+     * 按字典ID顺序以逗号连接模型名称，用于写回 New-API。
+     */
+    public String join() {
+        StringBuilder joined = new StringBuilder();
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            if (!joined.isEmpty()) {
+                joined.append(',');
+            }
+            joined.append(ModelDictionary.nameOf(id));
+        }
+        return joined.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ModelSet other && bits.equals(other.bits));
+    }
+
+    @Override
+    public int hashCode() {
+        return bits.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + join() + "]";
+    }
+}
@@ -1,6 +1,7 @@
 package github.gpt.api.sync.model.gptload;
 
 import com.google.gson.annotations.SerializedName;
+import github.gpt.api.sync.config.GptLoadSource;
 import lombok.Data;
 
 import java.util.List;
@@ -32,4 +33,9 @@ public class GptLoadGroup {
     private String createdAt;
     @SerializedName("updated_at")
     private String updatedAt;
+
+    /**
+     * 该分组所属的 gpt-load 源，不参与序列化
+     */
+    private transient GptLoadSource source;
 }
@@ -0,0 +1,60 @@
+package github.gpt.api.sync.model.gptload;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 定向同步要处理的分组，按 gpt-load 分组ID或名称选择。
+ * 多源时名称也可以写成 "源名称/分组名称" 以区分不同源的同名分组。
+ */
+@Value
+public class GroupSelection {
+    Set<Integer> ids;
+    Set<String> names;
+
+    public boolean isEmpty() {
+        return ids.isEmpty() && names.isEmpty();
+    }
+
+    public int size() {
+        return ids.size() + names.size();
+    }
+
+    public boolean matches(GptLoadGroup group) {
+        if (ids.contains(group.getId()) || names.contains(group.getName())) {
+            return true;
+        }
+        return group.getSource() != null && names.contains(group.getSource().getName() + "/" + group.getName());
+    }
+
+    /**
+     * 返回没有匹配到任何分组的ID和名称
+     */
+    public List<String> unmatched(List<GptLoadGroup> groups) {
+        Set<Integer> matchedIds = new HashSet<>();
+        Set<String> matchedNames = new HashSet<>();
+        for (GptLoadGroup group : groups) {
+            matchedIds.add(group.getId());
+            matchedNames.add(group.getName());
+            if (group.getSource() != null) {
+                matchedNames.add(group.getSource().getName() + "/" + group.getName());
+            }
+        }
+        List<String> unmatched = new ArrayList<>();
+        for (Integer id : ids) {
+            if (!matchedIds.contains(id)) {
+                unmatched.add(String.valueOf(id));
+            }
+        }
+        for (String name : names) {
+            if (!matchedNames.contains(name)) {
+                unmatched.add(name);
+            }
+        }
+        return unmatched;
+    }
+}
@@ -0,0 +1,28 @@
+package github.gpt.api.sync.model.history;
+
+import lombok.Value;
+
+/**
+ * 一个分组写入一个 New-API 目标的结果
+ */
+@Value
+public class GroupSyncOutcome {
+    public static final String ACTION_CREATE = "create";
+    public static final String ACTION_UPDATE = "update";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILED = "failed";
+    public static final String OUTCOME_ERROR = "error";
+
+    String target;
+    String group;
+    /**
+     * create 或 update
+     */
+    String action;
+    /**
+     * success、failed（上游拒绝）或 error（发生异常）
+     */
+    String outcome;
+    long latencyMs;
+}
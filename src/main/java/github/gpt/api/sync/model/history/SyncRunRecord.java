@@ -0,0 +1,43 @@
+package github.gpt.api.sync.model.history;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次同步的历史记录，由 {@code SyncHistoryStore} 持久化
+ */
+@Data
+public class SyncRunRecord {
+    public static final String MODE_FULL = "full";
+    public static final String MODE_TARGETED = "targeted";
+    public static final String MODE_UNCHANGED = "unchanged";
+    public static final String MODE_RESUME = "resume";
+    public static final String MODE_REMAP = "remap";
+
+    /**
+     * 完整同步、由变更通知触发的定向同步、因上游没有变化而跳过的完整同步、启动时继续上次未完成的写入，
+     * 或标准模型列表变化后更新渠道的模型映射
+     */
+    private String mode = MODE_FULL;
+    private long startedAt;
+    private long durationMs;
+    private boolean success;
+    private String error;
+    private int groupsFetched;
+    private int channelsCreated;
+    private int channelsUpdated;
+    private int channelsFailed;
+
+    // 各阶段耗时
+    private long fetchMs;
+    private long mapMs;
+    private long targetsMs;
+
+    /**
+     * 各目标的同步统计（与 /sync 响应中的 targets 相同），以 JSON 保存
+     */
+    private String targetsJson;
+    private List<GroupSyncOutcome> groups = new ArrayList<>();
+}
@@ -47,6 +47,42 @@ public class NewApiChannel {
     @SerializedName("channel_info")
     private ChannelInfo channelInfo;
 
+    /**
+     * 创建当前渠道的副本，用于将同一份映射结果分发到多个 New-API 目标。
+     * channelInfo 在同步过程中不会被修改，因此共享同一引用。
+     */
+    public NewApiChannel copy() {
+        NewApiChannel copy = new NewApiChannel();
+        copy.id = id;
+        copy.type = type;
+        copy.key = key;
+        copy.openaiOrganization = openaiOrganization;
+        copy.testModel = testModel;
+        copy.status = status;
+        copy.name = name;
+        copy.weight = weight;
+        copy.createdTime = createdTime;
+        copy.testTime = testTime;
+        copy.responseTime = responseTime;
+        copy.baseUrl = baseUrl;
+        copy.other = other;
+        copy.balance = balance;
+        copy.balanceUpdatedTime = balanceUpdatedTime;
+        copy.models = models;
+        copy.groupName = groupName;
+        copy.usedQuota = usedQuota;
+        copy.modelMapping = modelMapping;
+        copy.statusCodeMapping = statusCodeMapping;
+        copy.priority = priority;
+        copy.autoBan = autoBan;
+        copy.otherInfo = otherInfo;
+        copy.settings = settings;
+        copy.tag = tag;
+        copy.setting = setting;
+        copy.channelInfo = channelInfo;
+        return copy;
+    }
+
     @Data
     public static class ChannelInfo {
         @SerializedName("is_multi_key")
@@ -0,0 +1,20 @@
+package github.gpt.api.sync.model.newapi;
+
+import github.gpt.api.sync.model.ModelSet;
+import lombok.Value;
+
+/**
+ * 同步时使用的 New-API 渠道精简视图，只包含比较差异所需的字段。
+ * 由 {@code NewApiService#getAllChannelSummaries()} 直接从响应流中解码，其余字段不会被物化。
+ */
+@Value
+public class NewApiChannelSummary {
+    int id;
+    String baseUrl;
+    String name;
+    /**
+     * 渠道当前的模型列表，以字典编码的位图保存
+     */
+    ModelSet models;
+    String modelMapping;
+}
@@ -14,8 +14,13 @@ public class ChannelMapperService {
         }
 
         NewApiChannel newApiChannel = new NewApiChannel();
-        newApiChannel.setName(gptLoadGroup.getDisplayName() == null || gptLoadGroup.getDisplayName().isBlank() ?
-                gptLoadGroup.getName() : gptLoadGroup.getDisplayName());
+        String channelName = gptLoadGroup.getDisplayName() == null || gptLoadGroup.getDisplayName().isBlank() ?
+                gptLoadGroup.getName() : gptLoadGroup.getDisplayName();
+        // 多源模式下为渠道名称加上源名称前缀，便于区分不同区域的同名分组
+        if (AppConfig.current().getGptLoadSources().size() > 1 && gptLoadGroup.getSource() != null) {
+            channelName = "[" + gptLoadGroup.getSource().getName() + "] " + channelName;
+        }
+        newApiChannel.setName(channelName);
         newApiChannel.setBaseUrl(gptLoadGroup.getEndpoint());
         newApiChannel.setModels(gptLoadGroup.getTestModel());
         newApiChannel.setGroupName("default"); // 使用默认group
@@ -38,12 +43,14 @@ public class ChannelMapperService {
         newApiChannel.setStatus(1); // 默认启用
         newApiChannel.setPriority(0);
 
-        // 设置key，优先使用proxy_keys，如果为空则使用全局的auth key
+        // 设置key，优先使用proxy_keys，如果为空则使用分组所属源的auth key
         String proxyKeys = gptLoadGroup.getProxyKeys();
         if (proxyKeys != null && !proxyKeys.trim().isEmpty()) {
             newApiChannel.setKey(proxyKeys);
+        } else if (gptLoadGroup.getSource() != null) {
+            newApiChannel.setKey(gptLoadGroup.getSource().getAuthKey());
         } else {
-            newApiChannel.setKey(AppConfig.GPT_LOAD_AUTH_KEY);
+            newApiChannel.setKey(AppConfig.current().getGptLoadAuthKey());
         }
 
         log.debug("映射 GptLoadGroup 到 NewApiChannel: {} -> {}", gptLoadGroup.getName(), newApiChannel.getName());
@@ -0,0 +1,286 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.JsonParseException;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.ModelSet;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 渠道的模型列表和重定向映射：获取上游的实际模型，生成映射并写回 New-API 渠道，同时维护 outbox 中渠道的写入进度。
+ * 同步、继续未完成的写入和更新模型映射共用。
+ * <p>
+ * 相同的模型集合只计算一次映射：一次运行内通过调用方传入的 modelMappingCache 共享，跨运行和重启通过 {@link ModelMappingStore} 复用。
+ */
+@Slf4j
+public class ChannelModelService {
+
+    private final GptLoadService gptLoadService;
+    private final ModelRedirectService modelRedirectService;
+    private final ModelMappingStore modelMappingStore;
+    private final ModelListCache modelListCache;
+    private final SyncOutbox syncOutbox;
+
+    public ChannelModelService(GptLoadService gptLoadService, ModelRedirectService modelRedirectService,
+                               ModelMappingStore modelMappingStore, ModelListCache modelListCache, SyncOutbox syncOutbox) {
+        this.gptLoadService = gptLoadService;
+        this.modelRedirectService = modelRedirectService;
+        this.modelMappingStore = modelMappingStore;
+        this.modelListCache = modelListCache;
+        this.syncOutbox = syncOutbox;
+    }
+
+    /**
+     * 通过 gpt-load 代理获取单个分组的模型列表并生成重定向映射，不修改分组的渠道
+     *
+     * @param channel   分组映射得到的渠道，用于按 base_url 和密钥共用模型列表缓存
+     * @param groupName 分组在日志中的名称
+     * @return 最终的模型列表和映射，获取失败或没有模型时返回 null
+     */
+    DiscoveredModels discover(ConfigSnapshot config, GptLoadGroup group, NewApiChannel channel, String groupName, Semaphore permits,
+                              Map<ModelSet, Map<String, String>> modelMappingCache, SyncDeadline deadline) throws InterruptedException {
+        List<String> models;
+        permits.acquire();
+        try {
+            models = modelListCache.get(channel.getBaseUrl(), channel.getKey(), config.getModelCacheTtlSeconds() * 1000L,
+                    () -> gptLoadService.fetchGroupModels(group, deadline));
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            log.warn("通过 gpt-load 获取分组 {} 的模型列表失败，写入后再通过 New-API 获取: {}", groupName, e.getMessage());
+            return null;
+        } finally {
+            permits.release();
+        }
+        if (models == null || models.isEmpty()) {
+            log.info("分组 {} 没有可用的模型列表，写入后再通过 New-API 获取", groupName);
+            return null;
+        }
+
+        // 以 0 作为计算映射的键，相同的模型集合已在缓存中时不会重复计算
+        ModelSet actualModels = ModelSet.of(models);
+        resolveMappings(config.getStandardModels(), Map.of(0, models), Map.of(0, actualModels), modelMappingCache);
+        Map<String, String> modelMapping = modelMappingCache.get(actualModels);
+        if (modelMapping == null || modelMapping.isEmpty()) {
+            return new DiscoveredModels(actualModels.join(), null);
+        }
+        return new DiscoveredModels(actualModels.union(ModelSet.of(modelMapping.keySet())).join(), Json.GSON.toJson(modelMapping));
+    }
+
+    /**
+     * 获取渠道的实际模型列表，批量生成重定向映射并写回渠道。
+     * 缓存中没有的模型集合会一次性交给 {@link ModelRedirectService#generateModelMappings} 并行计算，
+     * 相同的模型集合只计算一次，计算结果同时写入持久化缓存供重启后使用。
+     */
+    void updateModels(NewApiService target, ConfigSnapshot config, List<PendingModelUpdate> pending,
+                      Map<ModelSet, Map<String, String>> modelMappingCache, TargetSyncResult targetResult) {
+        // 1. 获取每个渠道的实际模型，相同 base_url 和密钥的渠道（如其他目标中的同一分组）共用缓存结果
+        long ttlMillis = config.getModelCacheTtlSeconds() * 1000L;
+        for (PendingModelUpdate update : pending) {
+            NewApiChannel channel = update.channel;
+            log.info("为渠道 {} (ID: {}) 获取并更新模型列表...", channel.getName(), channel.getId());
+            try {
+                List<String> models = modelListCache.get(channel.getBaseUrl(), channel.getKey(), ttlMillis,
+                        () -> target.fetchModelsForChannel(channel.getId()));
+                if (models != null && !models.isEmpty()) {
+                    log.info("为渠道 {} 获取到 {} 个原始模型", channel.getName(), models.size());
+                    update.models = models;
+                    // 以字典编码的位图表示模型集合，合并和比较都是位运算
+                    update.actualModels = ModelSet.of(models);
+                } else {
+                    log.info("渠道 {} 没有可用的模型列表，跳过模型更新", channel.getName());
+                    syncOutbox.markDone(target.getTarget().getName(), channel.getBaseUrl());
+                }
+            } catch (IOException | URISyntaxException e) {
+                log.error("为渠道 {} 获取模型列表时发生IO异常", channel.getName(), e);
+            }
+        }
+
+        // 2. 为本次同步和持久化缓存中都还没有的模型集合批量生成映射
+        Map<Integer, List<String>> modelsById = new HashMap<>();
+        Map<Integer, ModelSet> modelSetsById = new HashMap<>();
+        for (PendingModelUpdate update : pending) {
+            if (update.actualModels != null) {
+                modelsById.put(update.channel.getId(), update.models);
+                modelSetsById.put(update.channel.getId(), update.actualModels);
+            }
+        }
+        resolveMappings(config.getStandardModels(), modelsById, modelSetsById, modelMappingCache);
+
+        // 3. 写回
+        for (PendingModelUpdate update : pending) {
+            if (update.actualModels != null) {
+                applyModels(target, update, modelMappingCache.get(update.actualModels), targetResult);
+            }
+        }
+    }
+
+    /**
+     * 标准模型列表变化后增量更新渠道的映射，结果写入持久化缓存
+     *
+     * @see ModelRedirectService#remapModelMapping
+     */
+    Map<String, String> remapModelMapping(ConfigSnapshot config, Map<String, String> existingMapping, List<String> addedModels,
+                                          ModelSet actualModels) {
+        Map<String, String> modelMapping = modelRedirectService.remapModelMapping(existingMapping,
+                config.getStandardModels(), addedModels, actualModels.toList());
+        modelMappingStore.put(config.getStandardModels(), actualModels, modelMapping);
+        return modelMapping;
+    }
+
+    /**
+     * 将本次运行新计算的映射写入持久化缓存
+     */
+    void flush() {
+        modelMappingStore.flush();
+    }
+
+    /**
+     * 渠道写入成功后更新 outbox：已带有最终模型时写入完成，否则等待获取模型并写回
+     */
+    void recordWritten(String targetName, NewApiChannel channel, boolean modelsResolved) {
+        if (modelsResolved) {
+            syncOutbox.markDone(targetName, channel.getBaseUrl());
+        } else {
+            syncOutbox.markWritten(targetName, channel.getBaseUrl());
+        }
+    }
+
+    /**
+     * 为本次同步和持久化缓存中都还没有的模型集合批量生成映射，结果放入 modelMappingCache。
+     * 相同的模型集合只计算一次。
+     *
+     * @param modelsById    渠道ID（或分组序号）到原始模型列表
+     * @param modelSetsById 渠道ID（或分组序号）到模型集合
+     */
+    private void resolveMappings(List<String> standardModels, Map<Integer, List<String>> modelsById,
+                                 Map<Integer, ModelSet> modelSetsById, Map<ModelSet, Map<String, String>> modelMappingCache) {
+        Map<Integer, List<String>> toCompute = new HashMap<>();
+        Map<Integer, ModelSet> computeKeys = new HashMap<>();
+        Set<ModelSet> seen = new HashSet<>();
+        for (Map.Entry<Integer, ModelSet> entry : modelSetsById.entrySet()) {
+            ModelSet actualModels = entry.getValue();
+            if (modelMappingCache.containsKey(actualModels) || !seen.add(actualModels)) {
+                continue;
+            }
+            Map<String, String> stored = modelMappingStore.get(standardModels, actualModels);
+            if (stored != null) {
+                modelMappingCache.putIfAbsent(actualModels, stored);
+            } else {
+                toCompute.put(entry.getKey(), modelsById.get(entry.getKey()));
+                computeKeys.put(entry.getKey(), actualModels);
+            }
+        }
+        if (!toCompute.isEmpty()) {
+            Map<Integer, Map<String, String>> computed = modelRedirectService.generateModelMappings(standardModels, toCompute);
+            computed.forEach((id, mapping) -> {
+                ModelSet actualModels = computeKeys.get(id);
+                modelMappingCache.putIfAbsent(actualModels, mapping);
+                modelMappingStore.put(standardModels, actualModels, mapping);
+            });
+        }
+    }
+
+    /**
+     * 将模型列表和重定向映射写回渠道。
+     * 如果最终的模型集合和映射与渠道现有的一致，则跳过写入。
+     */
+    private void applyModels(NewApiService target, PendingModelUpdate update, Map<String, String> modelMapping,
+                             TargetSyncResult targetResult) {
+        NewApiChannel channel = update.channel;
+        NewApiChannelSummary existing = update.existing;
+        ModelSet finalModels = update.actualModels;
+        if (modelMapping != null && !modelMapping.isEmpty()) {
+            channel.setModelMapping(Json.GSON.toJson(modelMapping));
+            log.info("为渠道 {} 生成了模型重定向映射: {}", channel.getName(), modelMapping);
+
+            // 解析映射，并将标准模型添加到最终列表
+            finalModels = finalModels.union(ModelSet.of(modelMapping.keySet()));
+            log.info("为渠道 {} 添加了 {} 个标准模型到模型列表", channel.getName(), modelMapping.size());
+        } else {
+            log.info("渠道 {} 无需模型重定向", channel.getName());
+        }
+
+        if (existing != null && finalModels.equals(existing.getModels())
+            && (modelMapping == null || modelMapping.isEmpty() || modelMapping.equals(parseModelMapping(existing.getModelMapping())))) {
+            targetResult.modelsUnchanged++;
+            log.info("渠道 {} 的模型列表和重定向映射未变化，跳过更新", channel.getName());
+            syncOutbox.markDone(target.getTarget().getName(), channel.getBaseUrl());
+            return;
+        }
+
+        // 更新模型列表
+        channel.setModels(finalModels.join());
+        log.info("为渠道 {} 设置最终模型列表 ({} 个)", channel.getName(), finalModels.size());
+
+        // 统一更新渠道
+        if (target.updateChannel(channel)) {
+            log.info("成功为渠道 {} 更新了模型列表和重定向映射", channel.getName());
+            syncOutbox.markDone(target.getTarget().getName(), channel.getBaseUrl());
+        } else {
+            log.error("为渠道 {} 更新模型列表和重定向映射失败", channel.getName());
+        }
+    }
+
+    /**
+     * 更新现有渠道前补全ID。渠道还没有最终模型时保留渠道现有的模型列表，避免在获取到最新模型前被覆盖为测试模型
+     */
+    static void prepareUpdate(NewApiChannel channel, NewApiChannelSummary existingChannel, boolean modelsResolved) {
+        channel.setId(existingChannel.getId());
+        if (!modelsResolved && !existingChannel.getModels().isEmpty()) {
+            channel.setModels(existingChannel.getModels().join());
+        }
+    }
+
+    static Map<String, NewApiChannelSummary> channelsByBaseUrl(List<NewApiChannelSummary> channels) {
+        Map<String, NewApiChannelSummary> channelsByBaseUrl = new HashMap<>();
+        for (NewApiChannelSummary channel : channels) {
+            if (channel.getBaseUrl() != null && !channel.getBaseUrl().isEmpty()) {
+                channelsByBaseUrl.put(channel.getBaseUrl(), channel);
+            }
+        }
+        return channelsByBaseUrl;
+    }
+
+    static Map<String, String> parseModelMapping(String modelMapping) {
+        if (modelMapping == null || modelMapping.isBlank()) {
+            return Map.of();
+        }
+        try {
+            Map<String, String> parsed = Json.GSON.fromJson(modelMapping, Json.MODEL_MAPPING);
+            return parsed != null ? parsed : Map.of();
+        } catch (JsonParseException e) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * 等待获取模型并写回的渠道
+     */
+    static final class PendingModelUpdate {
+        private final NewApiChannel channel;
+        /**
+         * 渠道写入前的摘要，新创建的渠道为 null
+         */
+        private final NewApiChannelSummary existing;
+        private List<String> models;
+        private ModelSet actualModels;
+
+        PendingModelUpdate(NewApiChannel channel, NewApiChannelSummary existing) {
+            this.channel = channel;
+            this.existing = existing;
+        }
+    }
+
+    /**
+     * 通过 gpt-load 获取到的分组最终模型列表和重定向映射（没有映射时为 null）
+     */
+    record DiscoveredModels(String models, String modelMapping) {
+    }
+}
@@ -0,0 +1,132 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 清理失去 gpt-load 分组的孤儿渠道。
+ * <p>
+ * 只有 base_url 指向 gpt-load 代理路径（{@code <gpt-load>/proxy/...}）的渠道才被视为由本服务创建。
+ * 渠道第一次被发现失去分组时记录时间，超过宽限期后才会通过批量删除接口分批删除；
+ * 宽限期状态只保存在内存中，服务重启后会重新计时。
+ */
+@Slf4j
+public class ChannelPruneService {
+
+    private static final String PROXY_PATH = "/proxy/";
+
+    /**
+     * 目标名称 -> (渠道ID -> 首次发现为孤儿的时间)
+     */
+    private final Map<String, Map<Integer, Long>> orphanSince = new ConcurrentHashMap<>();
+
+    /**
+     * 根据 gpt-load 源地址和分组 endpoint 计算属于本服务管理的 base_url 前缀。
+     *
+     * @param sourceBaseUrls 配置的 gpt-load 源地址
+     * @param endpoints      本次获取到的分组 endpoint
+     * @return base_url 前缀集合
+     */
+    public Set<String> managedPrefixes(Collection<String> sourceBaseUrls, Collection<String> endpoints) {
+        Set<String> prefixes = new HashSet<>();
+        for (String baseUrl : sourceBaseUrls) {
+            prefixes.add(baseUrl + PROXY_PATH);
+        }
+        for (String endpoint : endpoints) {
+            int index = endpoint == null ? -1 : endpoint.indexOf(PROXY_PATH);
+            if (index > 0) {
+                prefixes.add(endpoint.substring(0, index + PROXY_PATH.length()));
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * 查找并清理指定目标中的孤儿渠道。
+     *
+     * @param target           New-API 目标
+     * @param existingChannels 目标中现有的渠道
+     * @param backedBaseUrls   仍有 gpt-load 分组对应的 base_url
+     * @param managedPrefixes  属于本服务管理的 base_url 前缀
+     * @param config           清理配置
+     * @return 清理报告
+     */
+    public Map<String, Object> prune(NewApiService target, List<NewApiChannelSummary> existingChannels,
+                                     Set<String> backedBaseUrls, Set<String> managedPrefixes,
+                                     ConfigSnapshot.PruneSettings config) {
+        String targetName = target.getTarget().getName();
+        Map<Integer, Long> since = orphanSince.computeIfAbsent(targetName, k -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        long gracePeriodMs = config.getGracePeriodMinutes() * 60_000L;
+
+        List<NewApiChannelSummary> expired = new ArrayList<>();
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        Set<Integer> orphanIds = new HashSet<>();
+        for (NewApiChannelSummary channel : existingChannels) {
+            String baseUrl = channel.getBaseUrl();
+            if (baseUrl == null || backedBaseUrls.contains(baseUrl) || !isManaged(baseUrl, managedPrefixes)) {
+                continue;
+            }
+            orphanIds.add(channel.getId());
+            long firstSeen = since.computeIfAbsent(channel.getId(), k -> now);
+            boolean eligible = now - firstSeen >= gracePeriodMs;
+            if (eligible) {
+                expired.add(channel);
+            }
+
+            Map<String, Object> candidate = new HashMap<>();
+            candidate.put("id", channel.getId());
+            candidate.put("name", channel.getName());
+            candidate.put("base_url", baseUrl);
+            candidate.put("orphaned_since", firstSeen);
+            candidate.put("eligible", eligible);
+            candidates.add(candidate);
+        }
+        // 重新有分组对应的渠道不再计时
+        since.keySet().retainAll(orphanIds);
+
+        int deleted = 0;
+        int failed = 0;
+        if (!config.isDryRun() && !expired.isEmpty()) {
+            int batchSize = Math.max(1, config.getBatchSize());
+            for (int i = 0; i < expired.size(); i += batchSize) {
+                List<Integer> ids = expired.subList(i, Math.min(i + batchSize, expired.size())).stream()
+                        .map(NewApiChannelSummary::getId)
+                        .toList();
+                if (target.deleteChannels(ids)) {
+                    deleted += ids.size();
+                    ids.forEach(since::remove);
+                } else {
+                    failed += ids.size();
+                }
+            }
+            log.info("[{}] 孤儿渠道清理完成。删除: {}, 失败: {}, 宽限期内: {}", targetName, deleted, failed,
+                    orphanIds.size() - expired.size());
+        } else if (!orphanIds.isEmpty()) {
+            log.info("[{}] 发现 {} 个孤儿渠道，其中 {} 个已超过宽限期{}", targetName, orphanIds.size(), expired.size(),
+                    config.isDryRun() ? " (dry-run，不会删除)" : "");
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("dry_run", config.isDryRun());
+        report.put("orphans_found", orphanIds.size());
+        report.put("pending_grace", orphanIds.size() - expired.size());
+        report.put("deleted", deleted);
+        report.put("failed", failed);
+        report.put("candidates", candidates);
+        return report;
+    }
+
+    private boolean isManaged(String baseUrl, Set<String> managedPrefixes) {
+        for (String prefix : managedPrefixes) {
+            if (baseUrl.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package github.gpt.api.sync.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 成员的一致性哈希环，用于在副本之间分配 gpt-load 分组。
+ * <p>
+ * 每个成员在环上占 {@link #VIRTUAL_NODES} 个虚拟节点，键归属于顺时针方向的第一个节点。
+ * 成员加入或退出时只有相邻区间的键改变归属，其余分组仍由原来的副本负责。
+ * 哈希只取决于成员ID和键，所有副本对同一组成员算出相同的归属。创建后不可修改。
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final List<String> members;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> members) {
+        this.members = List.copyOf(new TreeSet<>(members));
+        for (String member : this.members) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    /**
+     * 环上的成员，按ID排序
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * 负责该键的成员，环为空时返回 null
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> node = ring.ceilingEntry(hash(key));
+        return node != null ? node.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 该键是否由指定成员负责
+     */
+    public boolean owns(String member, String key) {
+        return member.equals(ownerOf(key));
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,75 +1,245 @@
 package github.gpt.api.sync.service;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.GptLoadSource;
+import github.gpt.api.sync.jfr.UpstreamCallEvent;
+import github.gpt.api.sync.json.Json;
 import github.gpt.api.sync.model.gptload.GptLoadApiResponse;
 import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 public class GptLoadService {
 
-    private final Gson gson;
+    /**
+     * 每个源最近一次成功获取的分组，用于 If-None-Match 条件请求和比较分组是否变化
+     */
+    private final Map<String, SourceGroups> lastSourceGroups = new ConcurrentHashMap<>();
 
     public GptLoadService() {
-        this.gson = new Gson();
         log.info("GptLoadService初始化完成");
     }
 
     /**
-     * 获取所有分组信息
+     * 获取所有 gpt-load 源的分组信息并合并
+     *
+     * @return 合并后的分组列表
+     * @throws IOException 当所有源都获取失败时抛出异常
+     */
+    public List<GptLoadGroup> getAllGroups() throws IOException {
+        return fetchAllSources().getGroups();
+    }
+
+    /**
+     * 并发获取所有 gpt-load 源的分组，并按 endpoint 合并为一个分组列表。
+     * 当多个源返回相同 endpoint 时，以配置顺序靠前的源为准。
+     * 部分源失败时仍返回其余源的结果，失败的源记录在返回值中。
+     *
+     * @return 合并结果
+     * @throws IOException 当所有源都获取失败时抛出异常
+     */
+    public MergedGroups fetchAllSources() throws IOException {
+        return fetchAllSources(AppConfig.current().getGptLoadSources());
+    }
+
+    /**
+     * 并发获取指定 gpt-load 源的分组并合并，规则同 {@link #fetchAllSources()}。
+     *
+     * @param sources gpt-load 源列表
+     * @return 合并结果
+     * @throws IOException 当所有源都获取失败时抛出异常
+     */
+    public MergedGroups fetchAllSources(List<GptLoadSource> sources) throws IOException {
+        return fetchAllSources(sources, SyncDeadline.none());
+    }
+
+    /**
+     * 在同步时限内并发获取指定 gpt-load 源的分组并合并，每次请求的超时不超过剩余时间
+     *
+     * @param sources  gpt-load 源列表
+     * @param deadline 所属同步的时限
+     * @return 合并结果
+     * @throws IOException 当所有源都获取失败或同步已停止时抛出异常
+     */
+    public MergedGroups fetchAllSources(List<GptLoadSource> sources, SyncDeadline deadline) throws IOException {
+        if (sources.size() == 1) {
+            return merge(sources, List.of(fetchSourceGroups(sources.get(0), deadline)), List.of());
+        }
+
+        log.info("正在并发获取 {} 个 gpt-load 源的分组信息", sources.size());
+        List<Future<SourceGroups>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (GptLoadSource source : sources) {
+                futures.add(executor.submit(() -> fetchSourceGroups(source, deadline)));
+            }
+        }
+
+        List<SourceGroups> fetched = new ArrayList<>();
+        List<String> failedSources = new ArrayList<>();
+        IOException lastError = null;
+        for (int i = 0; i < sources.size(); i++) {
+            try {
+                fetched.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                String sourceName = sources.get(i).getName();
+                log.error("从 gpt-load 源 '{}' 获取分组失败: {}", sourceName, e.getCause().getMessage());
+                failedSources.add(sourceName);
+                lastError = new IOException("从 gpt-load 源 '" + sourceName + "' 获取分组失败", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("获取 gpt-load 分组时被中断", e);
+            }
+        }
+
+        if (fetched.isEmpty()) {
+            throw lastError;
+        }
+        return merge(sources, fetched, failedSources);
+    }
+
+    private MergedGroups merge(List<GptLoadSource> sources, List<SourceGroups> fetched, List<String> failedSources) {
+        Map<String, GptLoadGroup> groupsByEndpoint = new LinkedHashMap<>();
+        List<GptLoadGroup> withoutEndpoint = new ArrayList<>();
+        for (SourceGroups sourceGroups : fetched) {
+            for (GptLoadGroup group : sourceGroups.groups()) {
+                String endpoint = group.getEndpoint();
+                if (endpoint == null || endpoint.isEmpty()) {
+                    withoutEndpoint.add(group);
+                    continue;
+                }
+                GptLoadGroup existing = groupsByEndpoint.putIfAbsent(endpoint, group);
+                if (existing != null) {
+                    log.warn("分组 endpoint 冲突: {} (源 '{}' 的分组 '{}' 与源 '{}' 的分组 '{}'), 保留前者",
+                            endpoint, existing.getSource().getName(), existing.getName(),
+                            group.getSource().getName(), group.getName());
+                }
+            }
+        }
+
+        List<GptLoadGroup> merged = new ArrayList<>(groupsByEndpoint.values());
+        merged.addAll(withoutEndpoint);
+        return new MergedGroups(merged, failedSources, combineContentHashes(sources, fetched, failedSources));
+    }
+
+    /**
+     * 按配置顺序合并各源的响应哈希，源的配置、分组内容或获取成败有变化时结果都会不同
+     */
+    private static String combineContentHashes(List<GptLoadSource> sources, List<SourceGroups> fetched, List<String> failedSources) {
+        if (fetched.size() == 1 && failedSources.isEmpty()) {
+            return fetched.get(0).contentHash();
+        }
+        MessageDigest digest = sha256();
+        int fetchedIndex = 0;
+        for (GptLoadSource source : sources) {
+            String hash = failedSources.contains(source.getName()) ? "failed" : fetched.get(fetchedIndex++).contentHash();
+            digest.update((source.getName() + "=" + hash + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获取指定 gpt-load 源的所有分组信息
      *
+     * @param source gpt-load 源
      * @return 分组列表
      * @throws IOException 当API调用失败时抛出异常
      */
-    public List<GptLoadGroup> getAllGroups() throws IOException {
-        String url = AppConfig.GPT_LOAD_BASE_URL + "/api/groups";
-        log.info("正在从GPT-Load获取分组信息: {}", url);
+    public List<GptLoadGroup> getGroups(GptLoadSource source) throws IOException {
+        return fetchSourceGroups(source, SyncDeadline.none()).groups();
+    }
 
+    /**
+     * 获取指定 gpt-load 源的所有分组，同时计算原始响应的 SHA-256。
+     * 上次响应带有 ETag 时发送 If-None-Match，收到 304 时直接返回上次的分组。
+     */
+    private SourceGroups fetchSourceGroups(GptLoadSource source, SyncDeadline deadline) throws IOException {
+        ConfigSnapshot config = AppConfig.current();
+        String sourceKey = source.getName() + "@" + source.getBaseUrl();
+        SourceGroups previous = lastSourceGroups.get(sourceKey);
+        String url = source.getBaseUrl() + "/api/groups";
+        log.info("正在从GPT-Load ({}) 获取分组信息: {}", source.getName(), url);
+
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.GPT_LOAD, "GET", "/api/groups");
+        event.name = source.getName();
         HttpURLConnection connection = null;
         try {
             connection = (HttpURLConnection) new URI(url).toURL().openConnection();
             connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + AppConfig.GPT_LOAD_AUTH_KEY);
+            connection.setRequestProperty("Authorization", "Bearer " + source.getAuthKey());
             connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(AppConfig.CONNECTION_TIMEOUT);
-            connection.setReadTimeout(AppConfig.READ_TIMEOUT);
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+            if (previous != null && previous.etag() != null) {
+                connection.setRequestProperty("If-None-Match", previous.etag());
+            }
 
             int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
             log.info("GPT-Load API响应码: {}", responseCode);
 
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+                log.info("{} 的分组未变化 (304)，使用上次获取的 {} 个分组", source.getName(), previous.groups().size());
+                return previous;
+            }
             if (responseCode != 200) {
                 String errorMsg = "从GPT-Load获取分组失败. 响应码: " + responseCode;
                 log.error(errorMsg);
                 throw new IOException(errorMsg);
             }
 
+            // 读取响应的同时计算原始字节的哈希，用于判断分组是否变化
+            MessageDigest digest = sha256();
             StringBuilder response = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new DigestInputStream(event.countResponse(connection.getInputStream()), digest), StandardCharsets.UTF_8))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     response.append(line);
                 }
             }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
 
             String responseBody = response.toString();
             log.debug("GPT-Load API响应: {}", responseBody);
 
-            GptLoadApiResponse<List<GptLoadGroup>> apiResponse = gson.fromJson(
-                    responseBody,
-                    new TypeToken<GptLoadApiResponse<List<GptLoadGroup>>>() {
-                    }.getType()
-            );
+            GptLoadApiResponse<List<GptLoadGroup>> apiResponse = Json.GSON.fromJson(responseBody, Json.GPT_LOAD_GROUPS_RESPONSE);
 
             if (apiResponse == null) {
                 throw new IOException("GPT-Load API返回空响应");
@@ -81,9 +251,14 @@ public class GptLoadService {
                 throw new IOException(errorMsg);
             }
 
-            List<GptLoadGroup> groups = apiResponse.getData();
-            log.info("成功获取到 {} 个分组", groups != null ? groups.size() : 0);
-            return groups;
+            List<GptLoadGroup> groups = apiResponse.getData() != null ? apiResponse.getData() : List.of();
+            for (GptLoadGroup group : groups) {
+                group.setSource(source);
+            }
+            log.info("成功从 {} 获取到 {} 个分组", source.getName(), groups.size());
+            SourceGroups fetched = new SourceGroups(List.copyOf(groups), contentHash, connection.getHeaderField("ETag"));
+            lastSourceGroups.put(sourceKey, fetched);
+            return fetched;
 
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
@@ -91,33 +266,236 @@ public class GptLoadService {
             if (connection != null) {
                 connection.disconnect();
             }
+            event.commit();
         }
     }
 
     /**
-     * 测试与GPT-Load的连接
+     * 通过 gpt-load 代理获取分组的模型列表，不经过 New-API。
+     * 请求 {@code /proxy/{分组}/v1/models}（gemini 为 {@code /v1beta/models}），使用分组的第一个代理密钥认证，
+     * 没有代理密钥时使用所属源的 auth key。
      *
-     * @return 连接是否成功
+     * @param group gpt-load 分组
+     * @return 去重后的模型列表
+     * @throws IOException 当请求失败或响应格式无效时抛出异常
+     */
+    public List<String> fetchGroupModels(GptLoadGroup group) throws IOException {
+        return fetchGroupModels(group, SyncDeadline.none());
+    }
+
+    /**
+     * 在同步时限内获取分组的模型列表，规则同 {@link #fetchGroupModels(GptLoadGroup)}
+     *
+     * @param group    gpt-load 分组
+     * @param deadline 所属同步的时限
+     * @return 去重后的模型列表
+     * @throws IOException 当请求失败、响应格式无效或同步已停止时抛出异常
+     */
+    public List<String> fetchGroupModels(GptLoadGroup group, SyncDeadline deadline) throws IOException {
+        ConfigSnapshot config = AppConfig.current();
+        GptLoadSource source = group.getSource() != null ? group.getSource() : config.getGptLoadSources().get(0);
+        String proxyBase = group.getEndpoint() != null && !group.getEndpoint().isBlank()
+                ? group.getEndpoint() : source.getBaseUrl() + "/proxy/" + group.getName();
+        if (proxyBase.endsWith("/")) {
+            proxyBase = proxyBase.substring(0, proxyBase.length() - 1);
+        }
+        String url = proxyBase + ("gemini".equals(group.getChannelType()) ? "/v1beta/models?pageSize=1000" : "/v1/models");
+        String key = firstProxyKey(group.getProxyKeys());
+        if (key == null) {
+            key = source.getAuthKey();
+        }
+        log.debug("正在通过 gpt-load 代理获取分组 {} 的模型列表: {}", group.getName(), url);
+
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.GPT_LOAD, "GET", "/proxy/{group}/models");
+        event.name = group.getName();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Authorization", "Bearer " + key);
+            if ("anthropic".equals(group.getChannelType())) {
+                connection.setRequestProperty("x-api-key", key);
+                connection.setRequestProperty("anthropic-version", "2023-06-01");
+            }
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+            if (responseCode != 200) {
+                throw new IOException("通过 gpt-load 获取分组 " + group.getName() + " 的模型列表失败. 响应码: " + responseCode);
+            }
+
+            try (Reader reader = new InputStreamReader(event.countResponse(connection.getInputStream()), StandardCharsets.UTF_8)) {
+                List<String> models = decodeModelList(reader);
+                log.debug("通过 gpt-load 获取到分组 {} 的 {} 个模型", group.getName(), models.size());
+                return models;
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException("无效的分组代理地址: " + url, e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * 解析模型列表响应。OpenAI 和 Anthropic 格式为 {"data": [{"id": ...}]}，
+     * Gemini 格式为 {"models": [{"name": "models/..."}]}。
+     * 使用 JsonReader 流式读取，只保留模型名称，其余字段直接跳过，不构建整个响应的 JSON 树。
+     */
+    static List<String> decodeModelList(Reader reader) throws IOException {
+        List<String> data = null;
+        List<String> geminiModels = null;
+        JsonReader in = new JsonReader(reader);
+        try {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("模型列表响应格式无效");
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                    in.skipValue();
+                    continue;
+                }
+                switch (field) {
+                    case "data" -> data = readModelNames(in, "id");
+                    case "models" -> geminiModels = readModelNames(in, "name");
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw new IOException("模型列表响应格式无效", e);
+        }
+
+        Set<String> models = new LinkedHashSet<>();
+        if (data != null) {
+            models.addAll(data);
+        } else if (geminiModels != null) {
+            for (String name : geminiModels) {
+                models.add(name.startsWith("models/") ? name.substring("models/".length()) : name);
+            }
+        } else {
+            throw new IOException("模型列表响应中没有 data 或 models 字段");
+        }
+        return new ArrayList<>(models);
+    }
+
+    /**
+     * 读取对象数组中每个对象的 nameField 字段，跳过非对象元素和没有该字段的对象
+     */
+    private static List<String> readModelNames(JsonReader in, String nameField) throws IOException {
+        List<String> names = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(nameField) && (in.peek() == JsonToken.STRING || in.peek() == JsonToken.NUMBER)) {
+                    names.add(in.nextString());
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return names;
+    }
+
+    /**
+     * proxy_keys 可能包含以逗号或换行分隔的多个密钥，取第一个
+     */
+    private static String firstProxyKey(String proxyKeys) {
+        if (proxyKeys == null) {
+            return null;
+        }
+        for (String key : proxyKeys.split("[,\\n]")) {
+            if (!key.isBlank()) {
+                return key.trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 测试与所有 gpt-load 源的连接
+     *
+     * @return 是否所有源都连接成功
      */
     public boolean testConnection() {
+        boolean success = true;
+        for (GptLoadSource source : AppConfig.current().getGptLoadSources()) {
+            success &= testConnection(source);
+        }
+        return success;
+    }
+
+    /**
+     * 测试与指定 gpt-load 源的连接
+     *
+     * @return 连接是否成功
+     */
+    public boolean testConnection(GptLoadSource source) {
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.GPT_LOAD, "GET", "/api/groups");
+        event.name = source.getName();
         try {
-            String url = AppConfig.GPT_LOAD_BASE_URL + "/api/groups";
+            ConfigSnapshot config = AppConfig.current();
+            String url = source.getBaseUrl() + "/api/groups";
             HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
             connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + AppConfig.GPT_LOAD_AUTH_KEY);
-            connection.setConnectTimeout(AppConfig.CONNECTION_TIMEOUT);
-            connection.setReadTimeout(AppConfig.READ_TIMEOUT);
+            connection.setRequestProperty("Authorization", "Bearer " + source.getAuthKey());
+            connection.setConnectTimeout(config.getConnectionTimeout());
+            connection.setReadTimeout(config.getReadTimeout());
 
             int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
             boolean success = responseCode == 200;
 
-            log.info("GPT-Load连接测试 - URL: {}, 响应码: {}, 结果: {}", url, responseCode, success ? "成功" : "失败");
+            log.info("GPT-Load连接测试 - 源: {}, URL: {}, 响应码: {}, 结果: {}", source.getName(), url, responseCode, success ? "成功" : "失败");
             connection.disconnect();
 
             return success;
         } catch (Exception e) {
-            log.error("GPT-Load连接测试失败: {}", e.getMessage());
+            log.error("GPT-Load连接测试失败 - 源: {}, 错误: {}", source.getName(), e.getMessage());
             return false;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * 多个 gpt-load 源合并后的分组结果
+     */
+    @Getter
+    public static class MergedGroups {
+        private final List<GptLoadGroup> groups;
+        /**
+         * 获取失败的源名称
+         */
+        private final List<String> failedSources;
+
+        /**
+         * 各源原始响应的 SHA-256 按配置顺序合并的结果，内容不变时保持不变
+         */
+        private final String contentHash;
+
+        public MergedGroups(List<GptLoadGroup> groups, List<String> failedSources, String contentHash) {
+            this.groups = groups;
+            this.failedSources = failedSources;
+            this.contentHash = contentHash;
         }
     }
+
+    /**
+     * 单个源的分组及其原始响应的哈希和 ETag（没有时为 null）
+     */
+    private record SourceGroups(List<GptLoadGroup> groups, String contentHash, String etag) {
+    }
 }
@@ -0,0 +1,103 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 合并短时间内连续到达的分组变更通知。
+ * <p>
+ * 每次通知都会把同步推迟到 debounce 时长之后，期间重复出现的分组只保留一份；
+ * 通知持续不断时，从第一次通知起最多等待 maxDelay 时长就会同步。
+ * 同步在单独的线程中执行，执行期间到达的通知会进入下一批。
+ */
+@Slf4j
+public class GroupChangeDebouncer {
+
+    private final Consumer<GroupSelection> action;
+    private final LongSupplier debounceMillis;
+    private final LongSupplier maxDelayMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "group-change-debouncer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Integer> pendingIds = new LinkedHashSet<>();
+    private final Set<String> pendingNames = new LinkedHashSet<>();
+    private long firstEventAt;
+    private ScheduledFuture<?> flush;
+
+    /**
+     * @param action         对合并后的分组执行的操作
+     * @param debounceMillis 每次读取当前配置的 debounce 时长
+     * @param maxDelayMillis 每次读取当前配置的最长等待时长
+     */
+    public GroupChangeDebouncer(Consumer<GroupSelection> action, LongSupplier debounceMillis, LongSupplier maxDelayMillis) {
+        this.action = action;
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 加入一批变更的分组
+     *
+     * @return 当前等待同步的分组数和距离同步的毫秒数
+     */
+    public synchronized Pending submit(Collection<Integer> ids, Collection<String> names) {
+        long now = System.currentTimeMillis();
+        if (pendingIds.isEmpty() && pendingNames.isEmpty()) {
+            firstEventAt = now;
+        }
+        pendingIds.addAll(ids);
+        pendingNames.addAll(names);
+
+        long delay = Math.max(0, Math.min(debounceMillis.getAsLong(), firstEventAt + maxDelayMillis.getAsLong() - now));
+        if (flush != null) {
+            flush.cancel(false);
+        }
+        flush = scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        return new Pending(pendingIds.size() + pendingNames.size(), delay);
+    }
+
+    /**
+     * 停止调度，尚未同步的分组会被丢弃
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush() {
+        GroupSelection selection;
+        synchronized (this) {
+            if (pendingIds.isEmpty() && pendingNames.isEmpty()) {
+                return;
+            }
+            selection = new GroupSelection(new LinkedHashSet<>(pendingIds), new LinkedHashSet<>(pendingNames));
+            pendingIds.clear();
+            pendingNames.clear();
+            flush = null;
+        }
+        log.info("合并了 {} 个变更分组，开始定向同步 (等待 {}ms)", selection.size(), System.currentTimeMillis() - firstEventAt);
+        try {
+            action.accept(selection);
+        } catch (Exception e) {
+            log.error("定向同步变更分组失败", e);
+        }
+    }
+
+    /**
+     * 加入变更后的等待状态
+     */
+    public record Pending(int groups, long flushInMillis) {
+    }
+}
@@ -0,0 +1,57 @@
+package github.gpt.api.sync.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * 批量计算一个源字符串与多个目标字符串之间的滑动窗口 Levenshtein 距离（忽略大小写）。
+ * <p>
+ * 目标比源短时直接计算两者的距离；否则在目标上滑动与源等长的窗口，取最小距离。
+ * 实现必须是无状态且线程安全的。
+ */
+public interface LevenshteinBatchScorer {
+
+    /**
+     * @param source  源字符串（通常为标准模型名）
+     * @param targets 目标字符串（通常为渠道的实际模型名）
+     * @return 与 targets 一一对应的距离
+     */
+    int[] windowedDistances(String source, List<String> targets);
+
+    /**
+     * 选择当前运行环境下最快的实现：
+     * 启用了 {@code jdk.incubator.vector} 模块时使用 SIMD 实现，否则使用标量实现。
+     */
+    static LevenshteinBatchScorer best() {
+        return Selector.BEST;
+    }
+
+    @Slf4j
+    final class Selector {
+        private static final String VECTOR_MODULE = "jdk.incubator.vector";
+        private static final String VECTOR_SCORER = "github.gpt.api.sync.service.VectorLevenshteinScorer";
+        private static final LevenshteinBatchScorer BEST = select();
+
+        private Selector() {
+        }
+
+        private static LevenshteinBatchScorer select() {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+                try {
+                    // 通过反射加载，避免在未启用孵化模块时链接 Vector API
+                    LevenshteinBatchScorer scorer = (LevenshteinBatchScorer) Class.forName(VECTOR_SCORER)
+                            .getDeclaredConstructor()
+                            .newInstance();
+                    log.info("模型匹配使用 SIMD Levenshtein 计算 ({})", scorer);
+                    return scorer;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    log.warn("无法初始化 SIMD Levenshtein 计算，将使用标量实现: {}", e.toString());
+                }
+            } else {
+                log.info("未启用 {} 模块，模型匹配使用标量 Levenshtein 计算", VECTOR_MODULE);
+            }
+            return new ScalarLevenshteinScorer();
+        }
+    }
+}
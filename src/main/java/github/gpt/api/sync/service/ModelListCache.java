@@ -0,0 +1,201 @@
+package github.gpt.api.sync.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 上游模型列表的内存缓存，按（渠道 base_url，密钥指纹）缓存，多个目标和多次同步共用。
+ * <p>
+ * 同一个键同时只有一次获取，并发的请求等待同一个结果；条目在 TTL 内直接返回，
+ * 超过 TTL 的 80% 后被访问时在后台刷新，刷新期间仍返回旧值，刷新失败时保留旧值直到过期。
+ * 获取失败的结果不缓存。密钥只以 SHA-256 指纹保存。所有方法都是线程安全的。
+ */
+@Slf4j
+public class ModelListCache {
+
+    /**
+     * 条目存在时间超过 TTL 的该比例后，访问时在后台刷新
+     */
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+    /**
+     * 条目数超过该值时清理已过期的条目
+     */
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public ModelListCache() {
+        this(System::currentTimeMillis);
+    }
+
+    ModelListCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 获取模型列表的操作
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<String> load() throws IOException, URISyntaxException;
+    }
+
+    /**
+     * 获取缓存的模型列表，没有或已过期时调用 loader 获取
+     *
+     * @param baseUrl   渠道 base_url
+     * @param key       渠道密钥
+     * @param ttlMillis 缓存时长，小于等于 0 时不使用缓存
+     * @param loader    获取模型列表
+     * @return 模型列表
+     */
+    public List<String> get(String baseUrl, String key, long ttlMillis, Loader loader) throws IOException, URISyntaxException {
+        if (ttlMillis <= 0) {
+            return loader.load();
+        }
+        CacheKey cacheKey = new CacheKey(baseUrl, fingerprint(key));
+        while (true) {
+            long now = clock.getAsLong();
+            Entry entry = entries.get(cacheKey);
+            if (entry != null && entry.isUsable(now, ttlMillis)) {
+                if (entry.future.isDone()) {
+                    hits.increment();
+                    if (now - entry.loadedAt >= ttlMillis * REFRESH_AHEAD_RATIO && entry.refreshing.compareAndSet(false, true)) {
+                        refreshAsync(cacheKey, entry, loader);
+                    }
+                }
+                return await(entry.future);
+            }
+
+            Entry loading = new Entry(now);
+            boolean installed = entry == null ? entries.putIfAbsent(cacheKey, loading) == null : entries.replace(cacheKey, entry, loading);
+            if (!installed) {
+                // 其他线程刚开始获取，等待它的结果
+                continue;
+            }
+            if (entries.size() > MAX_ENTRIES) {
+                evictExpired(now, ttlMillis);
+            }
+            loads.increment();
+            try {
+                List<String> models = List.copyOf(loader.load());
+                loading.loadedAt = clock.getAsLong();
+                loading.future.complete(models);
+                return models;
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                entries.remove(cacheKey, loading);
+                loading.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 缓存统计：条目数、命中数、实际获取数和后台刷新数
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("refreshes", refreshes.sum());
+        return stats;
+    }
+
+    private void refreshAsync(CacheKey cacheKey, Entry entry, Loader loader) {
+        Thread.ofVirtual().name("model-list-refresh").start(() -> {
+            try {
+                List<String> models = List.copyOf(loader.load());
+                Entry refreshed = new Entry(clock.getAsLong());
+                refreshed.future.complete(models);
+                entries.replace(cacheKey, entry, refreshed);
+                refreshes.increment();
+                log.debug("已在后台刷新模型列表: {}", cacheKey.baseUrl());
+            } catch (Exception e) {
+                log.warn("后台刷新模型列表失败，继续使用缓存直到过期: {} - {}", cacheKey.baseUrl(), e.getMessage());
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    private void evictExpired(long now, long ttlMillis) {
+        entries.values().removeIf(entry -> entry.future.isDone() && !entry.isUsable(now, ttlMillis));
+    }
+
+    private static List<String> await(CompletableFuture<List<String>> future) throws IOException, URISyntaxException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待模型列表时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof URISyntaxException uriSyntaxException) {
+                throw uriSyntaxException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static String fingerprint(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest((key != null ? key : "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CacheKey(String baseUrl, String keyFingerprint) {
+    }
+
+    private static class Entry {
+        private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long loadedAt;
+
+        private Entry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * 获取中的条目总是可用（等待结果），已完成的条目在 TTL 内可用
+         */
+        private boolean isUsable(long now, long ttlMillis) {
+            return !future.isDone() || (!future.isCompletedExceptionally() && now - loadedAt < ttlMillis);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.model.ModelSet;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 持久化的模型重定向映射缓存，保存在 data/model-mapping-cache.json，服务重启后无需重新计算。
+ * <p>
+ * 缓存键为标准模型列表、实际模型集合（按名称排序）和匹配算法版本的 SHA-256。
+ * 文件中同时记录算法版本和标准模型列表的摘要，二者任一变化时整个缓存失效。
+ * 首次访问时才读取文件，写入只在 {@link #flush()} 时发生。所有方法都是线程安全的。
+ */
+@Slf4j
+public class ModelMappingStore {
+
+    private static final String STORE_FILE = AppConfig.DATA_PATH + "/model-mapping-cache.json";
+
+    /**
+     * 最多保存的映射数，超过时淘汰最早写入的
+     */
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Path file;
+    private final int algorithmVersion;
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    private StoreData data;
+    private boolean dirty;
+
+    public ModelMappingStore() {
+        this(Path.of(STORE_FILE), ModelRedirectService.ALGORITHM_VERSION);
+    }
+
+    ModelMappingStore(Path file, int algorithmVersion) {
+        this.file = file;
+        this.algorithmVersion = algorithmVersion;
+    }
+
+    /**
+     * 查找已保存的映射
+     *
+     * @param standardModels 标准模型列表
+     * @param actualModels   渠道实际模型集合
+     * @return 映射，未保存时返回 null
+     */
+    public synchronized Map<String, String> get(List<String> standardModels, ModelSet actualModels) {
+        ensureLoaded(standardModels);
+        return data.getEntries().get(key(standardModels, actualModels));
+    }
+
+    /**
+     * 保存映射，需要调用 {@link #flush()} 才会写入文件
+     */
+    public synchronized void put(List<String> standardModels, ModelSet actualModels, Map<String, String> mapping) {
+        ensureLoaded(standardModels);
+        Map<String, Map<String, String>> entries = data.getEntries();
+        if (entries.put(key(standardModels, actualModels), mapping) == null && entries.size() > MAX_ENTRIES) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        dirty = true;
+    }
+
+    /**
+     * 将未保存的变化写入文件。先写临时文件再替换，避免进程中断留下半个文件。
+     */
+    public synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                gson.toJson(data, writer);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            log.debug("已保存 {} 条模型映射缓存到 {}", data.getEntries().size(), file);
+        } catch (IOException e) {
+            log.error("保存模型映射缓存失败: {}", file, e);
+        }
+    }
+
+    private void ensureLoaded(List<String> standardModels) {
+        if (data == null) {
+            data = load();
+        }
+        String standardModelsHash = sha256(String.join("\n", standardModels));
+        if (data.getAlgorithmVersion() != algorithmVersion || !standardModelsHash.equals(data.getStandardModelsHash())) {
+            if (!data.getEntries().isEmpty()) {
+                log.info("匹配算法版本或标准模型列表已变化，清空 {} 条模型映射缓存", data.getEntries().size());
+            }
+            data = new StoreData();
+            data.setAlgorithmVersion(algorithmVersion);
+            data.setStandardModelsHash(standardModelsHash);
+            dirty = true;
+        }
+    }
+
+    private StoreData load() {
+        if (Files.notExists(file)) {
+            return new StoreData();
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            StoreData loaded = gson.fromJson(reader, StoreData.class);
+            if (loaded == null || loaded.getEntries() == null) {
+                return new StoreData();
+            }
+            // 保持插入顺序以便按写入先后淘汰
+            loaded.setEntries(new LinkedHashMap<>(loaded.getEntries()));
+            log.info("已加载 {} 条模型映射缓存", loaded.getEntries().size());
+            return loaded;
+        } catch (IOException | JsonParseException e) {
+            log.warn("模型映射缓存文件 '{}' 无法读取，将重新计算: {}", file, e.getMessage());
+            return new StoreData();
+        }
+    }
+
+    private String key(List<String> standardModels, ModelSet actualModels) {
+        List<String> sortedModels = new ArrayList<>(actualModels.toList());
+        Collections.sort(sortedModels);
+        return sha256(algorithmVersion + "\n" + String.join(",", standardModels) + "\n" + String.join(",", sortedModels));
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Data
+    private static class StoreData {
+        private int algorithmVersion;
+        private String standardModelsHash;
+        private Map<String, Map<String, String>> entries = new LinkedHashMap<>();
+    }
+}
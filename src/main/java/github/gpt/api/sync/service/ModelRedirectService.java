@@ -1,12 +1,48 @@
 package github.gpt.api.sync.service;
 
+import github.gpt.api.sync.jfr.ModelMappingEvent;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 为渠道生成标准模型到实际模型的重定向映射。
+ * <p>
+ * 本类是线程安全的：除不可变的 {@link LevenshteinBatchScorer} 外没有任何实例状态，
+ * 所有中间结果都是方法内的局部变量，可以被多个线程同时调用。新增字段时必须保持这一点。
+ */
 @Slf4j
 public class ModelRedirectService {
 
+    /**
+     * 匹配算法版本。修改匹配规则（会导致相同输入得到不同映射）时必须递增，
+     * 持久化的映射缓存会因此整体失效，见 {@link ModelMappingStore}。
+     */
+    public static final int ALGORITHM_VERSION = 1;
+
+    /**
+     * 批量计算使用的工作窃取线程池，大小为可用 CPU 核数，所有实例共享
+     */
+    private static final ForkJoinPool MAPPING_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 每个子任务最多直接计算的渠道数，超过则继续拆分
+     */
+    private static final int BATCH_SPLIT_THRESHOLD = 8;
+
+    private final LevenshteinBatchScorer levenshteinScorer;
+
+    public ModelRedirectService() {
+        this(LevenshteinBatchScorer.best());
+    }
+
+    public ModelRedirectService(LevenshteinBatchScorer levenshteinScorer) {
+        this.levenshteinScorer = levenshteinScorer;
+    }
+
     /**
      * 根据实际模型列表，为标准模型列表生成重定向映射。
      *
@@ -41,6 +77,109 @@ public class ModelRedirectService {
         return modelMap;
     }
 
+    /**
+     * 标准模型列表变化后增量更新渠道的映射：去掉已不在列表中的标准模型，只为新增的标准模型寻找匹配，其余映射原样保留。
+     * 每个标准模型的匹配只取决于实际模型列表，因此结果与用新列表调用 {@link #generateModelMapping(List, List)} 相同。
+     *
+     * @param existingMapping 渠道当前的映射（由变化前的标准模型列表生成）
+     * @param standardModels  变化后的标准模型列表
+     * @param addedModels     新增的标准模型
+     * @param actualModels    渠道实际支持的模型名称列表
+     * @return 新的映射
+     */
+    public Map<String, String> remapModelMapping(Map<String, String> existingMapping, List<String> standardModels,
+                                                 Collection<String> addedModels, List<String> actualModels) {
+        Set<String> standard = new HashSet<>(standardModels);
+        Map<String, String> modelMap = new HashMap<>();
+        existingMapping.forEach((standardModel, actualModel) -> {
+            if (standard.contains(standardModel)) {
+                modelMap.put(standardModel, actualModel);
+            }
+        });
+        if (actualModels == null || actualModels.isEmpty()) {
+            return modelMap;
+        }
+        for (String standardModel : addedModels) {
+            if (!standard.contains(standardModel) || actualModels.contains(standardModel)) {
+                continue;
+            }
+            String bestMatch = findBestMatch(standardModel, actualModels);
+            if (bestMatch != null) {
+                log.debug("为新增的标准模型 '{}' 找到最接近的匹配: '{}'", standardModel, bestMatch);
+                modelMap.put(standardModel, bestMatch);
+            }
+        }
+        return modelMap;
+    }
+
+    /**
+     * 并行为多个渠道生成模型重定向映射，规则与 {@link #generateModelMapping(List, List)} 相同。
+     * 各渠道的计算互不依赖，在共享的 ForkJoin 线程池中拆分执行。
+     *
+     * @param standardModels        权威的标准模型名称列表
+     * @param actualModelsByChannel 渠道ID -> 渠道实际支持的模型名称列表
+     * @return 渠道ID -> 模型映射，包含输入中的每个渠道（无需映射时为空 Map）
+     */
+    public Map<Integer, Map<String, String>> generateModelMappings(List<String> standardModels,
+                                                                   Map<Integer, List<String>> actualModelsByChannel) {
+        if (actualModelsByChannel == null || actualModelsByChannel.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Map.Entry<Integer, List<String>>> inputs = new ArrayList<>(actualModelsByChannel.entrySet());
+        Map<Integer, Map<String, String>> results = new ConcurrentHashMap<>(inputs.size());
+        MappingTask task = new MappingTask(standardModels, inputs, 0, inputs.size(), results);
+        if (inputs.size() <= BATCH_SPLIT_THRESHOLD) {
+            task.compute();
+        } else {
+            MAPPING_POOL.invoke(task);
+            log.debug("并行生成了 {} 个渠道的模型映射", inputs.size());
+        }
+        return results;
+    }
+
+    /**
+     * 按区间二分拆分的映射计算任务，结果写入共享的并发 Map
+     */
+    private class MappingTask extends RecursiveAction {
+        private final List<String> standardModels;
+        private final List<Map.Entry<Integer, List<String>>> inputs;
+        private final int from;
+        private final int to;
+        private final Map<Integer, Map<String, String>> results;
+
+        private MappingTask(List<String> standardModels, List<Map.Entry<Integer, List<String>>> inputs,
+                            int from, int to, Map<Integer, Map<String, String>> results) {
+            this.standardModels = standardModels;
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    Map.Entry<Integer, List<String>> input = inputs.get(i);
+                    ModelMappingEvent event = new ModelMappingEvent();
+                    event.begin();
+                    Map<String, String> mapping = generateModelMapping(standardModels, input.getValue());
+                    event.channelId = input.getKey();
+                    event.standardModels = standardModels != null ? standardModels.size() : 0;
+                    event.actualModels = input.getValue() != null ? input.getValue().size() : 0;
+                    event.mappings = mapping.size();
+                    event.commit();
+                    results.put(input.getKey(), mapping);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MappingTask(standardModels, inputs, from, middle, results),
+                    new MappingTask(standardModels, inputs, middle, to, results));
+        }
+    }
+
     /**
      * 在目标列表中为源字符串寻找最佳匹配（使用Levenshtein距离）。
      */
@@ -133,6 +272,7 @@ public class ModelRedirectService {
         String bestLevenshteinMatch = null;
         int minDistance = Integer.MAX_VALUE;
 
+        List<String> levenshteinTargets = new ArrayList<>();
         for (String target : eligibleTargets) {
             // 对于很短的目标模型名，需要额外验证
             if (target.length() <= 3 && source.length() > target.length() * 2) {
@@ -152,10 +292,14 @@ public class ModelRedirectService {
                 }
             }
 
-            int distance = calculateLevenshteinDistance(source, target);
-            if (distance < minDistance) {
-                minDistance = distance;
-                bestLevenshteinMatch = target;
+            levenshteinTargets.add(target);
+        }
+
+        int[] distances = levenshteinScorer.windowedDistances(source, levenshteinTargets);
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] < minDistance) {
+                minDistance = distances[i];
+                bestLevenshteinMatch = levenshteinTargets.get(i);
             }
         }
 
@@ -169,68 +313,6 @@ public class ModelRedirectService {
         return bestLevenshteinMatch;
     }
 
-    /**
-     * 计算两个字符串之间的Levenshtein距离，使用滑动窗口比较子串。
-     * 这对于比较 'claude-4-sonnet' 和 'claude-sonnet-4-20251233' 这样的情况很有用。
-     */
-    private int calculateLevenshteinDistance(String s1, String s2) {
-        s1 = s1.toLowerCase();
-        s2 = s2.toLowerCase();
-
-        String shorter = s1; // 标准模型作为 shorter
-        String longer = s2;  // 实际模型作为 longer
-
-        int minDistance = Integer.MAX_VALUE;
-
-        if (longer.length() < shorter.length()) {
-            // 如果实际模型较短，直接计算距离
-            return rawLevenshteinDistance(shorter, longer);
-        } else {
-            // 在实际模型上滑动标准模型长度的窗口
-            for (int i = 0; i <= longer.length() - shorter.length(); i++) {
-                String sub = longer.substring(i, i + shorter.length());
-                int distance = rawLevenshteinDistance(shorter, sub);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                }
-                // 优化：如果找到了完美匹配（距离为0），则无需继续搜索
-                if (minDistance == 0) {
-                    break;
-                }
-            }
-            return minDistance;
-        }
-    }
-
-    /**
-     * 计算两个字符串之间的原始Levenshtein距离。
-     */
-    private int rawLevenshteinDistance(String s1, String s2) {
-        // s1 and s2 are assumed to be pre-processed (e.g., toLowerCase)
-        int[] costs = new int[s2.length() + 1];
-        for (int i = 0; i <= s1.length(); i++) {
-            int lastValue = i;
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    costs[j] = j;
-                } else {
-                    if (j > 0) {
-                        int newValue = costs[j - 1];
-                        if (s1.charAt(i - 1) != s2.charAt(j - 1)) {
-                            newValue = Math.min(Math.min(newValue, lastValue), costs[j]) + 1;
-                        }
-                        costs[j - 1] = lastValue;
-                        lastValue = newValue;
-                    }
-                }
-            }
-            if (i > 0) {
-                costs[s2.length()] = lastValue;
-            }
-        }
-        return costs[s2.length()];
-    }
-
     /**
      * 检查源字符串是否在目标字符串中作为完整单词存在
      * 单词边界定义为：字符串开始、结束，或者非字母数字字符
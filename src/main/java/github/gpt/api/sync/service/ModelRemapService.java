@@ -0,0 +1,158 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.GptLoadSource;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.ModelSet;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.Future;
+
+/**
+ * 标准模型列表变化后增量更新各目标中本服务管理的渠道的模型映射，不必等待下一次完整同步。
+ * <p>
+ * 渠道的实际模型取自现有渠道（模型列表去掉映射中的标准模型），不重新请求上游；不在当前列表中的标准模型从映射和模型列表中移除，
+ * 只为新增的标准模型计算匹配，模型列表和映射都未变化的渠道不写入。
+ */
+@Slf4j
+public class ModelRemapService {
+
+    private final GptLoadService gptLoadService;
+    private final ChannelPruneService channelPruneService;
+    private final ChannelModelService channelModelService;
+    private final SyncHistoryStore syncHistoryStore;
+    private final SyncRunRegistry runs;
+
+    public ModelRemapService(GptLoadService gptLoadService, ChannelPruneService channelPruneService, ChannelModelService channelModelService,
+                             SyncHistoryStore syncHistoryStore, SyncRunRegistry runs) {
+        this.gptLoadService = gptLoadService;
+        this.channelPruneService = channelPruneService;
+        this.channelModelService = channelModelService;
+        this.syncHistoryStore = syncHistoryStore;
+        this.runs = runs;
+    }
+
+    /**
+     * 按标准模型列表的变化更新渠道的模型映射，并以 mode: "remap" 记录到同步历史（不计入汇总统计）。
+     * 与同步一样受时限约束并可以被取消，调用方负责与同步互斥。
+     *
+     * @param addedModels   新增的标准模型
+     * @param removedModels 删除的标准模型，只用于结果展示
+     * @return 执行结果
+     */
+    public Map<String, Object> remap(List<String> addedModels, List<String> removedModels) {
+        long startTime = System.currentTimeMillis();
+        ConfigSnapshot config = AppConfig.current();
+        // 各目标在流水线中并行执行，停止时中断正在进行的上游调用
+        SyncReport report = new SyncReport(SyncRunRecord.MODE_REMAP, startTime);
+        SyncRunRegistry.ActiveRun run = runs.start(SyncRunRecord.MODE_REMAP, startTime, config.getRunTimeoutSeconds());
+        SyncDeadline deadline = run.deadline();
+        List<TargetSyncResult> targetResults = new ArrayList<>();
+        try (run) {
+            Future<Set<String>> managedPrefixes = run.pipeline().submit(() -> managedPrefixes(config, deadline));
+            Map<String, Future<TargetSyncResult>> targetFutures = new LinkedHashMap<>();
+            for (NewApiService target : NewApiService.forTargets(config.getNewApiTargets(), deadline)) {
+                targetFutures.put(target.getTarget().getName(),
+                        run.pipeline().submit(() -> remapTarget(target, config, addedModels, managedPrefixes.get(), deadline)));
+            }
+            targetFutures.forEach((targetName, future) -> targetResults.add(TargetSyncResult.await(future, targetName, deadline)));
+            channelModelService.flush();
+        }
+
+        report.addTargets(targetResults);
+        boolean success = TargetSyncResult.allSucceeded(targetResults);
+        String stopReason = deadline.stopReason();
+        if (stopReason != null && !success) {
+            log.warn("更新渠道的模型映射已停止 ({})，其余渠道在下一次完整同步时更新。更新: {}, 未变化: {}, 失败: {}, 耗时: {}ms",
+                    stopReason, report.updated(), report.unchanged(), report.failed(), report.elapsedMillis());
+            report.stopped(stopReason);
+        } else {
+            log.info("渠道的模型映射已更新。更新: {}, 未变化: {}, 失败: {}, 耗时: {}ms",
+                    report.updated(), report.unchanged(), report.failed(), report.elapsedMillis());
+            if (!success) {
+                report.error("更新模型映射失败: " + targetResults.stream().filter(targetResult -> !targetResult.success)
+                        .findFirst().map(targetResult -> targetResult.error).orElse(null));
+            }
+        }
+        report.put("added_models", addedModels);
+        report.put("removed_models", removedModels);
+        report.record().setTargetsMs(report.elapsedMillis());
+        return report.finish(success, syncHistoryStore, config);
+    }
+
+    /**
+     * 本服务管理的渠道 base_url 前缀。获取 gpt-load 分组失败时只使用配置的源地址
+     */
+    private Set<String> managedPrefixes(ConfigSnapshot config, SyncDeadline deadline) {
+        List<String> sourceBaseUrls = config.getGptLoadSources().stream().map(GptLoadSource::getBaseUrl).toList();
+        List<String> endpoints = List.of();
+        try {
+            endpoints = gptLoadService.fetchAllSources(config.getGptLoadSources(), deadline).getGroups().stream()
+                    .map(GptLoadGroup::getEndpoint).toList();
+        } catch (IOException e) {
+            log.warn("获取 gpt-load 分组失败，只更新 base_url 以 gpt-load 源地址开头的渠道: {}", e.getMessage());
+        }
+        return channelPruneService.managedPrefixes(sourceBaseUrls, endpoints);
+    }
+
+    /**
+     * 更新单个目标中本服务管理的渠道的模型映射
+     */
+    private TargetSyncResult remapTarget(NewApiService target, ConfigSnapshot config, List<String> addedModels, Set<String> managedPrefixes,
+                                         SyncDeadline deadline) {
+        long startTime = System.currentTimeMillis();
+        String targetName = target.getTarget().getName();
+        TargetSyncResult targetResult = new TargetSyncResult(targetName);
+        try {
+            for (NewApiChannel channel : target.getAllChannels()) {
+                deadline.check();
+                String baseUrl = channel.getBaseUrl();
+                if (baseUrl == null || managedPrefixes.stream().noneMatch(baseUrl::startsWith)) {
+                    continue;
+                }
+                Map<String, String> existingMapping = ChannelModelService.parseModelMapping(channel.getModelMapping());
+                ModelSet existingModels = ModelSet.parse(channel.getModels());
+                // 映射中的标准模型是同步时加入的，其余才是上游实际支持的模型
+                ModelSet actualModels = existingModels.difference(ModelSet.of(existingMapping.keySet()));
+                if (actualModels.isEmpty()) {
+                    continue;
+                }
+                Map<String, String> modelMapping = channelModelService.remapModelMapping(config, existingMapping, addedModels, actualModels);
+                ModelSet finalModels = actualModels.union(ModelSet.of(modelMapping.keySet()));
+                if (finalModels.equals(existingModels) && modelMapping.equals(existingMapping)) {
+                    targetResult.modelsUnchanged++;
+                    continue;
+                }
+
+                channel.setModels(finalModels.join());
+                channel.setModelMapping(Json.GSON.toJson(modelMapping));
+                // 渠道列表不返回密钥，留空时不写入，New-API 保留原有的密钥
+                if (channel.getKey() != null && channel.getKey().isBlank()) {
+                    channel.setKey(null);
+                }
+                if (target.updateChannel(channel)) {
+                    targetResult.updated++;
+                    log.info("[{}] 已更新渠道 {} 的模型映射: {}", targetName, channel.getName(), modelMapping);
+                } else {
+                    targetResult.failed++;
+                }
+            }
+            targetResult.success = true;
+        } catch (SyncDeadline.DeadlineExceededException e) {
+            log.warn("[{}] {}", targetName, e.getMessage());
+            targetResult.error = e.getMessage();
+        } catch (IOException | URISyntaxException e) {
+            log.error("[{}] 获取渠道列表失败，无法更新模型映射", targetName, e);
+            targetResult.error = e.getMessage();
+        }
+        targetResult.durationMs = System.currentTimeMillis() - startTime;
+        return targetResult;
+    }
+}
@@ -1,32 +1,74 @@
 package github.gpt.api.sync.service;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.NewApiTarget;
+import github.gpt.api.sync.jfr.UpstreamCallEvent;
+import github.gpt.api.sync.json.ChannelRequestWriter;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.ModelSet;
 import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
 import github.gpt.api.sync.model.newapi.NewApiChannelResponseWrapper;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 public class NewApiService {
 
-    private final Gson gson;
+    /**
+     * 固定的同步目标；为 null 时每次调用都使用当前配置的主目标
+     */
+    private final NewApiTarget fixedTarget;
+    /**
+     * 所属同步的时限，每次调用的超时不超过剩余时间
+     */
+    private final SyncDeadline deadline;
+    private final ChannelRequestWriter requestWriter = new ChannelRequestWriter();
 
     public NewApiService() {
-        this.gson = new Gson();
-        log.info("NewApiService初始化完成");
+        this(null);
+    }
+
+    public NewApiService(NewApiTarget target) {
+        this(target, SyncDeadline.none());
+    }
+
+    public NewApiService(NewApiTarget target, SyncDeadline deadline) {
+        this.fixedTarget = target;
+        this.deadline = deadline;
+        log.info("NewApiService初始化完成{}", target != null ? " (目标: " + target.getName() + ")" : "");
+    }
+
+    /**
+     * 为每个 New-API 目标构建对应的服务，目标不随配置重新加载而变化，所有调用共用同一个时限
+     */
+    public static List<NewApiService> forTargets(List<NewApiTarget> targets, SyncDeadline deadline) {
+        List<NewApiService> services = new ArrayList<>();
+        for (NewApiTarget target : targets) {
+            services.add(new NewApiService(target, deadline));
+        }
+        return services;
+    }
+
+    /**
+     * 获取当前服务对应的 New-API 目标
+     */
+    public NewApiTarget getTarget() {
+        return fixedTarget != null ? fixedTarget : AppConfig.current().getNewApiTargets().get(0);
     }
 
     /**
@@ -35,23 +77,29 @@ public class NewApiService {
      * @return 连接是否成功
      */
     public boolean testConnection() {
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/status");
         try {
-            String url = AppConfig.NEW_API_BASE_URL + "/api/status";
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/status";
             HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
             connection.setRequestMethod("GET");
-            connection.setConnectTimeout(AppConfig.CONNECTION_TIMEOUT);
-            connection.setReadTimeout(AppConfig.READ_TIMEOUT);
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
 
             int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
             boolean success = responseCode == 200;
 
-            log.info("New-API连接测试 - URL: {}, 响应码: {}, 结果: {}", url, responseCode, success ? "成功" : "失败");
+            log.info("New-API连接测试 - 目标: {}, URL: {}, 响应码: {}, 结果: {}", target.getName(), url, responseCode, success ? "成功" : "失败");
             connection.disconnect();
 
             return success;
         } catch (Exception e) {
             log.error("New-API连接测试失败: {}", e.getMessage());
             return false;
+        } finally {
+            event.commit();
         }
     }
 
@@ -67,31 +115,29 @@ public class NewApiService {
             return false;
         }
 
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "POST", "/api/channel/");
         try {
-            String url = AppConfig.NEW_API_BASE_URL + "/api/channel/";
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("mode", "single");
-            requestBody.put("channel", buildChannelData(channel));
-            String jsonBody = gson.toJson(requestBody);
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/";
 
-            log.debug("正在创建渠道: {} - {}", channel.getName(), jsonBody);
+            log.debug("正在创建渠道: {}", channel.getName());
 
             HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
             connection.setRequestMethod("POST");
             connection.setRequestProperty("Content-Type", "application/json");
-            if (AppConfig.NEW_API_ACCESS_TOKEN != null && !AppConfig.NEW_API_ACCESS_TOKEN.isEmpty()) {
-                connection.setRequestProperty("Authorization", "Bearer " + AppConfig.NEW_API_ACCESS_TOKEN);
-                connection.setRequestProperty(AppConfig.NEW_API_AUTH_HEADER_TYPE.getHeaderName(), AppConfig.NEW_API_USER_ID);
+            if (target.getAccessToken() != null && !target.getAccessToken().isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+                connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
             }
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
             connection.setDoOutput(true);
 
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = jsonBody.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
+            event.requestBytes = requestWriter.send(connection, out -> ChannelRequestWriter.writeCreateRequest(out, channel));
 
             int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
 
             if (responseCode == 200 || responseCode == 201) {
                 log.info("成功创建渠道: {}", channel.getName());
@@ -106,6 +152,8 @@ public class NewApiService {
         } catch (IOException | URISyntaxException e) {
             log.error("创建渠道时发生IO异常 - 渠道: {}, 错误: {}", channel.getName(), e.getMessage());
             return false;
+        } finally {
+            event.commit();
         }
     }
 
@@ -121,29 +169,29 @@ public class NewApiService {
             return false;
         }
 
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "PUT", "/api/channel/");
         try {
-            String url = AppConfig.NEW_API_BASE_URL + "/api/channel/";
-
-            Map<String, Object> channelData = buildChannelData(channel);
-            String jsonBody = gson.toJson(channelData);
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/";
 
-            log.debug("正在更新渠道: {} - {}", channel.getName(), jsonBody);
+            log.debug("正在更新渠道: {}", channel.getName());
 
             HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
             connection.setRequestMethod("PUT");
             connection.setRequestProperty("Content-Type", "application/json");
-            if (AppConfig.NEW_API_ACCESS_TOKEN != null && !AppConfig.NEW_API_ACCESS_TOKEN.isEmpty()) {
-                connection.setRequestProperty("Authorization", "Bearer " + AppConfig.NEW_API_ACCESS_TOKEN);
-                connection.setRequestProperty(AppConfig.NEW_API_AUTH_HEADER_TYPE.getHeaderName(), AppConfig.NEW_API_USER_ID);
+            if (target.getAccessToken() != null && !target.getAccessToken().isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+                connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
             }
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
             connection.setDoOutput(true);
 
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = jsonBody.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
+            event.requestBytes = requestWriter.send(connection, out -> ChannelRequestWriter.writeChannel(out, channel));
 
             int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
 
             if (responseCode == 200) {
                 log.info("成功更新渠道: {}", channel.getName());
@@ -158,9 +206,68 @@ public class NewApiService {
         } catch (IOException | URISyntaxException e) {
             log.error("更新渠道时发生IO异常 - 渠道: {}, 错误: {}", channel.getName(), e.getMessage());
             return false;
+        } finally {
+            event.commit();
         }
     }
 
+    /**
+     * 批量删除渠道
+     *
+     * @param channelIds 要删除的渠道ID
+     * @return 是否删除成功
+     */
+    public boolean deleteChannels(List<Integer> channelIds) {
+        if (channelIds == null || channelIds.isEmpty()) {
+            return true;
+        }
+
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "POST", "/api/channel/batch");
+        try {
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/batch";
+
+            log.debug("正在批量删除渠道: {}", channelIds);
+
+            HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            if (target.getAccessToken() != null && !target.getAccessToken().isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+                connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
+            }
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+            connection.setDoOutput(true);
+
+            event.requestBytes = requestWriter.send(connection, out -> {
+                out.beginObject().name("ids").beginArray();
+                for (Integer channelId : channelIds) {
+                    out.value(channelId);
+                }
+                out.endArray().endObject();
+            });
+
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+
+            if (responseCode == 200) {
+                log.info("成功批量删除 {} 个渠道", channelIds.size());
+                return true;
+            } else {
+                String errorMsg = readErrorResponse(connection);
+                log.error("批量删除渠道失败 - 响应码: {}, 错误: {}", responseCode, errorMsg);
+                return false;
+            }
+
+        } catch (IOException | URISyntaxException e) {
+            log.error("批量删除渠道时发生IO异常 - 错误: {}", e.getMessage());
+            return false;
+        } finally {
+            event.commit();
+        }
+    }
 
     /**
      * 为指定渠道获取可用模型列表
@@ -170,43 +277,37 @@ public class NewApiService {
      * @throws IOException 当API调用失败时抛出异常
      */
     public List<String> fetchModelsForChannel(int channelId) throws IOException, URISyntaxException {
-        String url = AppConfig.NEW_API_BASE_URL + "/api/channel/fetch_models/" + channelId;
-        log.info("正在为渠道ID {} 获取模型列表: {}", channelId, url);
-
-        HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("Authorization", "Bearer " + AppConfig.NEW_API_ACCESS_TOKEN);
-        connection.setRequestProperty(AppConfig.NEW_API_AUTH_HEADER_TYPE.getHeaderName(), AppConfig.NEW_API_USER_ID);
-        connection.setConnectTimeout(AppConfig.CONNECTION_TIMEOUT);
-        connection.setReadTimeout(AppConfig.READ_TIMEOUT);
-
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 200) {
-            String errorMsg = "为渠道 " + channelId + " 获取模型列表失败. 响应码: " + responseCode;
-            log.error(errorMsg);
-            throw new IOException(errorMsg);
-        }
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/channel/fetch_models/{id}");
+        try {
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/fetch_models/" + channelId;
+            log.info("正在为渠道ID {} 获取模型列表: {}", channelId, url);
 
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-        }
+            HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+            connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
 
-        // 假设响应体是 {"data": ["model1", "model2"], ...}
-        Map<String, Object> apiResponse = gson.fromJson(response.toString(), new TypeToken<Map<String, Object>>() {
-        }.getType());
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+            if (responseCode != 200) {
+                String errorMsg = "为渠道 " + channelId + " 获取模型列表失败. 响应码: " + responseCode;
+                log.error(errorMsg);
+                throw new IOException(errorMsg);
+            }
 
-        if (apiResponse == null || !apiResponse.containsKey("data") || !(apiResponse.get("data") instanceof List)) {
-            throw new IOException("从 fetch_models API 返回的响应格式无效");
+            List<String> models;
+            try (Reader reader = new BufferedReader(new InputStreamReader(event.countResponse(connection.getInputStream()), StandardCharsets.UTF_8))) {
+                models = decodeModelNames(reader);
+            }
+            log.info("成功为渠道ID {} 获取到 {} 个模型", channelId, models.size());
+            return models;
+        } finally {
+            event.commit();
         }
-
-        @SuppressWarnings("unchecked")
-        List<String> models = (List<String>) apiResponse.get("data");
-        log.info("成功为渠道ID {} 获取到 {} 个模型", channelId, models.size());
-        return models;
     }
 
     /**
@@ -216,105 +317,287 @@ public class NewApiService {
      * @throws IOException 当API调用失败时抛出异常
      */
     public List<NewApiChannel> getAllChannels() throws IOException, URISyntaxException {
-        String url = AppConfig.NEW_API_BASE_URL + "/api/channel/?page=1&page_size=100000";
-        log.info("正在从 New-API 获取渠道信息: {}", url);
-
-        HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("Authorization", "Bearer " + AppConfig.NEW_API_ACCESS_TOKEN);
-        connection.setRequestProperty(AppConfig.NEW_API_AUTH_HEADER_TYPE.getHeaderName(), AppConfig.NEW_API_USER_ID);
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setConnectTimeout(AppConfig.CONNECTION_TIMEOUT);
-        connection.setReadTimeout(AppConfig.READ_TIMEOUT);
-
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 200) {
-            String errorMsg = "从 New-API 获取渠道失败. 响应码: " + responseCode;
-            log.error(errorMsg);
-            throw new IOException(errorMsg);
-        }
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/channel/");
+        try {
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/?page=1&page_size=100000";
+            log.info("正在从 New-API 获取渠道信息: {}", url);
 
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
+            HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+            connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
+            connection.setRequestProperty("Content-Type", "application/json");
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+            if (responseCode != 200) {
+                String errorMsg = "从 New-API 获取渠道失败. 响应码: " + responseCode;
+                log.error(errorMsg);
+                throw new IOException(errorMsg);
             }
-        }
 
-        // 将响应反序列化为 NewApiGetAllChannelsResponse 对象
-        NewApiChannelResponseWrapper apiResponse = gson.fromJson(response.toString(), NewApiChannelResponseWrapper.class);
+            // 直接从响应流反序列化为 NewApiChannelResponseWrapper 对象
+            NewApiChannelResponseWrapper apiResponse;
+            try (Reader reader = new BufferedReader(new InputStreamReader(event.countResponse(connection.getInputStream()), StandardCharsets.UTF_8))) {
+                apiResponse = Json.GSON.fromJson(reader, NewApiChannelResponseWrapper.class);
+            }
 
-        if (apiResponse == null || apiResponse.getData() == null) {
-            throw new IOException("New-API 返回无效响应或空的 items 列表");
-        }
+            if (apiResponse == null || apiResponse.getData() == null) {
+                throw new IOException("New-API 返回无效响应或空的 items 列表");
+            }
 
-        List<NewApiChannel> channels = apiResponse.getData().getItems();
+            List<NewApiChannel> channels = apiResponse.getData().getItems();
 
-        log.info("成功获取到 {} 个渠道", channels != null ? channels.size() : 0);
-        return channels;
+            log.info("成功获取到 {} 个渠道", channels != null ? channels.size() : 0);
+            return channels;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
-     * 构建New-API渠道数据
+     * 获取所有渠道的精简视图，用于同步时比较差异。
+     * 直接从响应流中逐个解码渠道，只读取 id、base_url、name、models 和 model_mapping，
+     * 其余字段通过 {@link JsonReader#skipValue()} 跳过，不会为它们创建字符串或对象。
+     *
+     * @return 渠道精简视图列表
+     * @throws IOException 当API调用失败时抛出异常
      */
-    private Map<String, Object> buildChannelData(NewApiChannel channel) {
-        Map<String, Object> data = new HashMap<>();
-
-        // 基本信息
-        data.put("id", channel.getId());
-        data.put("name", channel.getName());
-        data.put("type", channel.getType());
-        data.put("status", channel.getStatus());
-        data.put("priority", channel.getPriority());
-        data.put("weight", channel.getWeight());
-        data.put("auto_ban", channel.getAutoBan());
-
-        // 字符串和复杂类型字段，进行非空检查
-        if (channel.getKey() != null) {
-            data.put("key", channel.getKey());
-        }
-        if (channel.getOpenaiOrganization() != null) {
-            data.put("openai_organization", channel.getOpenaiOrganization());
-        }
-        if (channel.getTestModel() != null) {
-            data.put("test_model", channel.getTestModel());
-        }
-        if (channel.getBaseUrl() != null) {
-            data.put("base_url", channel.getBaseUrl());
-        }
-        if (channel.getOther() != null) {
-            data.put("other", channel.getOther());
-        }
-        if (channel.getModels() != null) {
-            data.put("models", channel.getModels());
+    public List<NewApiChannelSummary> getAllChannelSummaries() throws IOException, URISyntaxException {
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/channel/");
+        try {
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/?page=1&page_size=100000";
+            log.info("正在从 New-API 获取渠道摘要: {}", url);
+
+            HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+            connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
+            connection.setRequestProperty("Content-Type", "application/json");
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+            if (responseCode != 200) {
+                String errorMsg = "从 New-API 获取渠道失败. 响应码: " + responseCode;
+                log.error(errorMsg);
+                throw new IOException(errorMsg);
+            }
+
+            List<NewApiChannelSummary> channels;
+            try (Reader reader = new BufferedReader(new InputStreamReader(event.countResponse(connection.getInputStream()), StandardCharsets.UTF_8))) {
+                channels = decodeChannelSummaries(reader);
+            }
+
+            log.info("成功获取到 {} 个渠道摘要", channels.size());
+            return channels;
+        } finally {
+            event.commit();
         }
-        if (channel.getGroupName() != null) {
-            data.put("group", channel.getGroupName());
+    }
+
+    /**
+     * 获取渠道列表的廉价指纹：只请求一条渠道，由渠道总数和返回的第一个渠道的ID组成。
+     * 渠道被创建或删除时指纹会变化；渠道内容的修改不会反映在指纹中。
+     *
+     * @return 渠道列表指纹
+     * @throws IOException 当API调用失败时抛出异常
+     */
+    public String fetchChannelFingerprint() throws IOException, URISyntaxException {
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/channel/");
+        try {
+            NewApiTarget target = getTarget();
+            event.name = target.getName();
+            ConfigSnapshot config = AppConfig.current();
+            String url = target.getBaseUrl() + "/api/channel/?page=1&page_size=1";
+
+            HttpURLConnection connection = (HttpURLConnection) new URI(url).toURL().openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Authorization", "Bearer " + target.getAccessToken());
+            connection.setRequestProperty(target.getAuthHeaderType().getHeaderName(), target.getUserId());
+            deadline.applyTimeouts(connection, config.getConnectionTimeout(), config.getReadTimeout());
+
+            int responseCode = connection.getResponseCode();
+            event.response(connection, responseCode);
+            if (responseCode != 200) {
+                throw new IOException("从 New-API 获取渠道指纹失败. 响应码: " + responseCode);
+            }
+
+            try (Reader reader = new BufferedReader(new InputStreamReader(event.countResponse(connection.getInputStream()), StandardCharsets.UTF_8))) {
+                return decodeChannelFingerprint(reader);
+            }
+        } finally {
+            event.commit();
         }
-        if (channel.getModelMapping() != null) {
-            data.put("model_mapping", channel.getModelMapping());
+    }
+
+    /**
+     * 从只含一条渠道的渠道列表响应中解码指纹，格式为 "渠道总数:第一个渠道ID"
+     *
+     * @param json 渠道列表响应，格式为 {"data": {"items": [...], "total": 1}}
+     * @return 渠道列表指纹
+     * @throws IOException 当响应格式无效时抛出异常
+     */
+    static String decodeChannelFingerprint(Reader json) throws IOException {
+        long total = -1;
+        int firstId = 0;
+        JsonReader reader = new JsonReader(json);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"data".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if ("total".equals(field) && reader.peek() == JsonToken.NUMBER) {
+                        total = reader.nextLong();
+                    } else if ("items".equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        if (reader.hasNext()) {
+                            firstId = readChannelSummary(reader).getId();
+                        }
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException | MalformedJsonException e) {
+            throw new IOException("New-API 返回的渠道列表格式无效: " + e.getMessage(), e);
         }
-        if (channel.getStatusCodeMapping() != null) {
-            data.put("status_code_mapping", channel.getStatusCodeMapping());
+
+        if (total < 0) {
+            throw new IOException("New-API 返回的渠道列表缺少 total");
         }
-        if (channel.getOtherInfo() != null) {
-            data.put("other_info", channel.getOtherInfo());
+        return total + ":" + firstId;
+    }
+
+    /**
+     * 从 fetch_models 响应中解码模型名称
+     *
+     * @param json fetch_models 响应，格式为 {"data": ["model1", "model2"], ...}
+     * @return 模型名称列表
+     * @throws IOException 当响应格式无效时抛出异常
+     */
+    static List<String> decodeModelNames(Reader json) throws IOException {
+        List<String> models = null;
+        JsonReader reader = new JsonReader(json);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("data".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    models = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        models.add(reader.nextString());
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new IOException("从 fetch_models API 返回的响应格式无效: " + e.getMessage(), e);
         }
-        if (channel.getSettings() != null) {
-            data.put("settings", channel.getSettings());
+
+        if (models == null) {
+            throw new IOException("从 fetch_models API 返回的响应格式无效");
         }
-        if (channel.getTag() != null) {
-            data.put("tag", channel.getTag());
+        return models;
+    }
+
+    /**
+     * 从渠道列表响应中解码渠道精简视图
+     *
+     * @param json 渠道列表响应，格式为 {"data": {"items": [...]}}
+     * @return 渠道精简视图列表
+     * @throws IOException 当响应格式无效时抛出异常
+     */
+    static List<NewApiChannelSummary> decodeChannelSummaries(Reader json) throws IOException {
+        List<NewApiChannelSummary> channels = null;
+        JsonReader reader = new JsonReader(json);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("data".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    channels = readChannelPage(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException | MalformedJsonException e) {
+            throw new IOException("New-API 返回的渠道列表格式无效: " + e.getMessage(), e);
         }
-        if (channel.getSetting() != null) {
-            data.put("setting", channel.getSetting());
+
+        if (channels == null) {
+            throw new IOException("New-API 返回无效响应或空的 items 列表");
         }
-        if (channel.getChannelInfo() != null) {
-            data.put("channel_info", channel.getChannelInfo());
+        return channels;
+    }
+
+    /**
+     * 读取 data 对象，只解码其中的 items 数组
+     */
+    private static List<NewApiChannelSummary> readChannelPage(JsonReader reader) throws IOException {
+        List<NewApiChannelSummary> channels = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("items".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    channels.add(readChannelSummary(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
         }
+        reader.endObject();
+        return channels;
+    }
 
-        return data;
+    private static NewApiChannelSummary readChannelSummary(JsonReader reader) throws IOException {
+        int id = 0;
+        String baseUrl = null;
+        String name = null;
+        ModelSet models = ModelSet.EMPTY;
+        String modelMapping = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = reader.nextInt();
+                case "base_url" -> baseUrl = reader.nextString();
+                case "name" -> name = reader.nextString();
+                case "models" -> models = ModelSet.parse(reader.nextString());
+                case "model_mapping" -> modelMapping = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new NewApiChannelSummary(id, baseUrl, name, models, modelMapping);
     }
 
     /**
@@ -0,0 +1,183 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.model.ModelSet;
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
+import github.gpt.api.sync.service.ChannelModelService.PendingModelUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * 继续上次进程退出前没有完成的写入：outbox 中尚未写入的渠道按 base_url 更新或创建，
+ * 已写入但还没有写回模型的渠道获取模型并写回。
+ */
+@Slf4j
+public class PendingWriteResumeService {
+
+    private final ChannelModelService channelModelService;
+    private final SyncHistoryStore syncHistoryStore;
+    private final SyncOutbox syncOutbox;
+    private final SyncRunRegistry runs;
+
+    public PendingWriteResumeService(ChannelModelService channelModelService, SyncHistoryStore syncHistoryStore, SyncOutbox syncOutbox,
+                                     SyncRunRegistry runs) {
+        this.channelModelService = channelModelService;
+        this.syncHistoryStore = syncHistoryStore;
+        this.syncOutbox = syncOutbox;
+        this.runs = runs;
+    }
+
+    /**
+     * outbox 中尚未完成的写入数
+     */
+    public int pendingCount() {
+        return syncOutbox.pending().size();
+    }
+
+    /**
+     * 继续 outbox 中未完成的写入，并以 mode: "resume" 记录到同步历史（不计入汇总统计）。
+     * 与同步一样受时限约束并可以被取消，调用方负责与同步互斥。
+     *
+     * @return 执行结果，outbox 为空时返回 null
+     */
+    public Map<String, Object> resume() {
+        List<SyncOutbox.Entry> entries = syncOutbox.pending();
+        if (entries.isEmpty()) {
+            return null;
+        }
+        long startTime = System.currentTimeMillis();
+        ConfigSnapshot config = AppConfig.current();
+        log.info("outbox 中有 {} 个上次未完成的写入，继续执行...", entries.size());
+        Map<String, List<SyncOutbox.Entry>> entriesByTarget = new LinkedHashMap<>();
+        for (SyncOutbox.Entry entry : entries) {
+            entriesByTarget.computeIfAbsent(entry.target(), name -> new ArrayList<>()).add(entry);
+        }
+
+        // 各目标在流水线中并行执行，停止时中断正在进行的上游调用
+        SyncReport report = new SyncReport(SyncRunRecord.MODE_RESUME, startTime);
+        SyncRunRegistry.ActiveRun run = runs.start(SyncRunRecord.MODE_RESUME, startTime, config.getRunTimeoutSeconds());
+        SyncDeadline deadline = run.deadline();
+        List<TargetSyncResult> targetResults = new ArrayList<>();
+        try (run) {
+            Map<ModelSet, Map<String, String>> modelMappingCache = new ConcurrentHashMap<>();
+            Map<String, Future<TargetSyncResult>> targetFutures = new LinkedHashMap<>();
+            for (NewApiService target : NewApiService.forTargets(config.getNewApiTargets(), deadline)) {
+                String targetName = target.getTarget().getName();
+                List<SyncOutbox.Entry> targetEntries = entriesByTarget.remove(targetName);
+                if (targetEntries != null) {
+                    targetFutures.put(targetName, run.pipeline().submit(
+                            () -> resumeTarget(target, config, targetEntries, modelMappingCache, deadline)));
+                }
+            }
+            for (List<SyncOutbox.Entry> orphaned : entriesByTarget.values()) {
+                log.warn("目标 {} 已不在配置中，丢弃 {} 个未完成的写入", orphaned.get(0).target(), orphaned.size());
+                for (SyncOutbox.Entry entry : orphaned) {
+                    syncOutbox.markDone(entry.target(), entry.baseUrl());
+                }
+            }
+            targetFutures.forEach((targetName, future) -> targetResults.add(TargetSyncResult.await(future, targetName, deadline)));
+            channelModelService.flush();
+        }
+
+        report.addTargets(targetResults);
+        boolean success = TargetSyncResult.allSucceeded(targetResults);
+        String stopReason = deadline.stopReason();
+        if (stopReason != null && !success) {
+            log.warn("继续未完成的写入已停止 ({})，剩余的写入保留在 outbox 中。创建: {}, 更新: {}, 失败: {}, 耗时: {}ms",
+                    stopReason, report.created(), report.updated(), report.failed(), report.elapsedMillis());
+            report.stopped(stopReason);
+        } else {
+            log.info("已继续上次未完成的写入。创建: {}, 更新: {}, 失败: {}, 耗时: {}ms",
+                    report.created(), report.updated(), report.failed(), report.elapsedMillis());
+        }
+        report.put("entries", entries.size());
+        report.record().setGroupsFetched(entries.size());
+        report.record().setTargetsMs(report.elapsedMillis());
+        return report.finish(success, syncHistoryStore, config);
+    }
+
+    /**
+     * 继续单个目标未完成的写入。写入完成的记录从 outbox 中删除，失败的或停止时尚未处理的保留到下一次同步覆盖或再次重启
+     */
+    private TargetSyncResult resumeTarget(NewApiService target, ConfigSnapshot config, List<SyncOutbox.Entry> entries,
+                                          Map<ModelSet, Map<String, String>> modelMappingCache, SyncDeadline deadline) {
+        String targetName = target.getTarget().getName();
+        TargetSyncResult targetResult = new TargetSyncResult(targetName);
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, NewApiChannelSummary> existingChannels = ChannelModelService.channelsByBaseUrl(target.getAllChannelSummaries());
+            List<SyncOutbox.Entry> awaitingModels = new ArrayList<>();
+            boolean anyCreated = false;
+            for (SyncOutbox.Entry entry : entries) {
+                deadline.check();
+                if (!entry.isPending()) {
+                    awaitingModels.add(entry);
+                    continue;
+                }
+                NewApiChannel channel = entry.channel();
+                NewApiChannelSummary existingChannel = existingChannels.get(entry.baseUrl());
+                long groupStart = System.currentTimeMillis();
+                boolean written;
+                if (existingChannel != null) {
+                    ChannelModelService.prepareUpdate(channel, existingChannel, entry.modelsResolved());
+                    written = target.updateChannel(channel);
+                    targetResult.updated += written ? 1 : 0;
+                } else {
+                    written = target.createChannel(channel);
+                    targetResult.created += written ? 1 : 0;
+                    anyCreated |= written;
+                }
+                targetResult.groupOutcomes.add(new GroupSyncOutcome(targetName, entry.groupName(),
+                        existingChannel != null ? GroupSyncOutcome.ACTION_UPDATE : GroupSyncOutcome.ACTION_CREATE,
+                        written ? GroupSyncOutcome.OUTCOME_SUCCESS : GroupSyncOutcome.OUTCOME_FAILED, System.currentTimeMillis() - groupStart));
+                if (!written) {
+                    targetResult.failed++;
+                    continue;
+                }
+                channelModelService.recordWritten(targetName, channel, entry.modelsResolved());
+                if (!entry.modelsResolved()) {
+                    awaitingModels.add(entry);
+                }
+            }
+
+            if (!awaitingModels.isEmpty()) {
+                // 创建接口不返回ID，有新创建的渠道时重新获取一次渠道列表
+                if (anyCreated) {
+                    existingChannels = ChannelModelService.channelsByBaseUrl(target.getAllChannelSummaries());
+                }
+                List<PendingModelUpdate> pending = new ArrayList<>();
+                for (SyncOutbox.Entry entry : awaitingModels) {
+                    NewApiChannelSummary channel = existingChannels.get(entry.baseUrl());
+                    if (channel == null) {
+                        log.warn("[{}] 渠道已不在 New-API 中，丢弃未完成的模型更新: {}", targetName, entry.baseUrl());
+                        syncOutbox.markDone(targetName, entry.baseUrl());
+                        continue;
+                    }
+                    entry.channel().setId(channel.getId());
+                    pending.add(new PendingModelUpdate(entry.channel(), channel));
+                }
+                channelModelService.updateModels(target, config, pending, modelMappingCache, targetResult);
+            }
+            // 写回模型失败的渠道不计入失败数，停止时以目标失败结束
+            deadline.check();
+            targetResult.success = true;
+        } catch (SyncDeadline.DeadlineExceededException e) {
+            log.warn("[{}] {}", targetName, e.getMessage());
+            targetResult.error = e.getMessage();
+        } catch (IOException | URISyntaxException e) {
+            log.error("[{}] 继续未完成的写入时发生错误", targetName, e);
+            targetResult.error = e.getMessage();
+        }
+        targetResult.durationMs = System.currentTimeMillis() - startTime;
+        return targetResult;
+    }
+}
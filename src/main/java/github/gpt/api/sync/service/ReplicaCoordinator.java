@@ -0,0 +1,483 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.JsonParseException;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.CoordinationMode;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import lombok.extern.slf4j.Slf4j;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 多个副本之间的同步协调，通过共享卷上的同一个 SQLite 文件完成，不依赖其他外部服务。
+ * <p>
+ * 每个副本每隔三分之一租约有效期续约一次：更新自己的成员记录，删除已过期的成员，
+ * 并尝试获取或续约 leader 租约（租约由当前持有者续约，过期后任何副本都可以取得）。
+ * 续约失败（如共享文件不可用）时，本地的 leader 身份在租约到期时自动失效，此时其他副本才可能取得租约。
+ * 到期时间使用各副本的本地时钟，副本之间的时钟偏差应远小于租约有效期。
+ * <p>
+ * 不负责执行的副本收到的同步请求写入 sync_request 表，由负责的副本在续约时取走执行。
+ * 共享卷必须支持文件锁（如 NFSv4），数据库使用回滚日志而不是 WAL，后者要求所有进程在同一台主机上。
+ * 所有方法都是线程安全的。
+ */
+@Slf4j
+public class ReplicaCoordinator {
+
+    private static final String SYNC_LEADER_LEASE = "sync-leader";
+
+    /**
+     * 共享文件被其他副本锁住时的最长等待时间（毫秒）
+     */
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS replica_member (
+                member_id TEXT PRIMARY KEY,
+                started_at INTEGER NOT NULL,
+                heartbeat_at INTEGER NOT NULL,
+                expires_at INTEGER NOT NULL
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE IF NOT EXISTS replica_lease (
+                name TEXT PRIMARY KEY,
+                holder TEXT NOT NULL,
+                acquired_at INTEGER NOT NULL,
+                expires_at INTEGER NOT NULL
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE IF NOT EXISTS sync_request (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                member_id TEXT,
+                requested_by TEXT NOT NULL,
+                selection TEXT,
+                requested_at INTEGER NOT NULL
+            )"""
+    };
+
+    private static final String UPSERT_MEMBER = """
+            INSERT INTO replica_member (member_id, started_at, heartbeat_at, expires_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (member_id) DO UPDATE SET heartbeat_at = excluded.heartbeat_at, expires_at = excluded.expires_at""";
+
+    /**
+     * 租约不存在、由本副本持有或已过期时取得（续约）租约，否则不修改
+     */
+    private static final String ACQUIRE_LEASE = """
+            INSERT INTO replica_lease (name, holder, acquired_at, expires_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (name) DO UPDATE SET
+                acquired_at = CASE WHEN replica_lease.holder = excluded.holder THEN replica_lease.acquired_at ELSE excluded.acquired_at END,
+                holder = excluded.holder,
+                expires_at = excluded.expires_at
+            WHERE replica_lease.holder = excluded.holder OR replica_lease.expires_at <= ?""";
+
+    private final CoordinationMode mode;
+    private final Path file;
+    private final String memberId;
+    private final long leaseMillis;
+    private final LongSupplier clock;
+    private final long startedAt;
+    private Connection connection;
+    private ScheduledExecutorService scheduler;
+    private Listener listener;
+
+    /**
+     * 最近一次成功续约时看到的状态，还没有成功续约时为 null
+     */
+    private volatile View view;
+
+    /**
+     * 上一次续约后的 leader 身份。租约可能在两次续约之间就在本地到期，因此与它比较而不是与续约前的状态比较
+     */
+    private boolean reportedLeader;
+
+    public ReplicaCoordinator(ConfigSnapshot.CoordinationSettings settings) {
+        this(settings.getMode(), Path.of(settings.getDbPath()),
+                settings.getMemberId().isBlank() ? defaultMemberId() : settings.getMemberId(),
+                settings.getLeaseSeconds() * 1000L, System::currentTimeMillis);
+    }
+
+    ReplicaCoordinator(CoordinationMode mode, Path file, String memberId, long leaseMillis, LongSupplier clock) {
+        this.mode = mode;
+        this.file = file;
+        this.memberId = memberId;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+    /**
+     * 不与其他副本协调的单实例：始终是 leader，负责所有分组
+     */
+    public static ReplicaCoordinator standalone() {
+        return new ReplicaCoordinator(CoordinationMode.NONE, null, defaultMemberId(), 0, System::currentTimeMillis);
+    }
+
+    /**
+     * 协调状态变化的回调，在续约线程中调用，不应阻塞
+     */
+    public interface Listener {
+        /**
+         * 本副本失去了 leader 租约
+         */
+        void leadershipLost();
+
+        /**
+         * 有交给本副本执行的同步请求，通过 {@link #claimRequests()} 取走
+         */
+        void syncRequested();
+    }
+
+    /**
+     * 转交给本副本执行的同步请求
+     *
+     * @param requestedBy 收到请求的副本
+     * @param selection   定向同步的分组，完整同步时为 null
+     */
+    public record SyncRequest(String requestedBy, GroupSelection selection, long requestedAt) {
+    }
+
+    private record View(long renewedAt, String leader, long leaderExpiresAt, List<String> members) {
+    }
+
+    public CoordinationMode mode() {
+        return mode;
+    }
+
+    public boolean isEnabled() {
+        return mode != CoordinationMode.NONE;
+    }
+
+    public String memberId() {
+        return memberId;
+    }
+
+    /**
+     * 加入协调：立即续约一次，之后定期续约。未启用协调时不做任何事
+     */
+    public synchronized void start(Listener listener) {
+        if (!isEnabled() || scheduler != null) {
+            return;
+        }
+        this.listener = listener;
+        log.info("以 {} 模式加入副本协调, 成员ID: {}, 协调数据库: {}", mode, memberId, file);
+        heartbeat();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, leaseMillis / 3);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 续约成员记录和 leader 租约，清理已下线的成员和发给它们的请求，并刷新本地看到的状态
+     */
+    void heartbeat() {
+        boolean wasLeader;
+        boolean isLeader;
+        boolean requested = false;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            try {
+                Connection conn = connection();
+                conn.setAutoCommit(false);
+                try {
+                    update(conn, UPSERT_MEMBER, memberId, startedAt, now, now + leaseMillis);
+                    update(conn, "DELETE FROM replica_member WHERE expires_at <= ?", now);
+                    update(conn, "DELETE FROM sync_request WHERE member_id IS NOT NULL AND member_id NOT IN (SELECT member_id FROM replica_member)");
+                    update(conn, ACQUIRE_LEASE, SYNC_LEADER_LEASE, memberId, now, now + leaseMillis, now);
+
+                    String leader = null;
+                    long leaderExpiresAt = 0;
+                    try (PreparedStatement ps = conn.prepareStatement("SELECT holder, expires_at FROM replica_lease WHERE name = ?")) {
+                        ps.setString(1, SYNC_LEADER_LEASE);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            if (rs.next()) {
+                                leader = rs.getString("holder");
+                                leaderExpiresAt = rs.getLong("expires_at");
+                            }
+                        }
+                    }
+                    List<String> members = new ArrayList<>();
+                    try (PreparedStatement ps = conn.prepareStatement("SELECT member_id FROM replica_member ORDER BY member_id");
+                         ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            members.add(rs.getString("member_id"));
+                        }
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "SELECT COUNT(*) FROM sync_request WHERE member_id = ? OR (member_id IS NULL AND ? = ?)")) {
+                        ps.setString(1, memberId);
+                        ps.setString(2, memberId);
+                        ps.setString(3, leader);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            requested = rs.next() && rs.getInt(1) > 0;
+                        }
+                    }
+                    conn.commit();
+                    view = new View(now, leader, leaderExpiresAt, List.copyOf(members));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                log.warn("副本协调续约失败: {}", e.getMessage());
+            }
+            wasLeader = reportedLeader;
+            isLeader = isLeader();
+            reportedLeader = isLeader;
+        }
+
+        if (isLeader != wasLeader) {
+            if (isLeader) {
+                log.info("本副本 ({}) 成为同步 leader", memberId);
+            } else {
+                log.warn("本副本 ({}) 已失去同步 leader 租约, 当前 leader: {}", memberId, leader());
+            }
+        }
+        notifyListener(wasLeader && !isLeader, requested);
+    }
+
+    private void notifyListener(boolean leadershipLost, boolean requested) {
+        Listener current;
+        synchronized (this) {
+            current = listener;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            if (leadershipLost) {
+                current.leadershipLost();
+            }
+            if (requested) {
+                current.syncRequested();
+            }
+        } catch (RuntimeException e) {
+            log.error("处理副本协调回调失败", e);
+        }
+    }
+
+    /**
+     * 本副本当前是否持有 leader 租约。未启用协调时始终为 true；续约失败时在租约到期后变为 false
+     */
+    public boolean isLeader() {
+        if (!isEnabled()) {
+            return true;
+        }
+        View current = view;
+        return current != null && memberId.equals(current.leader()) && clock.getAsLong() < current.leaderExpiresAt();
+    }
+
+    /**
+     * 当前 leader 的成员ID，不知道或租约已过期时为 null
+     */
+    public String leader() {
+        if (!isEnabled()) {
+            return memberId;
+        }
+        View current = view;
+        return current != null && clock.getAsLong() < current.leaderExpiresAt() ? current.leader() : null;
+    }
+
+    /**
+     * 存活成员组成的哈希环，始终包含本副本。最近一个租约有效期内没有成功续约时返回 null，
+     * 此时其他副本可能已把本副本视为下线并接手了它的分组
+     */
+    public ConsistentHashRing ring() {
+        if (!isEnabled()) {
+            return new ConsistentHashRing(List.of(memberId));
+        }
+        View current = view;
+        if (current == null || clock.getAsLong() - current.renewedAt() >= leaseMillis) {
+            return null;
+        }
+        TreeSet<String> members = new TreeSet<>(current.members());
+        members.add(memberId);
+        return new ConsistentHashRing(members);
+    }
+
+    /**
+     * 把同步请求转交给其他副本，由它在下一次续约时执行
+     *
+     * @param member    执行请求的副本，为 null 时由届时的 leader 执行
+     * @param selection 定向同步的分组，完整同步时为 null
+     * @return 是否已写入
+     */
+    public synchronized boolean requestSync(String member, GroupSelection selection) {
+        try {
+            update(connection(), "INSERT INTO sync_request (member_id, requested_by, selection, requested_at) VALUES (?, ?, ?, ?)",
+                    member, memberId, selection != null ? Json.GSON.toJson(selection) : null, clock.getAsLong());
+            return true;
+        } catch (SQLException e) {
+            log.error("转交同步请求失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 取走交给本副本执行的同步请求（发给本副本的，以及本副本是 leader 时发给 leader 的），按请求顺序排列
+     */
+    public synchronized List<SyncRequest> claimRequests() {
+        List<SyncRequest> requests = new ArrayList<>();
+        String leader = isLeader() ? memberId : null;
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            try {
+                String where = "WHERE member_id = ? OR (member_id IS NULL AND ? = ?)";
+                try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM sync_request " + where + " ORDER BY id")) {
+                    ps.setString(1, memberId);
+                    ps.setString(2, memberId);
+                    ps.setString(3, leader);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String selection = rs.getString("selection");
+                            try {
+                                requests.add(new SyncRequest(rs.getString("requested_by"),
+                                        selection != null ? Json.GSON.fromJson(selection, GroupSelection.class) : null,
+                                        rs.getLong("requested_at")));
+                            } catch (JsonParseException e) {
+                                log.warn("转交的同步请求无法解析，已丢弃: {}", selection);
+                            }
+                        }
+                    }
+                }
+                update(conn, "DELETE FROM sync_request " + where, memberId, memberId, leader);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            log.error("读取转交的同步请求失败", e);
+            return List.of();
+        }
+        return requests;
+    }
+
+    /**
+     * 当前的协调状态
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", mode.name());
+        status.put("member_id", memberId);
+        status.put("leader", leader());
+        status.put("is_leader", isLeader());
+        ConsistentHashRing ring = ring();
+        status.put("members", ring != null ? ring.members() : List.of());
+        View current = view;
+        status.put("last_heartbeat_at", current != null ? current.renewedAt() : null);
+        return status;
+    }
+
+    /**
+     * 退出协调：停止续约，删除本副本的成员记录并释放 leader 租约，其他副本无需等待租约过期
+     */
+    public synchronized void leave() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        listener = null;
+        try {
+            Connection conn = connection();
+            update(conn, "DELETE FROM replica_member WHERE member_id = ?", memberId);
+            update(conn, "DELETE FROM replica_lease WHERE name = ? AND holder = ?", SYNC_LEADER_LEASE, memberId);
+            log.info("已退出副本协调: {}", memberId);
+        } catch (SQLException e) {
+            log.warn("退出副本协调失败: {}", e.getMessage());
+        }
+        view = null;
+        close();
+    }
+
+    /**
+     * 关闭数据库连接
+     */
+    synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("关闭副本协调数据库失败: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private static int update(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps.executeUpdate();
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+            } catch (IOException e) {
+                throw new SQLException("无法创建副本协调数据库目录: " + file.getParent(), e);
+            }
+            SQLiteConfig config = new SQLiteConfig();
+            config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+            // 事务开始时就取得写锁，多个副本同时续约时排队而不是在提交时失败
+            config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+            config.setJournalMode(SQLiteConfig.JournalMode.DELETE);
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file, config.toProperties());
+            try (Statement statement = conn.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            connection = conn;
+            log.info("副本协调数据库已打开: {}", file);
+        }
+        return connection;
+    }
+
+    private static String defaultMemberId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,80 @@
+package github.gpt.api.sync.service;
+
+import java.util.List;
+
+/**
+ * 逐对计算距离的标量实现，也是 {@link VectorLevenshteinScorer} 不可用时的后备实现。
+ */
+public class ScalarLevenshteinScorer implements LevenshteinBatchScorer {
+
+    @Override
+    public int[] windowedDistances(String source, List<String> targets) {
+        int[] distances = new int[targets.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = calculateLevenshteinDistance(source, targets.get(i));
+        }
+        return distances;
+    }
+
+    /**
+     * 计算两个字符串之间的Levenshtein距离，使用滑动窗口比较子串。
+     * 这对于比较 'claude-4-sonnet' 和 'claude-sonnet-4-20251233' 这样的情况很有用。
+     */
+    int calculateLevenshteinDistance(String s1, String s2) {
+        s1 = s1.toLowerCase();
+        s2 = s2.toLowerCase();
+
+        String shorter = s1; // 标准模型作为 shorter
+        String longer = s2;  // 实际模型作为 longer
+
+        int minDistance = Integer.MAX_VALUE;
+
+        if (longer.length() < shorter.length()) {
+            // 如果实际模型较短，直接计算距离
+            return rawLevenshteinDistance(shorter, longer);
+        } else {
+            // 在实际模型上滑动标准模型长度的窗口
+            for (int i = 0; i <= longer.length() - shorter.length(); i++) {
+                String sub = longer.substring(i, i + shorter.length());
+                int distance = rawLevenshteinDistance(shorter, sub);
+                if (distance < minDistance) {
+                    minDistance = distance;
+                }
+                // 优化：如果找到了完美匹配（距离为0），则无需继续搜索
+                if (minDistance == 0) {
+                    break;
+                }
+            }
+            return minDistance;
+        }
+    }
+
+    /**
+     * 计算两个字符串之间的原始Levenshtein距离。
+     */
+    private int rawLevenshteinDistance(String s1, String s2) {
+        // s1 and s2 are assumed to be pre-processed (e.g., toLowerCase)
+        int[] costs = new int[s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            int lastValue = i;
+            for (int j = 0; j <= s2.length(); j++) {
+                if (i == 0) {
+                    costs[j] = j;
+                } else {
+                    if (j > 0) {
+                        int newValue = costs[j - 1];
+                        if (s1.charAt(i - 1) != s2.charAt(j - 1)) {
+                            newValue = Math.min(Math.min(newValue, lastValue), costs[j]) + 1;
+                        }
+                        costs[j - 1] = lastValue;
+                        lastValue = newValue;
+                    }
+                }
+            }
+            if (i > 0) {
+                costs[s2.length()] = lastValue;
+            }
+        }
+        return costs[s2.length()];
+    }
+}
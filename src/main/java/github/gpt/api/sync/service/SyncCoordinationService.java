@@ -0,0 +1,235 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.CoordinationMode;
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 同步的入口：按 coordination.mode 决定由哪个副本执行同步，并使同步、继续未完成的写入和更新模型映射互斥执行。
+ * <p>
+ * LEADER 模式下非 leader 副本把请求转交给 leader；SHARDED 模式下把请求转交给其他存活副本，各自同步自己负责的分组。
+ * 继续写入和更新模型映射只由 leader 执行。
+ */
+@Slf4j
+public class SyncCoordinationService implements ReplicaCoordinator.Listener {
+
+    private final SyncPipelineService syncPipelineService;
+    private final PendingWriteResumeService pendingWriteResumeService;
+    private final ModelRemapService modelRemapService;
+    private final ReplicaCoordinator replicaCoordinator;
+    private final SyncRunRegistry runs;
+
+    /**
+     * 是否正在执行其他副本转交的同步请求
+     */
+    private final AtomicBoolean runningRequests = new AtomicBoolean();
+
+    /**
+     * 标准模型列表变化后在后台更新渠道的模型映射，多次变化按顺序逐个处理
+     */
+    private final ExecutorService remapExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "standard-models-remap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SyncCoordinationService(SyncPipelineService syncPipelineService, PendingWriteResumeService pendingWriteResumeService,
+                                   ModelRemapService modelRemapService, ReplicaCoordinator replicaCoordinator, SyncRunRegistry runs) {
+        this.syncPipelineService = syncPipelineService;
+        this.pendingWriteResumeService = pendingWriteResumeService;
+        this.modelRemapService = modelRemapService;
+        this.replicaCoordinator = replicaCoordinator;
+        this.runs = runs;
+    }
+
+    /**
+     * 执行一次完整同步，见 {@link SyncPipelineService#run}
+     *
+     * @return 同步结果，转交给 leader 时带有 "deferred": true
+     */
+    public Map<String, Object> runSync() {
+        return dispatch(null);
+    }
+
+    /**
+     * 只同步选中的分组。定向同步看不到全部分组，因此不做孤儿渠道清理。
+     *
+     * @param selection 要同步的分组
+     * @return 同步结果
+     */
+    public Map<String, Object> runTargetedSync(GroupSelection selection) {
+        return dispatch(selection);
+    }
+
+    /**
+     * 继续上次进程退出前没有完成的写入，服务启动后执行一次，与同步互斥。
+     * 非 leader 副本不继续，由 leader 的下一次同步覆盖或清除，避免与 leader 同时写入
+     *
+     * @return 执行结果，outbox 为空或本副本不是 leader 时返回 null
+     */
+    public Map<String, Object> resumePendingWrites() {
+        return runs.exclusive(() -> {
+            if (replicaCoordinator.mode() == CoordinationMode.LEADER && !replicaCoordinator.isLeader()) {
+                int pending = pendingWriteResumeService.pendingCount();
+                if (pending > 0) {
+                    log.info("本副本不是同步 leader，不继续 outbox 中 {} 个未完成的写入", pending);
+                }
+                return null;
+            }
+            return pendingWriteResumeService.resume();
+        });
+    }
+
+    /**
+     * 配置重新加载后比较标准模型列表，有新增或删除的标准模型时在后台增量更新渠道的模型映射，不必等待下一次完整同步
+     */
+    public void onConfigReloaded(ConfigSnapshot previous, ConfigSnapshot current) {
+        Set<String> before = new HashSet<>(previous.getStandardModels());
+        Set<String> after = new HashSet<>(current.getStandardModels());
+        if (before.equals(after)) {
+            return;
+        }
+        List<String> added = current.getStandardModels().stream().filter(model -> !before.contains(model)).toList();
+        List<String> removed = previous.getStandardModels().stream().filter(model -> !after.contains(model)).toList();
+        log.info("标准模型列表已变化 (新增: {}, 删除: {})，在后台更新渠道的模型映射", added, removed);
+        remapExecutor.execute(() -> {
+            try {
+                remapStandardModels(added, removed);
+            } catch (RuntimeException e) {
+                log.error("更新渠道的模型映射失败", e);
+            }
+        });
+    }
+
+    /**
+     * 按标准模型列表的变化增量更新渠道的模型映射，见 {@link ModelRemapService#remap}。与同步互斥执行，多副本时只由 leader 执行。
+     *
+     * @return 执行结果，本副本不是 leader 时返回 null
+     */
+    public Map<String, Object> remapStandardModels(List<String> addedModels, List<String> removedModels) {
+        return runs.exclusive(() -> {
+            if (!replicaCoordinator.isLeader()) {
+                log.info("本副本不是同步 leader，渠道的模型映射由 leader 更新");
+                return null;
+            }
+            return modelRemapService.remap(addedModels, removedModels);
+        });
+    }
+
+    /**
+     * 按协调方式执行本副本收到的同步请求：LEADER 模式下非 leader 副本把请求转交给 leader；
+     * SHARDED 模式下把请求转交给其他存活副本，各自同步自己负责的分组，本副本同步自己的部分
+     */
+    private Map<String, Object> dispatch(GroupSelection selection) {
+        if (replicaCoordinator.mode() == CoordinationMode.LEADER && !replicaCoordinator.isLeader()) {
+            return handOff(selection);
+        }
+        if (replicaCoordinator.mode() == CoordinationMode.SHARDED) {
+            ConsistentHashRing ring = replicaCoordinator.ring();
+            if (ring != null) {
+                for (String member : ring.members()) {
+                    if (!member.equals(replicaCoordinator.memberId())) {
+                        replicaCoordinator.requestSync(member, selection);
+                    }
+                }
+            }
+        }
+        return runSync(selection);
+    }
+
+    private Map<String, Object> runSync(GroupSelection selection) {
+        return runs.exclusive(() -> {
+            if (replicaCoordinator.mode() == CoordinationMode.LEADER && !replicaCoordinator.isLeader()) {
+                // 等待锁期间失去了 leader 租约
+                return handOff(selection);
+            }
+            // 分片同步开始时固定存活成员，同步期间成员变化从下一次同步起生效
+            ConsistentHashRing shardRing = null;
+            if (replicaCoordinator.mode() == CoordinationMode.SHARDED) {
+                shardRing = replicaCoordinator.ring();
+                if (shardRing == null) {
+                    log.error("最近一个租约有效期内未能续约副本协调，无法确定本副本负责的分组，跳过本次同步");
+                    return new HashMap<>(Map.of("success", false, "error", "同步失败: 副本协调数据库不可用，无法确定本副本负责的分组"));
+                }
+            }
+            return syncPipelineService.run(selection,
+                    new SyncPipelineService.ReplicaScope(replicaCoordinator.memberId(), shardRing, replicaCoordinator.isLeader()));
+        });
+    }
+
+    /**
+     * 把同步请求转交给 leader，leader 在下一次续约时执行
+     */
+    private Map<String, Object> handOff(GroupSelection selection) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("mode", selection != null ? SyncRunRecord.MODE_TARGETED : SyncRunRecord.MODE_FULL);
+        result.put("leader", replicaCoordinator.leader());
+        if (replicaCoordinator.requestSync(null, selection)) {
+            log.info("本副本不是同步 leader，已将同步请求转交给 leader: {}", replicaCoordinator.leader());
+            result.put("success", true);
+            result.put("deferred", true);
+            result.put("message", "本副本不是同步 leader，同步请求已转交给 leader 执行");
+        } else {
+            result.put("success", false);
+            result.put("error", "本副本不是同步 leader，转交同步请求失败");
+        }
+        return result;
+    }
+
+    /**
+     * 其他副本转交的同步请求到达时，在后台逐批执行，同一时间只有一个线程在执行
+     */
+    @Override
+    public void syncRequested() {
+        if (runningRequests.compareAndSet(false, true)) {
+            Thread.ofPlatform().daemon().name("sync-request").start(this::runRequestedSyncs);
+        }
+    }
+
+    /**
+     * 失去 leader 租约时停止正在进行的同步，避免与新的 leader 同时写入
+     */
+    @Override
+    public void leadershipLost() {
+        SyncRunRegistry.ActiveRun run = runs.active();
+        if (run != null && replicaCoordinator.mode() == CoordinationMode.LEADER) {
+            runs.stop(run, "失去同步 leader 租约");
+        }
+    }
+
+    /**
+     * 取走并执行转交给本副本的同步请求。每一批合并为一次同步：有完整同步请求时执行完整同步，否则合并所有分组执行定向同步
+     */
+    private void runRequestedSyncs() {
+        try {
+            List<ReplicaCoordinator.SyncRequest> requests;
+            while (!(requests = replicaCoordinator.claimRequests()).isEmpty()) {
+                Set<Integer> ids = new LinkedHashSet<>();
+                Set<String> names = new LinkedHashSet<>();
+                boolean full = false;
+                for (ReplicaCoordinator.SyncRequest request : requests) {
+                    if (request.selection() == null) {
+                        full = true;
+                    } else {
+                        ids.addAll(request.selection().getIds());
+                        names.addAll(request.selection().getNames());
+                    }
+                }
+                log.info("执行其他副本转交的 {} 个同步请求 (来自: {})", requests.size(),
+                        requests.stream().map(ReplicaCoordinator.SyncRequest::requestedBy).distinct().toList());
+                runSync(full ? null : new GroupSelection(ids, names));
+            }
+        } catch (RuntimeException e) {
+            log.error("执行转交的同步请求失败", e);
+        } finally {
+            runningRequests.set(false);
+        }
+    }
+}
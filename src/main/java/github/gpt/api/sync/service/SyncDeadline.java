@@ -0,0 +1,128 @@
+package github.gpt.api.sync.service;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.function.LongSupplier;
+
+/**
+ * 一次同步的时限和取消状态，由同步中的所有上游调用共用。
+ * <p>
+ * 每次上游调用前通过 {@link #applyTimeouts} 检查是否已停止，并把连接和读取超时缩短到剩余时间以内，
+ * 单个调用不会越过同步的截止时间。被取消或超时后，后续调用直接抛出 {@link DeadlineExceededException}。
+ * 正在进行的调用由同步线程的中断来终止，本类只记录停止原因。所有方法都是线程安全的。
+ */
+public final class SyncDeadline {
+
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final long deadlineAt;
+    private final LongSupplier clock;
+    private volatile String cancelReason;
+
+    SyncDeadline(long deadlineAt, LongSupplier clock) {
+        this.deadlineAt = deadlineAt;
+        this.clock = clock;
+    }
+
+    /**
+     * 没有时限的同步，只能被取消
+     */
+    public static SyncDeadline none() {
+        return new SyncDeadline(UNBOUNDED, System::currentTimeMillis);
+    }
+
+    /**
+     * 从现在起 budgetMillis 毫秒后到期，小于等于 0 时没有时限
+     */
+    public static SyncDeadline after(long budgetMillis) {
+        return after(budgetMillis, System::currentTimeMillis);
+    }
+
+    static SyncDeadline after(long budgetMillis, LongSupplier clock) {
+        return new SyncDeadline(budgetMillis > 0 ? clock.getAsLong() + budgetMillis : UNBOUNDED, clock);
+    }
+
+    /**
+     * 是否设有时限
+     */
+    public boolean isBounded() {
+        return deadlineAt != UNBOUNDED;
+    }
+
+    /**
+     * 剩余时间（毫秒），没有时限时为 Long.MAX_VALUE，已到期时为 0
+     */
+    public long remainingMillis() {
+        if (!isBounded()) {
+            return UNBOUNDED;
+        }
+        return Math.max(0, deadlineAt - clock.getAsLong());
+    }
+
+    /**
+     * 取消同步，多次取消时保留第一次的原因
+     *
+     * @return 本次调用是否使同步进入取消状态
+     */
+    public synchronized boolean cancel(String reason) {
+        if (cancelReason != null) {
+            return false;
+        }
+        cancelReason = reason;
+        return true;
+    }
+
+    /**
+     * 同步停止的原因：被取消时为取消原因，超过时限时为 "超过同步时限"，仍可继续时为 null
+     */
+    public String stopReason() {
+        String reason = cancelReason;
+        if (reason != null) {
+            return reason;
+        }
+        return isBounded() && clock.getAsLong() >= deadlineAt ? "超过同步时限" : null;
+    }
+
+    /**
+     * 已停止时抛出异常
+     */
+    public void check() throws DeadlineExceededException {
+        String reason = stopReason();
+        if (reason != null) {
+            throw new DeadlineExceededException(reason);
+        }
+    }
+
+    /**
+     * 检查是否已停止，并为连接设置不超过剩余时间的连接和读取超时
+     *
+     * @param connectTimeout 配置的连接超时（毫秒）
+     * @param readTimeout    配置的读取超时（毫秒）
+     */
+    public void applyTimeouts(HttpURLConnection connection, int connectTimeout, int readTimeout) throws DeadlineExceededException {
+        check();
+        connection.setConnectTimeout(bounded(connectTimeout));
+        connection.setReadTimeout(bounded(readTimeout));
+    }
+
+    /**
+     * 将超时缩短到剩余时间以内。0 在 HttpURLConnection 中表示不超时，因此至少为 1 毫秒
+     */
+    int bounded(int timeoutMillis) {
+        long remaining = remainingMillis();
+        if (remaining == UNBOUNDED) {
+            return timeoutMillis;
+        }
+        long bounded = timeoutMillis > 0 ? Math.min(timeoutMillis, remaining) : remaining;
+        return (int) Math.max(1, Math.min(bounded, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 同步已被取消或超过时限
+     */
+    public static class DeadlineExceededException extends IOException {
+        public DeadlineExceededException(String reason) {
+            super("同步已停止: " + reason);
+        }
+    }
+}
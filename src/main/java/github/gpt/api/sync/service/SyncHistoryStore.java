@@ -0,0 +1,454 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.JsonParser;
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步历史，保存在 SQLite 数据库 data/sync-history.db 中。
+ * <p>
+ * 数据分三层：每个分组的同步结果（sync_group）、每次同步的汇总（sync_run）、
+ * 按 UTC 小时和天预先累加的统计（sync_rollup）。汇总统计在写入每次同步时同步更新，
+ * 因此明细被清理后仍可查看长期趋势。汇总统计只累加完整同步，定向同步和启动时继续未完成的写入只处理部分分组、因上游没有变化而跳过的同步几乎不耗时，都不具可比性。
+ * 各层按各自的保留天数清理，最多每小时执行一次，
+ * 清理后通过 incremental_vacuum 归还空闲页。所有方法都是线程安全的。
+ */
+@Slf4j
+public class SyncHistoryStore {
+
+    private static final String DB_FILE = AppConfig.DATA_PATH + "/sync-history.db";
+
+    public static final String BUCKET_HOUR = "hour";
+    public static final String BUCKET_DAY = "day";
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long COMPACTION_INTERVAL_MS = HOUR_MS;
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS sync_run (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                started_at INTEGER NOT NULL,
+                duration_ms INTEGER NOT NULL,
+                success INTEGER NOT NULL,
+                error TEXT,
+                groups_fetched INTEGER NOT NULL,
+                channels_created INTEGER NOT NULL,
+                channels_updated INTEGER NOT NULL,
+                channels_failed INTEGER NOT NULL,
+                fetch_ms INTEGER NOT NULL,
+                map_ms INTEGER NOT NULL,
+                targets_ms INTEGER NOT NULL,
+                targets TEXT,
+                mode TEXT NOT NULL DEFAULT 'full'
+            )""",
+            "CREATE INDEX IF NOT EXISTS idx_sync_run_started_at ON sync_run (started_at)",
+            """
+            CREATE TABLE IF NOT EXISTS sync_group (
+                run_id INTEGER NOT NULL,
+                started_at INTEGER NOT NULL,
+                target TEXT NOT NULL,
+                group_name TEXT NOT NULL,
+                action TEXT NOT NULL,
+                outcome TEXT NOT NULL,
+                latency_ms INTEGER NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS idx_sync_group_run ON sync_group (run_id)",
+            "CREATE INDEX IF NOT EXISTS idx_sync_group_name_time ON sync_group (group_name, started_at)",
+            "CREATE INDEX IF NOT EXISTS idx_sync_group_started_at ON sync_group (started_at)",
+            """
+            CREATE TABLE IF NOT EXISTS sync_rollup (
+                bucket TEXT NOT NULL,
+                bucket_start INTEGER NOT NULL,
+                runs INTEGER NOT NULL,
+                successes INTEGER NOT NULL,
+                total_duration_ms INTEGER NOT NULL,
+                min_duration_ms INTEGER NOT NULL,
+                max_duration_ms INTEGER NOT NULL,
+                channels_created INTEGER NOT NULL,
+                channels_updated INTEGER NOT NULL,
+                channels_failed INTEGER NOT NULL,
+                group_failures INTEGER NOT NULL,
+                PRIMARY KEY (bucket, bucket_start)
+            ) WITHOUT ROWID"""
+    };
+
+    private static final String UPSERT_ROLLUP = """
+            INSERT INTO sync_rollup (bucket, bucket_start, runs, successes, total_duration_ms, min_duration_ms,
+                                     max_duration_ms, channels_created, channels_updated, channels_failed, group_failures)
+            VALUES (?, ?, 1, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (bucket, bucket_start) DO UPDATE SET
+                runs = runs + 1,
+                successes = successes + excluded.successes,
+                total_duration_ms = total_duration_ms + excluded.total_duration_ms,
+                min_duration_ms = MIN(min_duration_ms, excluded.min_duration_ms),
+                max_duration_ms = MAX(max_duration_ms, excluded.max_duration_ms),
+                channels_created = channels_created + excluded.channels_created,
+                channels_updated = channels_updated + excluded.channels_updated,
+                channels_failed = channels_failed + excluded.channels_failed,
+                group_failures = group_failures + excluded.group_failures""";
+
+    private final Path file;
+    private Connection connection;
+    private long lastCompaction;
+
+    public SyncHistoryStore() {
+        this(Path.of(DB_FILE));
+    }
+
+    SyncHistoryStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 记录一次同步并更新汇总统计，必要时清理过期数据。
+     * 写入失败只记录日志，不影响同步本身。
+     *
+     * @param run      同步记录
+     * @param settings 历史配置
+     * @return 记录ID，未记录时返回 -1
+     */
+    public synchronized long record(SyncRunRecord run, ConfigSnapshot.HistorySettings settings) {
+        if (!settings.isEnabled()) {
+            return -1;
+        }
+        try {
+            Connection conn = connection();
+            long runId;
+            conn.setAutoCommit(false);
+            try {
+                runId = insertRun(conn, run);
+                insertGroups(conn, runId, run);
+                int groupFailures = (int) run.getGroups().stream()
+                        .filter(g -> !GroupSyncOutcome.OUTCOME_SUCCESS.equals(g.getOutcome()))
+                        .count();
+                if (SyncRunRecord.MODE_FULL.equals(run.getMode())) {
+                    upsertRollup(conn, BUCKET_HOUR, run.getStartedAt() - Math.floorMod(run.getStartedAt(), HOUR_MS), run, groupFailures);
+                    upsertRollup(conn, BUCKET_DAY, run.getStartedAt() - Math.floorMod(run.getStartedAt(), DAY_MS), run, groupFailures);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            log.debug("已记录同步历史 (ID: {}, 分组结果: {})", runId, run.getGroups().size());
+
+            long now = System.currentTimeMillis();
+            if (now - lastCompaction >= COMPACTION_INTERVAL_MS) {
+                compact(now, settings);
+            }
+            return runId;
+        } catch (SQLException e) {
+            log.error("记录同步历史失败", e);
+            return -1;
+        }
+    }
+
+    /**
+     * 按时间范围查询同步记录，最新的在前
+     */
+    public synchronized List<Map<String, Object>> findRuns(long from, long to, int limit) throws SQLException {
+        try (PreparedStatement ps = connection().prepareStatement("""
+                SELECT * FROM sync_run WHERE started_at >= ? AND started_at < ? ORDER BY started_at DESC LIMIT ?""")) {
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setInt(3, limit);
+            List<Map<String, Object>> runs = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    runs.add(readRun(rs));
+                }
+            }
+            return runs;
+        }
+    }
+
+    /**
+     * 查询单次同步记录及其中每个分组的结果
+     *
+     * @return 同步记录，不存在时返回 null
+     */
+    public synchronized Map<String, Object> findRun(long id) throws SQLException {
+        Connection conn = connection();
+        Map<String, Object> run;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM sync_run WHERE id = ?")) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                run = readRun(rs);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT target, group_name, action, outcome, latency_ms FROM sync_group WHERE run_id = ?""")) {
+            ps.setLong(1, id);
+            List<Map<String, Object>> groups = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> group = new LinkedHashMap<>();
+                    group.put("target", rs.getString("target"));
+                    group.put("group", rs.getString("group_name"));
+                    group.put("action", rs.getString("action"));
+                    group.put("outcome", rs.getString("outcome"));
+                    group.put("latency_ms", rs.getLong("latency_ms"));
+                    groups.add(group);
+                }
+            }
+            run.put("groups", groups);
+        }
+        return run;
+    }
+
+    /**
+     * 按时间范围查询某个分组在各次同步中的结果，最新的在前
+     */
+    public synchronized List<Map<String, Object>> findGroupOutcomes(String group, long from, long to, int limit) throws SQLException {
+        try (PreparedStatement ps = connection().prepareStatement("""
+                SELECT run_id, started_at, target, action, outcome, latency_ms FROM sync_group
+                WHERE group_name = ? AND started_at >= ? AND started_at < ? ORDER BY started_at DESC LIMIT ?""")) {
+            ps.setString(1, group);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            ps.setInt(4, limit);
+            List<Map<String, Object>> outcomes = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> outcome = new LinkedHashMap<>();
+                    outcome.put("run_id", rs.getLong("run_id"));
+                    outcome.put("started_at", rs.getLong("started_at"));
+                    outcome.put("target", rs.getString("target"));
+                    outcome.put("action", rs.getString("action"));
+                    outcome.put("outcome", rs.getString("outcome"));
+                    outcome.put("latency_ms", rs.getLong("latency_ms"));
+                    outcomes.add(outcome);
+                }
+            }
+            return outcomes;
+        }
+    }
+
+    /**
+     * 按时间范围查询按小时或按天的汇总统计，按时间升序
+     *
+     * @param bucket {@link #BUCKET_HOUR} 或 {@link #BUCKET_DAY}
+     */
+    public synchronized List<Map<String, Object>> findRollups(String bucket, long from, long to) throws SQLException {
+        try (PreparedStatement ps = connection().prepareStatement("""
+                SELECT * FROM sync_rollup WHERE bucket = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start""")) {
+            ps.setString(1, bucket);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            List<Map<String, Object>> rollups = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long runs = rs.getLong("runs");
+                    Map<String, Object> rollup = new LinkedHashMap<>();
+                    rollup.put("bucket_start", rs.getLong("bucket_start"));
+                    rollup.put("runs", runs);
+                    rollup.put("successes", rs.getLong("successes"));
+                    rollup.put("avg_duration_ms", runs > 0 ? rs.getLong("total_duration_ms") / runs : 0);
+                    rollup.put("min_duration_ms", rs.getLong("min_duration_ms"));
+                    rollup.put("max_duration_ms", rs.getLong("max_duration_ms"));
+                    rollup.put("channels_created", rs.getLong("channels_created"));
+                    rollup.put("channels_updated", rs.getLong("channels_updated"));
+                    rollup.put("channels_failed", rs.getLong("channels_failed"));
+                    rollup.put("group_failures", rs.getLong("group_failures"));
+                    rollups.add(rollup);
+                }
+            }
+            return rollups;
+        }
+    }
+
+    /**
+     * 按保留天数删除过期的明细、同步记录和汇总统计，并归还空闲页
+     */
+    synchronized void compact(long now, ConfigSnapshot.HistorySettings settings) throws SQLException {
+        lastCompaction = now;
+        Connection conn = connection();
+        int groups = deleteBefore(conn, "DELETE FROM sync_group WHERE started_at < ?", now - settings.getGroupRetentionDays() * DAY_MS);
+        int runs = deleteBefore(conn, "DELETE FROM sync_run WHERE started_at < ?", now - settings.getRunRetentionDays() * DAY_MS);
+        int rollups = deleteBefore(conn, "DELETE FROM sync_rollup WHERE bucket_start < ?", now - settings.getRollupRetentionDays() * DAY_MS);
+        if (groups + runs + rollups > 0) {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("PRAGMA incremental_vacuum");
+            }
+            log.info("已清理过期同步历史。分组结果: {}, 同步记录: {}, 汇总统计: {}", groups, runs, rollups);
+        }
+    }
+
+    /**
+     * 关闭数据库连接
+     */
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("关闭同步历史数据库失败: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+            } catch (IOException e) {
+                throw new SQLException("无法创建同步历史目录: " + file.getParent(), e);
+            }
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+            try (Statement statement = conn.createStatement()) {
+                // auto_vacuum 必须在建表前设置，已有数据库上不会生效
+                statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+                addColumnIfMissing(statement, "sync_run", "mode", "TEXT NOT NULL DEFAULT 'full'");
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            connection = conn;
+            log.info("同步历史数据库已打开: {}", file);
+        }
+        return connection;
+    }
+
+    private long insertRun(Connection conn, SyncRunRecord run) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO sync_run (started_at, duration_ms, success, error, groups_fetched, channels_created,
+                                      channels_updated, channels_failed, fetch_ms, map_ms, targets_ms, targets, mode)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, run.getStartedAt());
+            ps.setLong(2, run.getDurationMs());
+            ps.setInt(3, run.isSuccess() ? 1 : 0);
+            ps.setString(4, run.getError());
+            ps.setInt(5, run.getGroupsFetched());
+            ps.setInt(6, run.getChannelsCreated());
+            ps.setInt(7, run.getChannelsUpdated());
+            ps.setInt(8, run.getChannelsFailed());
+            ps.setLong(9, run.getFetchMs());
+            ps.setLong(10, run.getMapMs());
+            ps.setLong(11, run.getTargetsMs());
+            ps.setString(12, run.getTargetsJson());
+            ps.setString(13, run.getMode());
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private void insertGroups(Connection conn, long runId, SyncRunRecord run) throws SQLException {
+        if (run.getGroups().isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO sync_group (run_id, started_at, target, group_name, action, outcome, latency_ms)
+                VALUES (?, ?, ?, ?, ?, ?, ?)""")) {
+            for (GroupSyncOutcome group : run.getGroups()) {
+                ps.setLong(1, runId);
+                ps.setLong(2, run.getStartedAt());
+                ps.setString(3, group.getTarget());
+                ps.setString(4, group.getGroup());
+                ps.setString(5, group.getAction());
+                ps.setString(6, group.getOutcome());
+                ps.setLong(7, group.getLatencyMs());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void upsertRollup(Connection conn, String bucket, long bucketStart, SyncRunRecord run, int groupFailures) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_ROLLUP)) {
+            ps.setString(1, bucket);
+            ps.setLong(2, bucketStart);
+            ps.setInt(3, run.isSuccess() ? 1 : 0);
+            ps.setLong(4, run.getDurationMs());
+            ps.setLong(5, run.getDurationMs());
+            ps.setLong(6, run.getDurationMs());
+            ps.setInt(7, run.getChannelsCreated());
+            ps.setInt(8, run.getChannelsUpdated());
+            ps.setInt(9, run.getChannelsFailed());
+            ps.setInt(10, groupFailures);
+            ps.executeUpdate();
+        }
+    }
+
+    private static int deleteBefore(Connection conn, String sql, long cutoff) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, cutoff);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 为旧版本创建的数据库补充新增的列
+     */
+    private static void addColumnIfMissing(Statement statement, String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    private static Map<String, Object> readRun(ResultSet rs) throws SQLException {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("id", rs.getLong("id"));
+        run.put("mode", rs.getString("mode"));
+        run.put("started_at", rs.getLong("started_at"));
+        run.put("duration_ms", rs.getLong("duration_ms"));
+        run.put("success", rs.getInt("success") == 1);
+        String error = rs.getString("error");
+        if (error != null) {
+            run.put("error", error);
+        }
+        run.put("groups_fetched", rs.getInt("groups_fetched"));
+        run.put("channels_created", rs.getInt("channels_created"));
+        run.put("channels_updated", rs.getInt("channels_updated"));
+        run.put("channels_failed", rs.getInt("channels_failed"));
+        Map<String, Object> phases = new LinkedHashMap<>();
+        phases.put("fetch_ms", rs.getLong("fetch_ms"));
+        phases.put("map_ms", rs.getLong("map_ms"));
+        phases.put("targets_ms", rs.getLong("targets_ms"));
+        run.put("phases", phases);
+        String targets = rs.getString("targets");
+        if (targets != null) {
+            run.put("targets", JsonParser.parseString(targets));
+        }
+        return run;
+    }
+}
@@ -0,0 +1,262 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.JsonParseException;
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 同步写入的 outbox，保存在 SQLite 数据库 data/sync-outbox.db 中。
+ * <p>
+ * 同步在写入 New-API 之前，先把每个目标计划写入的渠道记为 pending；渠道写入成功后记为 written，
+ * 模型列表也写回后（或渠道首次写入就带有最终模型时）删除。进程在同步中途退出时，剩下的记录就是未完成的工作，
+ * 服务启动后由 {@link PendingWriteResumeService} 继续执行，不必重新同步全部分组。
+ * 每个（目标，base_url）只有一条记录，后一次同步的计划覆盖前一次的。
+ * 写入 outbox 失败只记录日志，不影响同步本身。所有方法都是线程安全的。
+ */
+@Slf4j
+public class SyncOutbox {
+
+    private static final String DB_FILE = AppConfig.DATA_PATH + "/sync-outbox.db";
+
+    public static final String STATE_PENDING = "pending";
+    public static final String STATE_WRITTEN = "written";
+
+    private static final String SCHEMA = """
+            CREATE TABLE IF NOT EXISTS outbox_entry (
+                target TEXT NOT NULL,
+                base_url TEXT NOT NULL,
+                group_name TEXT NOT NULL,
+                run_started_at INTEGER NOT NULL,
+                state TEXT NOT NULL,
+                models_resolved INTEGER NOT NULL,
+                channel TEXT NOT NULL,
+                updated_at INTEGER NOT NULL,
+                PRIMARY KEY (target, base_url)
+            ) WITHOUT ROWID""";
+
+    private static final String UPSERT_ENTRY = """
+            INSERT INTO outbox_entry (target, base_url, group_name, run_started_at, state, models_resolved, channel, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (target, base_url) DO UPDATE SET
+                group_name = excluded.group_name,
+                run_started_at = excluded.run_started_at,
+                state = excluded.state,
+                models_resolved = excluded.models_resolved,
+                channel = excluded.channel,
+                updated_at = excluded.updated_at""";
+
+    private final Path file;
+    private Connection connection;
+
+    public SyncOutbox() {
+        this(Path.of(DB_FILE));
+    }
+
+    SyncOutbox(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 计划写入的渠道
+     *
+     * @param groupName      分组名称
+     * @param channel        映射好的渠道
+     * @param modelsResolved 渠道是否已带有最终的模型列表和映射
+     */
+    public record PlannedWrite(String groupName, NewApiChannel channel, boolean modelsResolved) {
+    }
+
+    /**
+     * 未完成的写入
+     */
+    public record Entry(String target, String baseUrl, String groupName, long runStartedAt, String state,
+                        boolean modelsResolved, NewApiChannel channel) {
+
+        /**
+         * 渠道是否还没有写入
+         */
+        public boolean isPending() {
+            return STATE_PENDING.equals(state);
+        }
+    }
+
+    /**
+     * 在一个事务中把计划写入的渠道记为每个目标的 pending 记录，覆盖同一目标、同一 base_url 的旧记录
+     *
+     * @param targets      目标名称
+     * @param writes       计划写入的渠道
+     * @param runStartedAt 所属同步的开始时间
+     */
+    public synchronized void plan(List<String> targets, List<PlannedWrite> writes, long runStartedAt) {
+        if (targets.isEmpty() || writes.isEmpty()) {
+            return;
+        }
+        try {
+            Connection conn = connection();
+            long now = System.currentTimeMillis();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_ENTRY)) {
+                for (PlannedWrite write : writes) {
+                    if (write.channel().getBaseUrl() == null) {
+                        continue;
+                    }
+                    String channelJson = Json.GSON.toJson(write.channel());
+                    for (String target : targets) {
+                        ps.setString(1, target);
+                        ps.setString(2, write.channel().getBaseUrl());
+                        ps.setString(3, write.groupName());
+                        ps.setLong(4, runStartedAt);
+                        ps.setString(5, STATE_PENDING);
+                        ps.setInt(6, write.modelsResolved() ? 1 : 0);
+                        ps.setString(7, channelJson);
+                        ps.setLong(8, now);
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            log.debug("已将 {} 个渠道写入 outbox ({} 个目标)", writes.size(), targets.size());
+        } catch (SQLException e) {
+            log.error("写入同步 outbox 失败", e);
+        }
+    }
+
+    /**
+     * 渠道已写入，还需要获取模型并写回
+     */
+    public synchronized void markWritten(String target, String baseUrl) {
+        execute("UPDATE outbox_entry SET state = '" + STATE_WRITTEN + "', updated_at = ? WHERE target = ? AND base_url = ?",
+                System.currentTimeMillis(), target, baseUrl);
+    }
+
+    /**
+     * 渠道的写入已全部完成，删除记录
+     */
+    public synchronized void markDone(String target, String baseUrl) {
+        execute("DELETE FROM outbox_entry WHERE target = ? AND base_url = ?", target, baseUrl);
+    }
+
+    /**
+     * 删除指定同步计划的全部记录
+     *
+     * @return 删除的记录数
+     */
+    public synchronized int discardRun(long runStartedAt) {
+        return execute("DELETE FROM outbox_entry WHERE run_started_at = ?", runStartedAt);
+    }
+
+    /**
+     * 删除目标在指定同步之前计划、之后没有再计划的记录。完整同步成功后调用，这些记录对应的分组已不存在
+     *
+     * @return 删除的记录数
+     */
+    public synchronized int purgeBefore(String target, long runStartedAt) {
+        return execute("DELETE FROM outbox_entry WHERE target = ? AND run_started_at < ?", target, runStartedAt);
+    }
+
+    /**
+     * 查询所有未完成的写入，按目标和计划顺序排列。无法解析的记录会被删除
+     */
+    public synchronized List<Entry> pending() {
+        List<Entry> entries = new ArrayList<>();
+        List<String[]> unreadable = new ArrayList<>();
+        try (PreparedStatement ps = connection().prepareStatement("""
+                SELECT * FROM outbox_entry ORDER BY target, run_started_at, updated_at, group_name""");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String target = rs.getString("target");
+                String baseUrl = rs.getString("base_url");
+                NewApiChannel channel;
+                try {
+                    channel = Json.GSON.fromJson(rs.getString("channel"), NewApiChannel.class);
+                } catch (JsonParseException e) {
+                    channel = null;
+                }
+                if (channel == null) {
+                    unreadable.add(new String[]{target, baseUrl});
+                    continue;
+                }
+                entries.add(new Entry(target, baseUrl, rs.getString("group_name"), rs.getLong("run_started_at"),
+                        rs.getString("state"), rs.getInt("models_resolved") != 0, channel));
+            }
+        } catch (SQLException e) {
+            log.error("读取同步 outbox 失败", e);
+        }
+        for (String[] key : unreadable) {
+            log.warn("outbox 中的渠道无法解析，已丢弃: {} ({})", key[1], key[0]);
+            markDone(key[0], key[1]);
+        }
+        return entries;
+    }
+
+    /**
+     * 关闭数据库连接
+     */
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("关闭同步 outbox 数据库失败: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private int execute(String sql, Object... params) {
+        try (PreparedStatement ps = connection().prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            log.error("更新同步 outbox 失败", e);
+            return 0;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+            } catch (IOException e) {
+                throw new SQLException("无法创建同步 outbox 目录: " + file.getParent(), e);
+            }
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+            try (Statement statement = conn.createStatement()) {
+                // synchronous = NORMAL 在 WAL 模式下进程崩溃不会丢失已提交的事务，只有断电可能丢失最后几个
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+                statement.execute(SCHEMA);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            connection = conn;
+            log.info("同步 outbox 数据库已打开: {}", file);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,861 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.config.GptLoadSource;
+import github.gpt.api.sync.config.ModelDiscovery;
+import github.gpt.api.sync.jfr.GroupSyncEvent;
+import github.gpt.api.sync.jfr.SyncRunEvent;
+import github.gpt.api.sync.model.ModelSet;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
+import github.gpt.api.sync.service.ChannelModelService.DiscoveredModels;
+import github.gpt.api.sync.service.ChannelModelService.PendingModelUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步流水线：gpt-load 分组只获取和映射一次，然后并发写入每个 New-API 目标。
+ * 整个同步过程使用开始时的配置快照，期间重新加载配置不会影响本次同步。
+ * <p>
+ * gpt-load 分组和各目标的现有渠道同时获取；分组映射好一个就通过有界队列交给每个目标写入，
+ * 写入成功的渠道再通过有界队列交给获取模型的阶段。各阶段并行，队列满时上游阶段等待下游。
+ * <p>
+ * 每次同步有 sync.runTimeoutSeconds 的时限，每次上游调用的超时不超过剩余时间。到达时限或被取消时，
+ * 正在进行的调用被中断，返回 "partial": true 的部分结果，unprocessed_groups 中是尚未写入的分组。
+ * 调用方负责与其他运行互斥（见 {@link SyncRunRegistry#exclusive}）。
+ */
+@Slf4j
+public class SyncPipelineService {
+
+    /**
+     * 流水线各阶段之间队列的容量，队列满时上游阶段阻塞等待
+     */
+    private static final int PIPELINE_QUEUE_CAPACITY = 64;
+
+    /**
+     * 队列满时每次等待的时长，等待期间同步停止则不再放入
+     */
+    private static final long QUEUE_OFFER_WAIT_MILLIS = 100;
+
+    /**
+     * 映射阶段结束的标记
+     */
+    private static final MappedGroup END_OF_GROUPS = new MappedGroup(null, null, null, false);
+
+    /**
+     * 写入阶段结束的标记
+     */
+    private static final PendingModelUpdate END_OF_UPDATES = new PendingModelUpdate(null, null);
+
+    private final GptLoadService gptLoadService;
+    private final ChannelMapperService channelMapperService;
+    private final ChannelPruneService channelPruneService;
+    private final ChannelModelService channelModelService;
+    private final SyncHistoryStore syncHistoryStore;
+    private final SyncOutbox syncOutbox;
+    private final SyncRunRegistry runs;
+
+    /**
+     * 最近一次干净完成的完整同步看到的上游状态，用于跳过上游没有变化的同步；为 null 时不跳过
+     */
+    private volatile UpstreamState lastSyncedState;
+
+    public SyncPipelineService(GptLoadService gptLoadService, ChannelMapperService channelMapperService,
+                               ChannelPruneService channelPruneService, ChannelModelService channelModelService,
+                               SyncHistoryStore syncHistoryStore, SyncOutbox syncOutbox, SyncRunRegistry runs) {
+        this.gptLoadService = gptLoadService;
+        this.channelMapperService = channelMapperService;
+        this.channelPruneService = channelPruneService;
+        this.channelModelService = channelModelService;
+        this.syncHistoryStore = syncHistoryStore;
+        this.syncOutbox = syncOutbox;
+        this.runs = runs;
+    }
+
+    /**
+     * 执行一次同步。selection 为 null 时执行完整同步；否则只映射和写入选中的分组，按 base_url 找到对应渠道创建或更新，
+     * 定向同步看不到全部分组，因此不做孤儿渠道清理。
+     *
+     * @param selection 要同步的分组，完整同步时为 null
+     * @param scope     本副本在多副本部署中负责的范围
+     * @return 同步结果
+     */
+    public Map<String, Object> run(GroupSelection selection, ReplicaScope scope) {
+        // 分片同步开始时固定存活成员，同步期间成员变化从下一次同步起生效
+        ConsistentHashRing shardRing = scope.ring();
+        List<String> shardMembers = shardRing != null ? shardRing.members() : List.of();
+        long startTime = System.currentTimeMillis();
+        ConfigSnapshot config = AppConfig.current();
+        boolean targeted = selection != null;
+        if (targeted) {
+            log.info("开始定向同步 {} 个分组: ids={}, names={}", selection.size(), selection.getIds(), selection.getNames());
+        } else {
+            log.info("开始智能同步渠道配置...");
+        }
+
+        SyncRunEvent runEvent = new SyncRunEvent();
+        runEvent.begin();
+        SyncReport report = new SyncReport(targeted ? SyncRunRecord.MODE_TARGETED : SyncRunRecord.MODE_FULL, startTime);
+        SyncRunRecord record = report.record();
+
+        SyncRunRegistry.ActiveRun run = runs.start(record.getMode(), startTime, config.getRunTimeoutSeconds());
+        SyncDeadline deadline = run.deadline();
+        ExecutorService pipeline = run.pipeline();
+        List<String> groupNames = null;
+        try {
+            // 1. 同时获取 gpt-load 分组和每个目标的现有渠道，两份列表互不等待
+            List<NewApiService> targets = NewApiService.forTargets(config.getNewApiTargets(), deadline);
+            log.info("步骤 1/4: 从 gpt-load 获取分组，同时从 {} 个 New-API 目标获取现有渠道...", targets.size());
+            // 上游可能没有变化时先只获取各目标的渠道指纹，确认有变化后再获取完整的渠道列表
+            UpstreamState previousState = targeted ? null : reusableState(config, shardMembers, startTime);
+            List<Future<String>> fingerprints = new ArrayList<>();
+            List<Future<List<NewApiChannelSummary>>> existingListings = new ArrayList<>();
+            for (NewApiService target : targets) {
+                if (previousState != null) {
+                    fingerprints.add(pipeline.submit(target::fetchChannelFingerprint));
+                } else {
+                    existingListings.add(pipeline.submit(target::getAllChannelSummaries));
+                }
+            }
+            // 在流水线中获取，停止同步时可以被中断
+            GptLoadService.MergedGroups mergedGroups = await(pipeline.submit(
+                    () -> gptLoadService.fetchAllSources(config.getGptLoadSources(), deadline)));
+            List<GptLoadGroup> sourceGroups = mergedGroups.getGroups();
+            if (sourceGroups == null || sourceGroups.isEmpty()) {
+                throw new IllegalStateException("从 gpt-load 获取的分组列表为空或获取失败");
+            }
+            if (!mergedGroups.getFailedSources().isEmpty()) {
+                log.warn("以下 gpt-load 源获取失败，本次同步将跳过: {}", mergedGroups.getFailedSources());
+            }
+            log.info("成功从 gpt-load 获取到 {} 个分组", sourceGroups.size());
+            if (previousState != null) {
+                if (isUnchanged(previousState, mergedGroups, fingerprints)) {
+                    return noChangesResult(report, runEvent, config, sourceGroups.size());
+                }
+                log.info("gpt-load 分组或 New-API 渠道有变化，执行完整同步");
+                for (NewApiService target : targets) {
+                    existingListings.add(pipeline.submit(target::getAllChannelSummaries));
+                }
+            }
+            if (targeted) {
+                // gpt-load 没有按分组查询的接口，从完整列表中筛选
+                List<String> notFound = selection.unmatched(sourceGroups);
+                sourceGroups = sourceGroups.stream().filter(selection::matches).toList();
+                report.put("groups_not_found", notFound);
+                if (!notFound.isEmpty()) {
+                    log.warn("以下分组在 gpt-load 中不存在: {}", notFound);
+                }
+                if (sourceGroups.isEmpty()) {
+                    return noMatchingGroupsResult(report, runEvent, config);
+                }
+                log.info("定向同步匹配到 {} 个分组", sourceGroups.size());
+            }
+            long fetchDone = System.currentTimeMillis();
+            record.setFetchMs(fetchDone - startTime);
+            record.setGroupsFetched(sourceGroups.size());
+            groupNames = sourceGroups.stream().map(group -> groupName(config, group)).toList();
+
+            // 准备孤儿渠道清理。有源获取失败时无法判断渠道是否仍有分组，跳过清理；多副本时只由 leader 清理
+            PrunePlan prunePlan = null;
+            if (config.getPrune().isEnabled() && !targeted && scope.leader()) {
+                if (mergedGroups.getFailedSources().isEmpty()) {
+                    Set<String> backedBaseUrls = new HashSet<>();
+                    for (GptLoadGroup sourceGroup : sourceGroups) {
+                        backedBaseUrls.add(sourceGroup.getEndpoint());
+                    }
+                    Set<String> managedPrefixes = channelPruneService.managedPrefixes(
+                            config.getGptLoadSources().stream().map(GptLoadSource::getBaseUrl).toList(), backedBaseUrls);
+                    prunePlan = new PrunePlan(backedBaseUrls, managedPrefixes);
+                } else {
+                    log.warn("存在获取失败的 gpt-load 源，本次跳过孤儿渠道清理");
+                }
+            }
+
+            // 分片时只写入本副本负责的分组；清理仍以全部分组为准
+            if (shardRing != null) {
+                String memberId = scope.memberId();
+                sourceGroups = sourceGroups.stream().filter(group -> shardRing.owns(memberId, groupName(config, group))).toList();
+                groupNames = sourceGroups.stream().map(group -> groupName(config, group)).toList();
+                log.info("按一致性哈希分片: {} 个存活副本，本副本负责其中 {}/{} 个分组", shardMembers.size(),
+                        sourceGroups.size(), record.getGroupsFetched());
+                report.put("shard", Map.of("member_id", memberId, "members", shardMembers, "groups_owned", sourceGroups.size()));
+            }
+
+            // 2. 每个目标在拿到现有渠道后开始消费自己的队列，各目标的失败互不影响
+            // 相同模型列表的重定向映射只计算一次，由所有分组和目标共享
+            Map<ModelSet, Map<String, String>> modelMappingCache = new ConcurrentHashMap<>();
+            List<BlockingQueue<MappedGroup>> targetQueues = new ArrayList<>();
+            List<Future<TargetSyncResult>> targetFutures = new ArrayList<>();
+            PrunePlan finalPrunePlan = prunePlan;
+            for (int i = 0; i < targets.size(); i++) {
+                NewApiService target = targets.get(i);
+                Future<List<NewApiChannelSummary>> existingListing = existingListings.get(i);
+                BlockingQueue<MappedGroup> queue = new ArrayBlockingQueue<>(PIPELINE_QUEUE_CAPACITY);
+                targetQueues.add(queue);
+                targetFutures.add(pipeline.submit(() -> syncTarget(target, config, existingListing, queue, modelMappingCache,
+                        finalPrunePlan, deadline)));
+            }
+
+            // 3. 将分组映射为渠道（所有目标共用一份映射结果），先记入 outbox，再逐个交给所有目标
+            log.info("步骤 2/4: 映射分组为渠道，并同步到 {} 个 New-API 目标...", targets.size());
+            GroupMapping mapping = mapChannels(config, sourceGroups);
+            // 进程在写入中途退出时，服务重启后从 outbox 继续剩下的写入
+            syncOutbox.plan(targets.stream().map(target -> target.getTarget().getName()).toList(), mapping.plannedWrites(), startTime);
+            List<String> mappingFailures = mapping.failedGroups();
+            publishGroups(config, mapping.groups(), pipeline, targetQueues, modelMappingCache, deadline);
+            for (BlockingQueue<MappedGroup> queue : targetQueues) {
+                offer(queue, END_OF_GROUPS, deadline);
+            }
+            long mapDone = System.currentTimeMillis();
+            record.setMapMs(mapDone - fetchDone);
+
+            log.info("步骤 3/4: 分组映射完成，等待 {} 个 New-API 目标写入完成...", targets.size());
+            List<TargetSyncResult> targetResults = new ArrayList<>();
+            for (Future<TargetSyncResult> future : targetFutures) {
+                targetResults.add(future.get());
+            }
+            channelModelService.flush();
+            record.setTargetsMs(System.currentTimeMillis() - fetchDone);
+            cleanUpOutbox(targetResults, targeted, deadline, startTime);
+
+            // 4. 汇总并返回结果
+            boolean allTargetsSucceeded = TargetSyncResult.allSucceeded(targetResults);
+            boolean anyTargetSucceeded = targetResults.stream().anyMatch(targetResult -> targetResult.success);
+            // 同步在所有目标完成前停止时，列出每个目标尚未写入的分组
+            String stopReason = deadline.stopReason();
+            boolean stopped = stopReason != null && !allTargetsSucceeded;
+            Set<String> unprocessedGroups = new LinkedHashSet<>();
+            if (stopped) {
+                for (TargetSyncResult targetResult : targetResults) {
+                    targetResult.unprocessedGroups = unprocessedGroups(groupNames, mappingFailures, targetResult);
+                    unprocessedGroups.addAll(targetResult.unprocessedGroups);
+                }
+            }
+            report.addTargets(targetResults);
+            report.addFailed(mappingFailures.size());
+
+            long duration = report.elapsedMillis();
+            if (stopped) {
+                log.warn("步骤 4/4: 同步已停止 ({})，{} 个分组未处理。创建: {}, 更新: {}, 失败: {}, 耗时: {}ms",
+                        stopReason, unprocessedGroups.size(), report.created(), report.updated(), report.failed(), duration);
+            } else if (anyTargetSucceeded) {
+                log.info("步骤 4/4: 同步完成! 创建: {}, 更新: {}, 失败: {}, 总耗时: {}ms",
+                        report.created(), report.updated(), report.failed(), duration);
+            } else {
+                log.error("步骤 4/4: 所有 New-API 目标同步失败, 耗时: {}ms", duration);
+            }
+
+            if (stopped) {
+                anyTargetSucceeded = false;
+                report.put("message", "同步已停止，部分分组未处理");
+                report.stopped(stopReason);
+                report.put("unprocessed_groups", List.copyOf(unprocessedGroups));
+            } else {
+                report.put("message", allTargetsSucceeded ? "同步成功完成" : anyTargetSucceeded ? "同步部分完成，部分目标失败" : "同步失败");
+                if (!anyTargetSucceeded) {
+                    report.error("同步失败: " + targetResults.get(0).error);
+                }
+            }
+            report.put("groups_fetched", record.getGroupsFetched());
+            report.put("failed_sources", mergedGroups.getFailedSources());
+            report.put("phases", Map.of("fetch_ms", record.getFetchMs(), "map_ms", record.getMapMs(),
+                    "targets_ms", record.getTargetsMs()));
+
+            runEvent.success = anyTargetSucceeded;
+            runEvent.error = stopped ? record.getError() : null;
+            runEvent.groupsFetched = record.getGroupsFetched();
+            runEvent.targets = targetResults.size();
+            runEvent.channelsCreated = report.created();
+            runEvent.channelsUpdated = report.updated();
+            runEvent.channelsFailed = report.failed();
+            runEvent.commit();
+
+            Map<String, Object> result = report.finish(anyTargetSucceeded, syncHistoryStore, config);
+
+            // 只有干净完成的完整同步才作为后续跳过的依据，定向同步或有失败时下一次仍完整同步
+            boolean clean = !targeted && !stopped && allTargetsSucceeded && report.failed() == 0
+                    && mergedGroups.getFailedSources().isEmpty()
+                    && targetResults.stream().noneMatch(TargetSyncResult::hasPendingPrune);
+            lastSyncedState = clean && config.getSkipUnchangedMaxAgeMinutes() > 0
+                    ? captureState(config, shardMembers, mergedGroups.getContentHash(), targets, startTime) : null;
+            return result;
+
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("同步过程中发生严重错误, 耗时: {}ms", report.elapsedMillis(), e);
+
+            String stopReason = deadline.stopReason();
+            if (stopReason != null) {
+                // 还没有开始写入就停止，所有分组都未处理
+                report.stopped(stopReason);
+                report.put("unprocessed_groups", groupNames != null ? groupNames : List.of());
+                syncOutbox.discardRun(startTime);
+            } else {
+                report.error("同步失败: " + e.getMessage());
+            }
+
+            runEvent.error = record.getError();
+            runEvent.commit();
+            return report.finish(false, syncHistoryStore, config);
+        } finally {
+            // 正常结束时所有阶段都已完成；提前返回或出错时中断仍在进行的获取和写入
+            run.close();
+        }
+    }
+
+    /**
+     * 等待流水线中的任务完成，任务抛出的异常原样抛出
+     */
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 整理 outbox：被取消或超过时限的同步不在重启后继续，删除本次计划的全部记录；
+     * 完整同步中成功的目标删除之前计划、本次没有再计划的记录，这些记录对应的分组已不存在。
+     * 其余记录（写入失败或还没有写回模型的渠道）保留，由下一次同步覆盖或服务重启后继续。
+     */
+    private void cleanUpOutbox(List<TargetSyncResult> targetResults, boolean targeted, SyncDeadline deadline, long runStartedAt) {
+        if (deadline.stopReason() != null && !TargetSyncResult.allSucceeded(targetResults)) {
+            syncOutbox.discardRun(runStartedAt);
+            return;
+        }
+        if (!targeted) {
+            for (TargetSyncResult targetResult : targetResults) {
+                if (targetResult.success) {
+                    syncOutbox.purgeBefore(targetResult.name, runStartedAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * 目标尚未写入的分组：除映射失败的分组外，没有写入结果的分组
+     */
+    private static List<String> unprocessedGroups(List<String> groupNames, List<String> mappingFailures, TargetSyncResult targetResult) {
+        Set<String> processed = new HashSet<>(mappingFailures);
+        for (GroupSyncOutcome outcome : targetResult.groupOutcomes) {
+            processed.add(outcome.getGroup());
+        }
+        return groupNames.stream().filter(name -> !processed.contains(name)).toList();
+    }
+
+    /**
+     * 分组在同步结果和历史中的名称，多源时带有 "源名称/" 前缀
+     */
+    private static String groupName(ConfigSnapshot config, GptLoadGroup group) {
+        return config.getGptLoadSources().size() > 1 && group.getSource() != null
+                ? group.getSource().getName() + "/" + group.getName() : group.getName();
+    }
+
+    /**
+     * 返回可用于跳过本次同步的上次状态：配置与上次相同，且距上次完整同步未超过最长跳过时间
+     */
+    private UpstreamState reusableState(ConfigSnapshot config, List<String> shardMembers, long now) {
+        UpstreamState state = lastSyncedState;
+        if (state == null || config.getSkipUnchangedMaxAgeMinutes() <= 0) {
+            return null;
+        }
+        if (now - state.syncedAt() >= config.getSkipUnchangedMaxAgeMinutes() * 60_000L) {
+            log.info("距上次完整同步已超过 {} 分钟，执行完整同步", config.getSkipUnchangedMaxAgeMinutes());
+            return null;
+        }
+        if (!state.config().equals(config)) {
+            log.info("配置已变化，执行完整同步");
+            return null;
+        }
+        if (!state.shardMembers().equals(shardMembers)) {
+            log.info("存活副本已变化，本副本负责的分组可能不同，执行完整同步");
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * 比较 gpt-load 分组的内容哈希和每个目标的渠道指纹是否与上次相同，获取指纹失败视为有变化
+     */
+    private boolean isUnchanged(UpstreamState previousState, GptLoadService.MergedGroups mergedGroups,
+                                List<Future<String>> fingerprints) throws InterruptedException {
+        boolean groupsUnchanged = previousState.groupsHash().equals(mergedGroups.getContentHash());
+        List<String> current = new ArrayList<>();
+        for (Future<String> fingerprint : fingerprints) {
+            try {
+                current.add(fingerprint.get());
+            } catch (ExecutionException e) {
+                log.warn("获取 New-API 渠道指纹失败: {}", e.getCause().getMessage());
+                return false;
+            }
+        }
+        return groupsUnchanged && previousState.channelFingerprints().equals(current);
+    }
+
+    /**
+     * 记录同步完成后的上游状态。写入会改变 New-API 的渠道，因此指纹在同步完成后重新获取；获取失败时不记录
+     */
+    private UpstreamState captureState(ConfigSnapshot config, List<String> shardMembers, String groupsHash, List<NewApiService> targets,
+                                       long syncedAt) {
+        List<String> fingerprints = new ArrayList<>();
+        for (NewApiService target : targets) {
+            try {
+                fingerprints.add(target.fetchChannelFingerprint());
+            } catch (IOException | URISyntaxException e) {
+                log.warn("[{}] 获取 New-API 渠道指纹失败，下一次仍完整同步: {}", target.getTarget().getName(), e.getMessage());
+                return null;
+            }
+        }
+        return new UpstreamState(config, shardMembers, groupsHash, List.copyOf(fingerprints), syncedAt);
+    }
+
+    /**
+     * 上游没有变化时的同步结果，不映射分组也不写入 New-API
+     */
+    private Map<String, Object> noChangesResult(SyncReport report, SyncRunEvent runEvent, ConfigSnapshot config, int groupsFetched) {
+        long duration = report.elapsedMillis();
+        log.info("gpt-load 分组和 New-API 渠道均未变化，跳过本次同步, 耗时: {}ms", duration);
+        report.mode(SyncRunRecord.MODE_UNCHANGED);
+        report.put("no_changes", true)
+                .put("message", "gpt-load 分组和 New-API 渠道均未变化，跳过本次同步")
+                .put("groups_fetched", groupsFetched)
+                .put("failed_sources", List.of())
+                .put("channels_created", 0)
+                .put("channels_updated", 0)
+                .put("channels_failed", 0);
+
+        runEvent.success = true;
+        runEvent.groupsFetched = groupsFetched;
+        runEvent.commit();
+
+        report.record().setGroupsFetched(groupsFetched);
+        report.record().setFetchMs(duration);
+        return report.finish(true, syncHistoryStore, config);
+    }
+
+    /**
+     * 定向同步没有匹配到任何分组时的结果，同样记录到同步历史并提交 JFR 事件
+     */
+    private Map<String, Object> noMatchingGroupsResult(SyncReport report, SyncRunEvent runEvent, ConfigSnapshot config) {
+        log.info("没有匹配的分组，跳过本次定向同步");
+        report.put("message", "没有匹配的分组，无需同步")
+                .put("groups_fetched", 0);
+
+        runEvent.success = true;
+        runEvent.groupsFetched = 0;
+        runEvent.commit();
+
+        report.record().setGroupsFetched(0);
+        report.record().setFetchMs(report.elapsedMillis());
+        return report.finish(true, syncHistoryStore, config);
+    }
+
+    /**
+     * 将映射好的渠道同步到单个 New-API 目标。
+     * 等待该目标的现有渠道获取完成后，逐个消费队列中的分组并写入；写入成功的渠道交给获取模型的阶段，
+     * 该阶段与写入并行，每次取出队列中已有的全部渠道批量生成映射。
+     * 目标级别的异常（如无法获取现有渠道）只会导致该目标失败，队列中剩余的分组会被丢弃，不会阻塞映射阶段。
+     * 同步停止后不再写入新的分组。
+     */
+    private TargetSyncResult syncTarget(NewApiService target, ConfigSnapshot config, Future<List<NewApiChannelSummary>> existingListing,
+                                        BlockingQueue<MappedGroup> groups, Map<ModelSet, Map<String, String>> modelMappingCache,
+                                        PrunePlan prunePlan, SyncDeadline deadline) {
+        String targetName = target.getTarget().getName();
+        TargetSyncResult targetResult = new TargetSyncResult(targetName);
+        long startTime = System.currentTimeMillis();
+        List<NewApiChannel> newlyCreatedChannels = new ArrayList<>();
+        BlockingQueue<PendingModelUpdate> pendingModelUpdates = new ArrayBlockingQueue<>(PIPELINE_QUEUE_CAPACITY);
+        boolean groupsDrained = false;
+        ExecutorService modelStage = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            // 等待现有渠道获取完成
+            List<NewApiChannelSummary> existingChannelsList = await(existingListing);
+            Map<String, NewApiChannelSummary> existingChannelsMap = ChannelModelService.channelsByBaseUrl(existingChannelsList);
+            log.info("[{}] 成功从 new-api 获取到 {} 个渠道", targetName, existingChannelsList.size());
+            Future<?> modelUpdates = modelStage.submit(() -> {
+                runModelStage(target, config, pendingModelUpdates, modelMappingCache, targetResult);
+                return null;
+            });
+
+            // 比较并同步
+            long channelsStart = System.currentTimeMillis();
+            while (true) {
+                MappedGroup mappedGroup = groups.take();
+                if (mappedGroup == END_OF_GROUPS) {
+                    groupsDrained = true;
+                    break;
+                }
+                deadline.check();
+                NewApiChannel channelToSync = mappedGroup.channel().copy();
+                NewApiChannelSummary existingChannel = existingChannelsMap.get(channelToSync.getBaseUrl());
+                GroupSyncEvent groupEvent = new GroupSyncEvent();
+                groupEvent.begin();
+                groupEvent.target = targetName;
+                groupEvent.group = mappedGroup.groupName();
+                groupEvent.action = existingChannel != null ? GroupSyncOutcome.ACTION_UPDATE : GroupSyncOutcome.ACTION_CREATE;
+                long groupStart = System.currentTimeMillis();
+
+                try {
+                    if (existingChannel != null) {
+                        // 更新现有渠道
+                        ChannelModelService.prepareUpdate(channelToSync, existingChannel, mappedGroup.modelsResolved());
+                        log.info("[{}] 找到匹配渠道，准备更新: {} (ID: {})", targetName, channelToSync.getName(), channelToSync.getId());
+                        if (target.updateChannel(channelToSync)) {
+                            targetResult.updated++;
+                            groupEvent.outcome = GroupSyncOutcome.OUTCOME_SUCCESS;
+                            channelModelService.recordWritten(targetName, channelToSync, mappedGroup.modelsResolved());
+                            // 更新成功后，交给获取模型的阶段再次更新；同步已停止时放弃，下一个分组开始前停止写入
+                            if (!mappedGroup.modelsResolved()) {
+                                offer(pendingModelUpdates, new PendingModelUpdate(channelToSync, existingChannel), deadline);
+                            }
+                        } else {
+                            targetResult.failed++;
+                            groupEvent.outcome = GroupSyncOutcome.OUTCOME_FAILED;
+                            log.error("[{}] 更新渠道失败: {}", targetName, channelToSync.getName());
+                        }
+                    } else {
+                        // 创建新渠道
+                        log.info("[{}] 未找到匹配渠道，准备创建: {}", targetName, channelToSync.getName());
+                        if (target.createChannel(channelToSync)) {
+                            targetResult.created++;
+                            groupEvent.outcome = GroupSyncOutcome.OUTCOME_SUCCESS;
+                            channelModelService.recordWritten(targetName, channelToSync, mappedGroup.modelsResolved());
+                            // 创建接口不返回ID，先记录下来，全部写入后统一补全
+                            if (!mappedGroup.modelsResolved()) {
+                                newlyCreatedChannels.add(channelToSync);
+                            }
+                        } else {
+                            targetResult.failed++;
+                            groupEvent.outcome = GroupSyncOutcome.OUTCOME_FAILED;
+                            log.error("[{}] 创建渠道失败: {}", targetName, channelToSync.getName());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    targetResult.failed++;
+                    groupEvent.outcome = GroupSyncOutcome.OUTCOME_ERROR;
+                    log.error("[{}] 处理渠道 {} 时发生异常", targetName, channelToSync.getName(), e);
+                }
+                groupEvent.commit();
+                targetResult.groupOutcomes.add(new GroupSyncOutcome(targetName, mappedGroup.groupName(), groupEvent.action,
+                        groupEvent.outcome, System.currentTimeMillis() - groupStart));
+            }
+
+            log.info("[{}] 渠道同步处理完成。创建: {}, 更新: {}, 失败: {}", targetName,
+                    targetResult.created, targetResult.updated, targetResult.failed);
+            long channelsDone = System.currentTimeMillis();
+            targetResult.channelsMs = channelsDone - channelsStart;
+
+            // 补全新创建渠道的ID
+            if (!newlyCreatedChannels.isEmpty()) {
+                log.info("[{}] 为 {} 个新创建的渠道更新模型列表...", targetName, newlyCreatedChannels.size());
+                try {
+                    List<NewApiChannelSummary> refreshedChannels = target.getAllChannelSummaries();
+                    Map<String, NewApiChannelSummary> refreshedChannelsMap = new HashMap<>();
+                    for (NewApiChannelSummary channel : refreshedChannels) {
+                        refreshedChannelsMap.put(channel.getBaseUrl(), channel);
+                    }
+
+                    for (NewApiChannel newChannel : newlyCreatedChannels) {
+                        NewApiChannelSummary createdChannel = refreshedChannelsMap.get(newChannel.getBaseUrl());
+                        if (createdChannel != null) {
+                            // 创建接口不返回ID，这里用刷新后的ID补全刚写入的渠道
+                            newChannel.setId(createdChannel.getId());
+                            if (!offer(pendingModelUpdates, new PendingModelUpdate(newChannel, null), deadline)) {
+                                // 同步已停止，放入结束标记时同样会失败并停止该目标
+                                break;
+                            }
+                        } else {
+                            log.error("[{}] 无法在刷新后找到新创建的渠道: {}", targetName, newChannel.getName());
+                        }
+                    }
+                } catch (IOException | URISyntaxException e) {
+                    log.error("[{}] 为新创建的渠道更新模型时发生错误", targetName, e);
+                }
+            }
+
+            // 等待获取模型的阶段处理完剩余的渠道
+            if (!offer(pendingModelUpdates, END_OF_UPDATES, deadline)) {
+                deadline.check();
+            }
+            modelUpdates.get();
+            long modelsDone = System.currentTimeMillis();
+            targetResult.modelsMs = modelsDone - channelsDone;
+
+            // 清理失去分组的孤儿渠道
+            if (prunePlan != null) {
+                log.info("[{}] 检查孤儿渠道...", targetName);
+                targetResult.prune = channelPruneService.prune(target, existingChannelsList,
+                        prunePlan.backedBaseUrls, prunePlan.managedPrefixes, config.getPrune());
+                targetResult.pruneMs = System.currentTimeMillis() - modelsDone;
+            }
+
+            targetResult.success = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[{}] 同步被中断", targetName);
+            String stopReason = deadline.stopReason();
+            targetResult.error = stopReason != null ? "同步已停止: " + stopReason : "同步被中断";
+        } catch (SyncDeadline.DeadlineExceededException e) {
+            log.warn("[{}] {}", targetName, e.getMessage());
+            targetResult.error = e.getMessage();
+        } catch (Exception e) {
+            log.error("[{}] 同步到 New-API 目标时发生严重错误", targetName, e);
+            targetResult.error = e.getMessage();
+        } finally {
+            // 正常结束时获取模型的阶段已完成；出错时它可能仍在等待队列，需要中断
+            modelStage.shutdownNow();
+            if (!groupsDrained) {
+                discardRemaining(groups, deadline);
+            }
+        }
+        targetResult.durationMs = System.currentTimeMillis() - startTime;
+        return targetResult;
+    }
+
+    /**
+     * 获取模型的阶段：取出队列中已有的全部渠道，批量获取模型、生成映射并写回，直到收到结束标记。
+     * 单批失败只记录日志，阶段继续运行，保证写入阶段不会因队列满而阻塞。
+     */
+    private void runModelStage(NewApiService target, ConfigSnapshot config, BlockingQueue<PendingModelUpdate> queue,
+                               Map<ModelSet, Map<String, String>> modelMappingCache, TargetSyncResult targetResult) throws InterruptedException {
+        boolean done = false;
+        while (!done) {
+            List<PendingModelUpdate> batch = new ArrayList<>();
+            batch.add(queue.take());
+            queue.drainTo(batch);
+            if (batch.get(batch.size() - 1) == END_OF_UPDATES) {
+                batch.remove(batch.size() - 1);
+                done = true;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                channelModelService.updateModels(target, config, batch, modelMappingCache, targetResult);
+            } catch (RuntimeException e) {
+                log.error("[{}] 为 {} 个渠道更新模型时发生错误", target.getTarget().getName(), batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 丢弃队列中剩余的分组直到结束标记，使映射阶段不会因该目标的队列已满而阻塞。
+     * 同步停止后映射阶段不再放入结束标记，此时队列为空即返回
+     */
+    private static void discardRemaining(BlockingQueue<MappedGroup> groups, SyncDeadline deadline) {
+        try {
+            while (true) {
+                // 目标已失败，剩余的分组不再写入
+                MappedGroup discarded = groups.poll(QUEUE_OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (discarded == END_OF_GROUPS || (discarded == null && deadline.stopReason() != null)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 将分组映射为渠道，所有目标共用一份映射结果
+     */
+    private GroupMapping mapChannels(ConfigSnapshot config, List<GptLoadGroup> sourceGroups) {
+        List<MappedGroup> mappedGroups = new ArrayList<>();
+        List<String> failedGroups = new ArrayList<>();
+        for (GptLoadGroup sourceGroup : sourceGroups) {
+            String groupName = groupName(config, sourceGroup);
+            NewApiChannel channelToSync = channelMapperService.mapToNewApiChannel(sourceGroup);
+            if (channelToSync == null) {
+                log.warn("映射失败，跳过分组: {}", sourceGroup.getName());
+                failedGroups.add(groupName);
+                continue;
+            }
+            mappedGroups.add(new MappedGroup(groupName, sourceGroup, channelToSync, false));
+        }
+        return new GroupMapping(mappedGroups, failedGroups);
+    }
+
+    /**
+     * 将映射好的分组逐个放入每个目标的队列，队列满时等待写入最慢的目标。
+     * <p>
+     * 通过 gpt-load 获取模型时，各分组并发获取模型列表并生成重定向映射，使首次写入就带上最终的 models 和 model_mapping；
+     * 获取任务只返回结果，由调用线程按完成顺序把结果写入渠道副本并交给目标写入，不等待其他分组，也不修改共享的映射结果。
+     * 获取失败的分组仍按原方式在写入后通过 New-API 获取。同步停止后剩余的分组不再交给目标，已提交的模型获取被中断。
+     */
+    private void publishGroups(ConfigSnapshot config, List<MappedGroup> mappedGroups, ExecutorService executor,
+                               List<BlockingQueue<MappedGroup>> targetQueues, Map<ModelSet, Map<String, String>> modelMappingCache,
+                               SyncDeadline deadline) throws InterruptedException, ExecutionException {
+        long startTime = System.currentTimeMillis();
+        boolean discover = config.getModelDiscovery() == ModelDiscovery.GPT_LOAD;
+        if (discover) {
+            log.info("通过 gpt-load 代理并发获取 {} 个分组的模型列表 (并发: {})...", mappedGroups.size(), config.getModelDiscoveryConcurrency());
+        }
+        Semaphore permits = new Semaphore(config.getModelDiscoveryConcurrency());
+        CompletionService<Discovery> discoveries = new ExecutorCompletionService<>(executor);
+        int submitted = 0;
+        for (MappedGroup mappedGroup : mappedGroups) {
+            if (deadline.stopReason() != null) {
+                log.warn("同步已停止 ({})，剩余分组不再写入", deadline.stopReason());
+                break;
+            }
+            if (!discover) {
+                publish(targetQueues, mappedGroup, deadline);
+                continue;
+            }
+            try {
+                discoveries.submit(() -> new Discovery(mappedGroup, channelModelService.discover(config, mappedGroup.group(),
+                        mappedGroup.channel(), mappedGroup.groupName(), permits, modelMappingCache, deadline)));
+                submitted++;
+            } catch (RejectedExecutionException e) {
+                // 同步已停止，流水线不再接受新任务
+                break;
+            }
+        }
+
+        if (discover) {
+            int resolvedCount = 0;
+            for (int i = 0; i < submitted; i++) {
+                Discovery discovery;
+                try {
+                    discovery = discoveries.take().get();
+                } catch (ExecutionException | CancellationException e) {
+                    // 同步停止时被中断的获取不算错误
+                    if (deadline.stopReason() == null) {
+                        throw e;
+                    }
+                    continue;
+                }
+                MappedGroup resolved = discovery.models() != null ? discovery.group().withModels(discovery.models()) : discovery.group();
+                if (resolved.modelsResolved()) {
+                    resolvedCount++;
+                }
+                publish(targetQueues, resolved, deadline);
+            }
+            log.info("通过 gpt-load 获取到 {}/{} 个分组的模型列表, 耗时: {}ms", resolvedCount, submitted,
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 将映射好的分组放入每个目标的队列，同步停止后不再放入
+     */
+    private static void publish(List<BlockingQueue<MappedGroup>> targetQueues, MappedGroup mappedGroup, SyncDeadline deadline)
+            throws InterruptedException {
+        for (BlockingQueue<MappedGroup> queue : targetQueues) {
+            if (!offer(queue, mappedGroup, deadline)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 放入队列，队列满时等待。同步停止后目标可能已不再消费队列，此时放弃放入，避免永久阻塞
+     *
+     * @return 是否已放入
+     */
+    private static <T> boolean offer(BlockingQueue<T> queue, T item, SyncDeadline deadline) throws InterruptedException {
+        while (!queue.offer(item, QUEUE_OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (deadline.stopReason() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 本副本在多副本部署中负责的范围
+     *
+     * @param memberId 本副本的成员ID，未启用协调时为 null
+     * @param ring     分片时本次同步固定的存活成员，不分片时为 null
+     * @param leader   是否负责清理孤儿渠道（未启用协调时总是负责）
+     */
+    public record ReplicaScope(String memberId, ConsistentHashRing ring, boolean leader) {
+
+        /**
+         * 单副本部署：同步全部分组并负责清理
+         */
+        public static ReplicaScope standalone() {
+            return new ReplicaScope(null, null, true);
+        }
+    }
+
+    /**
+     * 由 gpt-load 分组映射得到的渠道，所有目标共用。多源时分组名称带有 "源名称/" 前缀。
+     * modelsResolved 表示渠道已带有最终的模型列表和映射，写入后无需再获取模型
+     */
+    private record MappedGroup(String groupName, GptLoadGroup group, NewApiChannel channel, boolean modelsResolved) {
+
+        /**
+         * 返回带有该模型列表和映射的渠道副本，原分组不变
+         */
+        MappedGroup withModels(DiscoveredModels discovered) {
+            NewApiChannel resolved = channel.copy();
+            if (discovered.modelMapping() != null) {
+                resolved.setModelMapping(discovered.modelMapping());
+            }
+            resolved.setModels(discovered.models());
+            return new MappedGroup(groupName, group, resolved, true);
+        }
+    }
+
+    /**
+     * 一个分组的模型获取结果，models 为 null 表示获取失败
+     */
+    private record Discovery(MappedGroup group, DiscoveredModels models) {
+    }
+
+    /**
+     * 映射结果：映射成功的分组和映射失败的分组名称
+     */
+    private record GroupMapping(List<MappedGroup> groups, List<String> failedGroups) {
+
+        /**
+         * 计划写入每个目标的渠道，记入 outbox
+         */
+        private List<SyncOutbox.PlannedWrite> plannedWrites() {
+            return groups.stream()
+                    .map(group -> new SyncOutbox.PlannedWrite(group.groupName(), group.channel(), group.modelsResolved()))
+                    .toList();
+        }
+    }
+
+    /**
+     * 一次完整同步看到的上游状态：配置快照、分片时的存活副本、gpt-load 分组的内容哈希和同步完成后各目标的渠道指纹
+     */
+    private record UpstreamState(ConfigSnapshot config, List<String> shardMembers, String groupsHash, List<String> channelFingerprints,
+                                 long syncedAt) {
+    }
+
+    /**
+     * 一次同步中所有目标共用的孤儿渠道清理参数
+     */
+    private record PrunePlan(Set<String> backedBaseUrls, Set<String> managedPrefixes) {
+    }
+}
@@ -0,0 +1,130 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步、继续未完成的写入和更新模型映射共用的结果构建：同时生成返回给调用方的结果和同步历史记录，
+ * 汇总各目标的统计，结束时写入同步历史
+ */
+final class SyncReport {
+    private final long startedAt;
+    private final Map<String, Object> result = new HashMap<>();
+    private final SyncRunRecord record = new SyncRunRecord();
+    private final List<Map<String, Object>> targetSummaries = new ArrayList<>();
+    private boolean hasTargets;
+    private int created;
+    private int updated;
+    private int failed;
+    private int unchanged;
+
+    SyncReport(String mode, long startedAt) {
+        this.startedAt = startedAt;
+        record.setStartedAt(startedAt);
+        mode(mode);
+    }
+
+    void mode(String mode) {
+        record.setMode(mode);
+        result.put("mode", mode);
+    }
+
+    SyncReport put(String key, Object value) {
+        result.put(key, value);
+        return this;
+    }
+
+    SyncRunRecord record() {
+        return record;
+    }
+
+    long elapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * 汇总各目标的写入统计，并加入目标摘要和分组结果
+     */
+    void addTargets(List<TargetSyncResult> targetResults) {
+        hasTargets = true;
+        for (TargetSyncResult targetResult : targetResults) {
+            created += targetResult.created;
+            updated += targetResult.updated;
+            failed += targetResult.failed;
+            unchanged += targetResult.modelsUnchanged;
+            targetSummaries.add(targetResult.toMap());
+            record.getGroups().addAll(targetResult.groupOutcomes);
+        }
+    }
+
+    /**
+     * 计入不属于任何目标的失败，如映射失败的分组
+     */
+    void addFailed(int count) {
+        failed += count;
+    }
+
+    int created() {
+        return created;
+    }
+
+    int updated() {
+        return updated;
+    }
+
+    int failed() {
+        return failed;
+    }
+
+    int unchanged() {
+        return unchanged;
+    }
+
+    /**
+     * 标记为被取消或超过时限而停止的部分结果
+     */
+    void stopped(String stopReason) {
+        result.put("partial", true);
+        result.put("stop_reason", stopReason);
+        error("同步已停止: " + stopReason);
+    }
+
+    void error(String error) {
+        result.put("error", error);
+        record.setError(error);
+    }
+
+    /**
+     * 补全耗时和统计并写入同步历史
+     *
+     * @return 返回给调用方的结果，记录到历史时带有 history_id
+     */
+    Map<String, Object> finish(boolean success, SyncHistoryStore historyStore, ConfigSnapshot config) {
+        long duration = elapsedMillis();
+        result.put("success", success);
+        result.put("duration_ms", duration);
+        if (hasTargets) {
+            result.put("channels_created", created);
+            result.put("channels_updated", updated);
+            result.put("channels_failed", failed);
+            result.put("targets", targetSummaries);
+        }
+        record.setDurationMs(duration);
+        record.setSuccess(success);
+        record.setChannelsCreated(created);
+        record.setChannelsUpdated(updated);
+        record.setChannelsFailed(failed);
+        record.setTargetsJson(Json.GSON.toJson(targetSummaries));
+        long historyId = historyStore.record(record, config.getHistory());
+        if (historyId > 0) {
+            result.put("history_id", historyId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,137 @@
+package github.gpt.api.sync.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 同步、继续未完成的写入和更新模型映射共用的运行控制：三者互斥执行，同一时间最多只有一个正在进行的运行。
+ * <p>
+ * 每次运行有自己的流水线线程池和 {@link SyncDeadline}，到达时限或被取消时记录原因并中断流水线中的所有任务，
+ * 阻塞在上游调用上的虚拟线程会立即返回。
+ */
+@Slf4j
+public class SyncRunRegistry {
+
+    /**
+     * 不使用 synchronized：同步由虚拟线程上的请求触发，持有监视器等待流水线中的虚拟线程会占住载体线程，
+     * 载体线程用尽时流水线无法运行而永久阻塞
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 在运行到达时限时停止运行
+     */
+    private final ScheduledExecutorService deadlineScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sync-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 正在进行的运行，没有时为 null。取消请求不经过锁，直接通过它停止运行
+     */
+    private volatile ActiveRun activeRun;
+
+    /**
+     * 持有运行锁执行，与其他同步、继续写入和更新模型映射互斥
+     */
+    public <T> T exclusive(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 开始一次运行并登记，使其可以被取消，并在 timeoutSeconds 秒后停止（0 表示不限制）。
+     * 运行结束后必须调用 {@link ActiveRun#close()}
+     */
+    ActiveRun start(String mode, long startedAt, int timeoutSeconds) {
+        ActiveRun run = new ActiveRun(SyncDeadline.after(timeoutSeconds * 1000L), Executors.newVirtualThreadPerTaskExecutor(),
+                mode, startedAt);
+        activeRun = run;
+        if (run.deadline.isBounded()) {
+            run.deadlineTimer = deadlineScheduler.schedule(() -> stop(run, "超过同步时限"), run.deadline.remainingMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        return run;
+    }
+
+    /**
+     * 正在进行的运行，没有时返回 null
+     */
+    public ActiveRun active() {
+        return activeRun;
+    }
+
+    /**
+     * 停止运行：记录原因并中断流水线中的所有任务
+     *
+     * @return 本次调用是否使运行停止，已停止时返回 false
+     */
+    public boolean stop(ActiveRun run, String reason) {
+        if (!run.deadline.cancel(reason)) {
+            return false;
+        }
+        log.warn("停止正在进行的同步: {}", reason);
+        run.pipeline.shutdownNow();
+        return true;
+    }
+
+    /**
+     * 一次正在进行的运行：时限和取消状态、流水线及开始时间
+     */
+    public final class ActiveRun implements AutoCloseable {
+        private final SyncDeadline deadline;
+        private final ExecutorService pipeline;
+        private final String mode;
+        private final long startedAt;
+        private ScheduledFuture<?> deadlineTimer;
+
+        private ActiveRun(SyncDeadline deadline, ExecutorService pipeline, String mode, long startedAt) {
+            this.deadline = deadline;
+            this.pipeline = pipeline;
+            this.mode = mode;
+            this.startedAt = startedAt;
+        }
+
+        public SyncDeadline deadline() {
+            return deadline;
+        }
+
+        ExecutorService pipeline() {
+            return pipeline;
+        }
+
+        public String mode() {
+            return mode;
+        }
+
+        public long startedAt() {
+            return startedAt;
+        }
+
+        /**
+         * 取消登记和时限计时器，并中断仍在进行的任务。正常结束时所有任务都已完成
+         */
+        @Override
+        public void close() {
+            if (activeRun == this) {
+                activeRun = null;
+            }
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+            pipeline.shutdownNow();
+        }
+    }
+}
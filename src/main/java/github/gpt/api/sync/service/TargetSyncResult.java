@@ -0,0 +1,101 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 单个 New-API 目标的同步统计，同步、继续未完成的写入和更新模型映射共用
+ */
+@Slf4j
+final class TargetSyncResult {
+    final String name;
+    boolean success;
+    String error;
+    int created;
+    int updated;
+    int failed;
+    /**
+     * 模型列表和映射未变化、跳过写入的渠道数
+     */
+    int modelsUnchanged;
+    long durationMs;
+    /**
+     * 各阶段耗时：写入渠道、获取模型并写回、清理孤儿渠道
+     */
+    long channelsMs;
+    long modelsMs;
+    long pruneMs;
+    Map<String, Object> prune;
+    final List<GroupSyncOutcome> groupOutcomes = new ArrayList<>();
+    /**
+     * 同步停止时尚未写入的分组，同步没有停止时为 null
+     */
+    List<String> unprocessedGroups;
+
+    TargetSyncResult(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 在流水线中执行的目标任务完成后返回其结果，任务被中断或取消时返回失败的结果
+     */
+    static TargetSyncResult await(Future<TargetSyncResult> future, String targetName, SyncDeadline deadline) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            log.error("[{}] 目标任务异常结束", targetName, e);
+        }
+        TargetSyncResult targetResult = new TargetSyncResult(targetName);
+        String stopReason = deadline.stopReason();
+        targetResult.error = stopReason != null ? "同步已停止: " + stopReason : "同步被中断";
+        return targetResult;
+    }
+
+    static boolean allSucceeded(List<TargetSyncResult> targetResults) {
+        return targetResults.stream().allMatch(targetResult -> targetResult.success);
+    }
+
+    /**
+     * 是否有等待后续同步删除的孤儿渠道：仍在宽限期内（非 dry-run），或本次删除失败
+     */
+    boolean hasPendingPrune() {
+        if (prune == null) {
+            return false;
+        }
+        boolean pendingGrace = !Boolean.TRUE.equals(prune.get("dry_run"))
+                && prune.get("pending_grace") instanceof Integer pending && pending > 0;
+        return pendingGrace || prune.get("failed") instanceof Integer failed && failed > 0;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", name);
+        map.put("success", success);
+        if (error != null) {
+            map.put("error", error);
+        }
+        map.put("channels_created", created);
+        map.put("channels_updated", updated);
+        map.put("channels_failed", failed);
+        map.put("models_unchanged", modelsUnchanged);
+        map.put("duration_ms", durationMs);
+        map.put("phases", Map.of("channels_ms", channelsMs, "models_ms", modelsMs, "prune_ms", pruneMs));
+        if (prune != null) {
+            map.put("prune", prune);
+        }
+        if (unprocessedGroups != null) {
+            map.put("unprocessed_groups", unprocessedGroups);
+        }
+        return map;
+    }
+}
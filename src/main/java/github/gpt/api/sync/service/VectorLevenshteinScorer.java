@@ -0,0 +1,117 @@
+package github.gpt.api.sync.service;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于 JDK Vector API 的 SIMD 实现，结果与 {@link ScalarLevenshteinScorer} 完全一致。
+ * <p>
+ * 先把每个目标展开为若干候选串（目标本身或与源等长的各个窗口），所有候选串都不长于源；
+ * 然后每次取一组候选串放到不同的向量通道中，按列转置后对同一个源同时推进动态规划，
+ * 每个通道在自己的长度处取得结果，最后按目标取各窗口的最小值。
+ * <p>
+ * 需要以 {@code --add-modules jdk.incubator.vector} 启动，由 {@link LevenshteinBatchScorer#best()} 自动选择。
+ */
+public class VectorLevenshteinScorer implements LevenshteinBatchScorer {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public int[] windowedDistances(String source, List<String> targets) {
+        String s = source.toLowerCase();
+        int m = s.length();
+        int[] distances = new int[targets.size()];
+
+        // 展开候选串，owner 记录每个候选串所属的目标
+        List<String> candidates = new ArrayList<>();
+        int[] owner = new int[16];
+        for (int t = 0; t < targets.size(); t++) {
+            String target = targets.get(t).toLowerCase();
+            distances[t] = Integer.MAX_VALUE;
+            if (target.length() < m) {
+                owner = add(candidates, owner, target, t);
+            } else {
+                for (int i = 0; i <= target.length() - m; i++) {
+                    owner = add(candidates, owner, target.substring(i, i + m), t);
+                }
+            }
+        }
+
+        int[] row = new int[(m + 1) * LANES];
+        int[] columns = new int[Math.max(m, 1) * LANES];
+        int[] lengths = new int[LANES];
+        for (int base = 0; base < candidates.size(); base += LANES) {
+            int count = Math.min(LANES, candidates.size() - base);
+            transpose(candidates, base, count, m, columns, lengths);
+            computeBlock(s, m, row, columns);
+            for (int lane = 0; lane < count; lane++) {
+                int t = owner[base + lane];
+                distances[t] = Math.min(distances[t], row[lengths[lane] * LANES + lane]);
+            }
+        }
+        return distances;
+    }
+
+    private static int[] add(List<String> candidates, int[] owner, String candidate, int target) {
+        if (candidates.size() == owner.length) {
+            owner = Arrays.copyOf(owner, owner.length * 2);
+        }
+        owner[candidates.size()] = target;
+        candidates.add(candidate);
+        return owner;
+    }
+
+    /**
+     * 把一组候选串按列写入 columns[j * LANES + lane]，不足的位置填 0（不会与源中的字符相等）
+     */
+    private static void transpose(List<String> candidates, int base, int count, int m, int[] columns, int[] lengths) {
+        Arrays.fill(columns, 0);
+        Arrays.fill(lengths, 0);
+        for (int lane = 0; lane < count; lane++) {
+            String candidate = candidates.get(base + lane);
+            lengths[lane] = candidate.length();
+            for (int j = 0; j < candidate.length() && j < m; j++) {
+                columns[j * LANES + lane] = candidate.charAt(j);
+            }
+        }
+    }
+
+    /**
+     * 以源为行、候选串为列推进动态规划，结束后 row[j * LANES + lane] 为源与该通道候选串前 j 个字符的距离
+     */
+    private static void computeBlock(String s, int m, int[] row, int[] columns) {
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        for (int j = 0; j <= m; j++) {
+            IntVector.broadcast(SPECIES, j).intoArray(row, j * LANES);
+        }
+        for (int i = 1; i <= m; i++) {
+            int sc = s.charAt(i - 1);
+            IntVector diag = IntVector.broadcast(SPECIES, i - 1);
+            IntVector left = IntVector.broadcast(SPECIES, i);
+            left.intoArray(row, 0);
+            for (int j = 1; j <= m; j++) {
+                IntVector up = IntVector.fromArray(SPECIES, row, j * LANES);
+                VectorMask<Integer> mismatch = IntVector.fromArray(SPECIES, columns, (j - 1) * LANES)
+                        .compare(VectorOperators.NE, sc);
+                IntVector value = diag.add(one, mismatch)
+                        .min(up.add(one))
+                        .min(left.add(one));
+                value.intoArray(row, j * LANES);
+                diag = up;
+                left = value;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VectorLevenshteinScorer[" + SPECIES + "]";
+    }
+}
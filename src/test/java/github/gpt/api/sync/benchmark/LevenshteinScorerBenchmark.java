@@ -0,0 +1,91 @@
+package github.gpt.api.sync.benchmark;
+
+import github.gpt.api.sync.service.LevenshteinBatchScorer;
+import github.gpt.api.sync.service.ModelRedirectService;
+import github.gpt.api.sync.service.ScalarLevenshteinScorer;
+import github.gpt.api.sync.service.VectorLevenshteinScorer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标量与 SIMD Levenshtein 实现的 JMH 对比，包括单独的距离计算和完整的模型映射。
+ * <p>
+ * 运行方式（需要先执行 {@code mvn test-compile}）：
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/test-classes:target/classes:&lt;test classpath&gt; \
+ *     github.gpt.api.sync.benchmark.LevenshteinScorerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LevenshteinScorerBenchmark {
+
+    private static final String[] PREFIXES = {
+            "claude-sonnet-", "claude-opus-", "gpt-4o-", "gpt-4.1-", "gemini-2.5-pro-", "deepseek-", "qwen3-"
+    };
+
+    /**
+     * 一个渠道上的实际模型数量
+     */
+    @Param({"20", "200", "2000"})
+    public int targetCount;
+
+    private List<String> targets;
+    private List<String> standardModels;
+    private LevenshteinBatchScorer scalar;
+    private LevenshteinBatchScorer vector;
+    private ModelRedirectService scalarRedirect;
+    private ModelRedirectService vectorRedirect;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        targets = new ArrayList<>();
+        for (int i = 0; i < targetCount; i++) {
+            targets.add(PREFIXES[random.nextInt(PREFIXES.length)] + (20240000 + random.nextInt(20000)));
+        }
+        standardModels = List.of("claude-4-sonnet", "claude-4-opus", "gpt-4o", "gpt-4.1", "gemini-2.5-pro", "deepseek-r1");
+        scalar = new ScalarLevenshteinScorer();
+        vector = new VectorLevenshteinScorer();
+        scalarRedirect = new ModelRedirectService(scalar);
+        vectorRedirect = new ModelRedirectService(vector);
+    }
+
+    @Benchmark
+    public int[] scalarDistances() {
+        return scalar.windowedDistances("claude-4-sonnet", targets);
+    }
+
+    @Benchmark
+    public int[] vectorDistances() {
+        return vector.windowedDistances("claude-4-sonnet", targets);
+    }
+
+    @Benchmark
+    public Map<String, String> scalarMapping() {
+        return scalarRedirect.generateModelMapping(standardModels, targets);
+    }
+
+    @Benchmark
+    public Map<String, String> vectorMapping() {
+        return vectorRedirect.generateModelMapping(standardModels, targets);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LevenshteinScorerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,215 @@
+package github.gpt.api.sync.benchmark;
+
+import io.javalin.Javalin;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对比平台线程池和虚拟线程两种服务器模式下 /status、/api/new-api、/config 的延迟和吞吐量。
+ * <p>
+ * 每种模式都在独立的子进程中启动真实的服务（工作目录为临时目录，不会改动本地 data/），
+ * gpt-load 和 New-API 由本进程内的慢速模拟服务代替，每次上游调用固定延迟。
+ * 运行方式（需要先执行 {@code mvn test-compile}）：
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; \
+ *     -Dclients=500 -Dseconds=15 -DupstreamDelayMs=100 github.gpt.api.sync.benchmark.ServerLoadBenchmark
+ * </pre>
+ */
+public class ServerLoadBenchmark {
+
+    private static final List<String> ENDPOINTS = List.of("/status", "/api/new-api", "/config");
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("clients", 500);
+        int seconds = Integer.getInteger("seconds", 15);
+        int upstreamDelayMs = Integer.getInteger("upstreamDelayMs", 100);
+        int maxConcurrentRequests = Integer.getInteger("maxConcurrentRequests", 1024);
+
+        Javalin upstream = startSlowUpstream(upstreamDelayMs);
+        String upstreamUrl = "http://localhost:" + upstream.port();
+        System.out.printf("模拟上游: %s (延迟 %dms), 并发客户端: %d, 每种模式 %ds%n", upstreamUrl, upstreamDelayMs, clients, seconds);
+        try {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                String mode = virtualThreads ? "virtual-threads" : "platform-pool";
+                ServerProcess server = startServer(upstreamUrl, virtualThreads, maxConcurrentRequests);
+                try {
+                    awaitStarted(server);
+                    Map<String, Result> results = runLoad("http://localhost:" + server.port(), clients, Duration.ofSeconds(seconds));
+                    print(mode, results, seconds);
+                } finally {
+                    server.process().destroy();
+                    server.process().waitFor();
+                }
+            }
+        } finally {
+            upstream.stop();
+        }
+    }
+
+    /**
+     * 模拟 gpt-load 和 New-API 的接口，每个请求都延迟固定时间
+     */
+    private static Javalin startSlowUpstream(int delayMs) {
+        String channels = buildChannelListing(20);
+        return Javalin.create(config -> config.useVirtualThreads = true)
+                .before(ctx -> Thread.sleep(delayMs))
+                .get("/api/groups", ctx -> ctx.contentType("application/json").result("{\"code\":0,\"message\":\"success\",\"data\":[]}"))
+                .get("/api/status", ctx -> ctx.contentType("application/json").result("{\"success\":true}"))
+                .get("/api/channel/", ctx -> ctx.contentType("application/json").result(channels))
+                .start(0);
+    }
+
+    private static String buildChannelListing(int count) {
+        StringBuilder sb = new StringBuilder("{\"success\":true,\"message\":\"\",\"data\":{\"items\":[");
+        for (int i = 1; i <= count; i++) {
+            if (i > 1) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"type\":1,\"name\":\"group-").append(i)
+                    .append("\",\"base_url\":\"http://gpt-load/proxy/group-").append(i)
+                    .append("\",\"models\":\"gpt-4o,gpt-4o-mini,claude-sonnet-4-20250514\",\"group\":\"default\",\"status\":1}");
+        }
+        return sb.append("],\"total\":").append(count).append("}}").toString();
+    }
+
+    private static ServerProcess startServer(String upstreamUrl, boolean virtualThreads, int maxConcurrentRequests) throws IOException {
+        Path workDir = Files.createTempDirectory("gpt-api-sync-load");
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        // 只输出警告，避免逐请求的日志影响测量
+        Path logConfig = workDir.resolve("log4j.properties");
+        Files.writeString(logConfig, """
+                log4j.rootLogger=WARN, file
+                log4j.appender.file=org.apache.log4j.FileAppender
+                log4j.appender.file.File=server.log
+                log4j.appender.file.layout=org.apache.log4j.PatternLayout
+                log4j.appender.file.layout.ConversionPattern=%d %-5p %c - %m%n
+                """);
+        ProcessBuilder builder = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dlog4j.configuration=" + logConfig.toUri(),
+                "-cp", System.getProperty("java.class.path"),
+                "github.gpt.api.sync.Main")
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("stdout.log").toFile());
+        Map<String, String> env = builder.environment();
+        env.put("SERVER_PORT", String.valueOf(port));
+        env.put("SERVER_VIRTUAL_THREADS", String.valueOf(virtualThreads));
+        env.put("SERVER_MAX_CONCURRENT_REQUESTS", String.valueOf(maxConcurrentRequests));
+        env.put("GPT_LOAD_BASE_URL", upstreamUrl);
+        env.put("NEW_API_BASE_URL", upstreamUrl);
+        return new ServerProcess(builder.start(), port);
+    }
+
+    private static void awaitStarted(ServerProcess server) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/first")).build();
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (!server.process().isAlive()) {
+                throw new IllegalStateException("服务进程已退出，退出码: " + server.process().exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException("服务未能在 60 秒内启动");
+    }
+
+    private static Map<String, Result> runLoad(String baseUrl, int clients, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            results.put(endpoint, new Result());
+        }
+
+        // 预热
+        for (String endpoint : ENDPOINTS) {
+            send(client, baseUrl + endpoint, new Result());
+        }
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int offset = i;
+                executor.submit(() -> {
+                    int n = offset;
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = ENDPOINTS.get(n++ % ENDPOINTS.size());
+                        send(client, baseUrl + endpoint, results.get(endpoint));
+                    }
+                });
+            }
+        }
+        return results;
+    }
+
+    private static void send(HttpClient client, String url, Result result) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).build();
+        long start = System.nanoTime();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            long elapsed = System.nanoTime() - start;
+            if (status == 200) {
+                result.latencies.add(elapsed);
+            } else {
+                result.errors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            result.errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void print(String mode, Map<String, Result> results, int seconds) {
+        System.out.printf("%n== %s ==%n", mode);
+        System.out.printf("%-14s %10s %8s %10s %10s %10s %10s%n", "endpoint", "req/s", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        results.forEach((endpoint, result) -> {
+            long[] sorted = result.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-14s %10.1f %8d %10.1f %10.1f %10.1f %10.1f%n", endpoint,
+                    sorted.length / (double) seconds, result.errors.get(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        });
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    private record ServerProcess(Process process, int port) {
+    }
+
+    private static class Result {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
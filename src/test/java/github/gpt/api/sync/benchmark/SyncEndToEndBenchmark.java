@@ -0,0 +1,174 @@
+package github.gpt.api.sync.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import github.gpt.api.sync.fixture.FakeGptLoadServer;
+import github.gpt.api.sync.fixture.FakeNewApiServer;
+import github.gpt.api.sync.fixture.Latency;
+import github.gpt.api.sync.service.ChannelMapperService;
+import github.gpt.api.sync.service.ChannelModelService;
+import github.gpt.api.sync.service.ChannelPruneService;
+import github.gpt.api.sync.service.GptLoadService;
+import github.gpt.api.sync.service.ModelListCache;
+import github.gpt.api.sync.service.ModelMappingStore;
+import github.gpt.api.sync.service.ModelRedirectService;
+import github.gpt.api.sync.service.SyncHistoryStore;
+import github.gpt.api.sync.service.SyncOutbox;
+import github.gpt.api.sync.service.SyncPipelineService;
+import github.gpt.api.sync.service.SyncRunRegistry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 针对模拟 gpt-load / New-API 的端到端同步基准，记录墙钟时间、上游请求数和堆内存峰值。
+ * <p>
+ * 每个规模依次执行两次同步：首次同步（创建全部渠道）和再次同步（渠道已存在）。
+ * 每次同步都在独立的子进程中执行 {@link SyncPipelineService#run}，工作目录为该规模专用的临时目录，
+ * 因此堆内存峰值互不影响，也不会改动本地 data/。
+ * 运行方式（需要先执行 {@code mvn test-compile}）：
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; \
+ *     -Dsizes=100,1000,10000 -Dlatency=lognormal:5:0.5 -DerrorRate=0.001 \
+ *     github.gpt.api.sync.benchmark.SyncEndToEndBenchmark
+ * </pre>
+ * {@code latency} 的格式见 {@link Latency#parse(String)}；{@code childJvmArgs} 可为子进程追加 JVM 参数（如 -Xmx512m）；
+ * {@code modelDiscovery} 为 NEW_API（默认）或 GPT_LOAD，对应同步配置 sync.modelDiscovery。
+ */
+public class SyncEndToEndBenchmark {
+
+    private static final String CHILD_ARG = "--child";
+    private static final String RESULT_PREFIX = "RESULT ";
+    private static final Gson gson = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && CHILD_ARG.equals(args[0])) {
+            runChild();
+            return;
+        }
+
+        String[] sizes = System.getProperty("sizes", "100,1000,10000").split(",");
+        Latency latency = Latency.parse(System.getProperty("latency", "none"));
+        double errorRate = Double.parseDouble(System.getProperty("errorRate", "0"));
+        String modelDiscovery = System.getProperty("modelDiscovery", "NEW_API");
+        System.out.printf("延迟: %s, 错误率: %s, 模型获取方式: %s%n", System.getProperty("latency", "none"), errorRate, modelDiscovery);
+        System.out.printf("%-7s %-8s %10s %8s %8s %7s %10s %10s %10s %10s%n", "groups", "run", "wall(ms)", "created",
+                "updated", "failed", "unchanged", "gpt-load", "new-api", "heap(MB)");
+
+        for (String size : sizes) {
+            int groupCount = Integer.parseInt(size.trim());
+            try (FakeGptLoadServer gptLoad = new FakeGptLoadServer(groupCount);
+                 FakeNewApiServer newApi = new FakeNewApiServer()) {
+                gptLoad.latency(latency).errorRate(errorRate).start();
+                newApi.latency(latency).errorRate(errorRate).start();
+                Path workDir = Files.createTempDirectory("gpt-api-sync-e2e");
+
+                for (String run : List.of("initial", "resync")) {
+                    gptLoad.resetCounts();
+                    newApi.resetCounts();
+                    JsonObject result = runInChildProcess(workDir, gptLoad.baseUrl(), newApi.baseUrl(), modelDiscovery);
+                    JsonObject target = result.getAsJsonArray("targets") != null && !result.getAsJsonArray("targets").isEmpty()
+                            ? result.getAsJsonArray("targets").get(0).getAsJsonObject() : new JsonObject();
+                    System.out.printf("%-7d %-8s %10d %8d %8d %7d %10d %10d %10d %10.1f%n", groupCount, run,
+                            result.get("wall_ms").getAsLong(),
+                            intOrZero(result, "channels_created"), intOrZero(result, "channels_updated"),
+                            intOrZero(result, "channels_failed"), intOrZero(target, "models_unchanged"),
+                            gptLoad.totalRequests(), newApi.totalRequests(),
+                            result.get("peak_heap_bytes").getAsLong() / 1024.0 / 1024.0);
+                    System.out.printf("        gpt-load 请求: %s%n", gptLoad.requestCounts());
+                    System.out.printf("        new-api 请求: %s%n", newApi.requestCounts());
+                }
+            }
+        }
+    }
+
+    private static JsonObject runInChildProcess(Path workDir, String gptLoadUrl, String newApiUrl, String modelDiscovery) throws IOException, InterruptedException {
+        Path logConfig = workDir.resolve("log4j.properties");
+        Files.writeString(logConfig, """
+                log4j.rootLogger=WARN, file
+                log4j.appender.file=org.apache.log4j.FileAppender
+                log4j.appender.file.File=sync.log
+                log4j.appender.file.layout=org.apache.log4j.PatternLayout
+                log4j.appender.file.layout.ConversionPattern=%d %-5p %c - %m%n
+                """);
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dlog4j.configuration=" + logConfig.toUri()));
+        String childJvmArgs = System.getProperty("childJvmArgs", "");
+        if (!childJvmArgs.isBlank()) {
+            command.addAll(List.of(childJvmArgs.trim().split("\\s+")));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                SyncEndToEndBenchmark.class.getName(), CHILD_ARG));
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true);
+        Map<String, String> env = builder.environment();
+        env.put("GPT_LOAD_BASE_URL", gptLoadUrl);
+        env.put("GPT_LOAD_AUTH_KEY", "sk-fake");
+        env.put("NEW_API_BASE_URL", newApiUrl);
+        env.put("NEW_API_ACCESS_TOKEN", "fake-token");
+        env.put("MODEL_DISCOVERY", modelDiscovery);
+
+        Process process = builder.start();
+        JsonObject result = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = gson.fromJson(line.substring(RESULT_PREFIX.length()), JsonObject.class);
+                } else {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (result == null) {
+            throw new IllegalStateException("同步子进程未返回结果，退出码: " + exitCode + "\n" + output);
+        }
+        return result;
+    }
+
+    /**
+     * 子进程：按 Main 的方式组装服务并执行一次同步，把结果以一行 JSON 输出到标准输出
+     */
+    private static void runChild() {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        GptLoadService gptLoadService = new GptLoadService();
+        SyncOutbox syncOutbox = new SyncOutbox();
+        SyncPipelineService syncPipelineService = new SyncPipelineService(gptLoadService, new ChannelMapperService(), new ChannelPruneService(),
+                new ChannelModelService(gptLoadService, new ModelRedirectService(), new ModelMappingStore(), new ModelListCache(), syncOutbox),
+                new SyncHistoryStore(), syncOutbox, new SyncRunRegistry());
+        long start = System.nanoTime();
+        Map<String, Object> syncResult = syncPipelineService.run(null, SyncPipelineService.ReplicaScope.standalone());
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        Map<String, Object> result = new LinkedHashMap<>(syncResult);
+        result.put("wall_ms", wallMs);
+        result.put("peak_heap_bytes", peakHeap);
+        System.out.println(RESULT_PREFIX + gson.toJson(result));
+        System.exit(0);
+    }
+
+    private static int intOrZero(JsonObject object, String key) {
+        return object.has(key) ? object.get(key).getAsInt() : 0;
+    }
+}
@@ -0,0 +1,72 @@
+package github.gpt.api.sync.controller;
+
+import github.gpt.api.sync.config.AppConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigControllerTest {
+
+    @Test
+    void testFindPrevious_MatchesRenamedSourceByBaseUrl() {
+        List<AppConfig.GptLoad> current = List.of(source("a", "http://one:3001", "key-1"), source("b", "http://two:3001", "key-2"));
+
+        AppConfig.GptLoad previous = find(current, source("renamed", "http://two:3001/", "******"), 0);
+
+        assertEquals("key-2", previous.getAuthKey());
+    }
+
+    @Test
+    void testFindPrevious_MatchesUnnamedSourceByResolvedName() {
+        List<AppConfig.GptLoad> current = List.of(source("", "http://one:3001", "key-1"), source(null, "http://two:3001", "key-2"));
+
+        // 修改了 baseUrl 的第二个未命名源解析为 source-2
+        AppConfig.GptLoad previous = find(current, source(null, "http://moved:3001", "******"), 1);
+
+        assertEquals("key-2", previous.getAuthKey());
+    }
+
+    @Test
+    void testFindPrevious_NoUniqueMatchReturnsNull() {
+        List<AppConfig.GptLoad> current = List.of(source("a", "http://one:3001", "key-1"), source("a", "http://two:3001", "key-2"));
+
+        assertNull(find(current, source("a", "http://moved:3001", "******"), 0), "名称重复时不能确定对应的源");
+        assertNull(find(current, source("c", "http://other:3001", "******"), 0));
+        assertNull(find(List.of(), source("a", "http://one:3001", "******"), 0));
+    }
+
+    @Test
+    void testFindPrevious_MatchesNewApiTargets() {
+        List<AppConfig.NewApi> current = List.of(target(null, "http://one:3000", "token-1"), target("b", "http://two:3000", "token-2"));
+
+        AppConfig.NewApi renamed = ConfigController.findPrevious(current, target("renamed", "http://two:3000", "******"), 1,
+                AppConfig.NewApi::getName, AppConfig.NewApi::getBaseUrl, "target-");
+        AppConfig.NewApi moved = ConfigController.findPrevious(current, target(null, "http://moved:3000", "******"), 0,
+                AppConfig.NewApi::getName, AppConfig.NewApi::getBaseUrl, "target-");
+
+        assertEquals("token-2", renamed.getAccessToken());
+        assertEquals("token-1", moved.getAccessToken());
+    }
+
+    private static AppConfig.GptLoad find(List<AppConfig.GptLoad> current, AppConfig.GptLoad updated, int index) {
+        return ConfigController.findPrevious(current, updated, index, AppConfig.GptLoad::getName, AppConfig.GptLoad::getBaseUrl, "source-");
+    }
+
+    private static AppConfig.GptLoad source(String name, String baseUrl, String authKey) {
+        AppConfig.GptLoad source = new AppConfig.GptLoad();
+        source.setName(name);
+        source.setBaseUrl(baseUrl);
+        source.setAuthKey(authKey);
+        return source;
+    }
+
+    private static AppConfig.NewApi target(String name, String baseUrl, String accessToken) {
+        AppConfig.NewApi target = new AppConfig.NewApi();
+        target.setName(name);
+        target.setBaseUrl(baseUrl);
+        target.setAccessToken(accessToken);
+        return target;
+    }
+}
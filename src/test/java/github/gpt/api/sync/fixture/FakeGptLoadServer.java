@@ -0,0 +1,110 @@
+package github.gpt.api.sync.fixture;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.javalin.Javalin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模拟 gpt-load 的 {@code GET /api/groups}，返回指定数量的分组。
+ * 分组的 endpoint 指向本服务的 /proxy/ 路径，channel_type 在 openai / gemini / anthropic 之间轮换。
+ * 响应带有 ETag，请求的 If-None-Match 与之相同时返回 304。
+ * <p>
+ * 同时模拟代理的模型列表接口 {@code /proxy/:group/v1/models} 和 {@code /proxy/:group/v1beta/models}，
+ * 模型与 {@link FakeNewApiServer} 的 fetch_models 相同，并按分组序号混入少量变体。
+ */
+public class FakeGptLoadServer extends FakeUpstreamServer {
+
+    private static final String[] CHANNEL_TYPES = {"openai", "gemini", "anthropic"};
+    private static final String[] TEST_MODELS = {"gpt-4o-mini", "gemini-2.5-flash", "claude-3-5-haiku-20241022"};
+
+    private volatile int groupCount;
+    private volatile int modelVariants = 10;
+
+    public FakeGptLoadServer(int groupCount) {
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * 修改分组数量，下一次请求生效
+     */
+    public void setGroupCount(int groupCount) {
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * 设置模型集合变体的数量，决定不同模型集合的总数
+     */
+    public FakeGptLoadServer modelVariants(int modelVariants) {
+        this.modelVariants = Math.max(1, modelVariants);
+        return this;
+    }
+
+    @Override
+    protected void registerRoutes(Javalin app) {
+        app.get("/proxy/{group}/v1/models", ctx -> {
+            JsonArray data = new JsonArray();
+            for (String model : modelsFor(ctx.pathParam("group"))) {
+                JsonObject item = new JsonObject();
+                item.addProperty("id", model);
+                item.addProperty("object", "model");
+                data.add(item);
+            }
+            JsonObject response = new JsonObject();
+            response.addProperty("object", "list");
+            response.add("data", data);
+            ctx.contentType("application/json").result(response.toString());
+        });
+        app.get("/proxy/{group}/v1beta/models", ctx -> {
+            JsonArray models = new JsonArray();
+            for (String model : modelsFor(ctx.pathParam("group"))) {
+                JsonObject item = new JsonObject();
+                item.addProperty("name", "models/" + model);
+                models.add(item);
+            }
+            JsonObject response = new JsonObject();
+            response.add("models", models);
+            ctx.contentType("application/json").result(response.toString());
+        });
+        app.get("/api/groups", ctx -> {
+            JsonObject response = new JsonObject();
+            response.addProperty("code", 0);
+            response.addProperty("message", "success");
+            response.add("data", buildGroups());
+            String body = response.toString();
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            ctx.header("ETag", etag);
+            if (etag.equals(ctx.header("If-None-Match"))) {
+                ctx.status(304);
+                return;
+            }
+            ctx.contentType("application/json").result(body);
+        });
+    }
+
+    private List<String> modelsFor(String groupName) {
+        int index = Integer.parseInt(groupName.substring(groupName.lastIndexOf('-') + 1));
+        List<String> models = new ArrayList<>(FakeNewApiServer.MODELS_BY_CHANNEL_TYPE.get(CHANNEL_TYPES[index % CHANNEL_TYPES.length]));
+        models.add("custom-model-" + (index % modelVariants));
+        return models;
+    }
+
+    private JsonArray buildGroups() {
+        JsonArray groups = new JsonArray();
+        for (int i = 1; i <= groupCount; i++) {
+            JsonObject group = new JsonObject();
+            group.addProperty("id", i);
+            group.addProperty("name", "group-" + i);
+            group.addProperty("display_name", "Group " + i);
+            group.addProperty("endpoint", baseUrl() + "/proxy/group-" + i);
+            group.addProperty("channel_type", CHANNEL_TYPES[i % CHANNEL_TYPES.length]);
+            group.addProperty("test_model", TEST_MODELS[i % TEST_MODELS.length]);
+            group.addProperty("proxy_keys", "sk-fake-" + i);
+            group.addProperty("sort", i);
+            groups.add(group);
+        }
+        return groups;
+    }
+}
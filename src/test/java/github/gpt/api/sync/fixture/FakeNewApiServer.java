@@ -0,0 +1,159 @@
+package github.gpt.api.sync.fixture;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模拟 New-API 的渠道接口，渠道保存在内存中：
+ * {@code GET /api/status}、{@code GET/POST/PUT /api/channel/}、{@code GET /api/channel/fetch_models/:id}
+ * 和 {@code POST /api/channel/batch}。
+ * <p>
+ * fetch_models 按渠道类型返回一组带日期后缀的模型名，并根据渠道ID混入少量变体，
+ * 使不同渠道之间既有相同的模型集合，也有不同的模型集合。
+ */
+public class FakeNewApiServer extends FakeUpstreamServer {
+
+    /**
+     * 各 gpt-load channel_type 的上游模型，{@link FakeGptLoadServer} 的代理模型接口也使用这份列表
+     */
+    static final Map<String, List<String>> MODELS_BY_CHANNEL_TYPE = Map.of(
+            "openai", List.of("gpt-4o-2024-11-20", "gpt-4o-mini", "gpt-4.1-2025-04-14", "gpt-4.1-mini-2025-04-14", "o3-mini"),
+            "gemini", List.of("gemini-2.5-pro-preview-06-05", "gemini-2.5-flash", "gemini-2.5-flash-lite-preview-06-17"),
+            "anthropic", List.of("claude-sonnet-4-20250514", "claude-opus-4-20250514", "claude-3-7-sonnet-20250219", "claude-3-5-haiku-20241022")
+    );
+    private static final Map<Integer, List<String>> MODELS_BY_TYPE = Map.of(
+            1, MODELS_BY_CHANNEL_TYPE.get("openai"),
+            24, MODELS_BY_CHANNEL_TYPE.get("gemini"),
+            14, MODELS_BY_CHANNEL_TYPE.get("anthropic")
+    );
+
+    private final Map<Integer, JsonObject> channels = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private volatile int modelVariants = 10;
+
+    /**
+     * 设置模型集合变体的数量，决定不同模型集合的总数
+     */
+    public FakeNewApiServer modelVariants(int modelVariants) {
+        this.modelVariants = Math.max(1, modelVariants);
+        return this;
+    }
+
+    public int channelCount() {
+        return channels.size();
+    }
+
+    /**
+     * 当前所有渠道的副本
+     */
+    public List<JsonObject> channels() {
+        List<JsonObject> copies = new ArrayList<>();
+        for (JsonObject channel : channels.values()) {
+            synchronized (channel) {
+                copies.add(channel.deepCopy());
+            }
+        }
+        return copies;
+    }
+
+    @Override
+    protected void registerRoutes(Javalin app) {
+        app.get("/api/status", ctx -> success(ctx, new JsonObject()));
+        app.get("/api/channel/", this::listChannels);
+        app.post("/api/channel/", this::createChannel);
+        app.put("/api/channel/", this::updateChannel);
+        app.get("/api/channel/fetch_models/{id}", this::fetchModels);
+        app.post("/api/channel/batch", this::deleteChannels);
+    }
+
+    private void listChannels(Context ctx) {
+        int page = Math.max(1, ctx.queryParamAsClass("page", Integer.class).getOrDefault(1));
+        int pageSize = Math.max(1, ctx.queryParamAsClass("page_size", Integer.class).getOrDefault(10));
+        List<JsonObject> all = new ArrayList<>(channels.values());
+        JsonArray items = new JsonArray();
+        for (int i = (page - 1) * pageSize; i < Math.min(all.size(), page * pageSize); i++) {
+            JsonObject channel = all.get(i);
+            synchronized (channel) {
+                items.add(channel.deepCopy());
+            }
+        }
+        JsonObject data = new JsonObject();
+        data.add("items", items);
+        data.addProperty("total", all.size());
+        data.addProperty("page", page);
+        data.addProperty("page_size", pageSize);
+        success(ctx, data);
+    }
+
+    private void createChannel(Context ctx) {
+        JsonObject channel = JsonParser.parseString(ctx.body()).getAsJsonObject().getAsJsonObject("channel");
+        int id = nextId.getAndIncrement();
+        channel.addProperty("id", id);
+        channels.put(id, channel);
+        success(ctx, null);
+    }
+
+    private void updateChannel(Context ctx) {
+        JsonObject update = JsonParser.parseString(ctx.body()).getAsJsonObject();
+        JsonObject channel = channels.get(update.get("id").getAsInt());
+        if (channel == null) {
+            ctx.status(404).contentType("application/json").result("{\"success\":false,\"message\":\"channel not found\"}");
+            return;
+        }
+        synchronized (channel) {
+            for (Map.Entry<String, JsonElement> field : update.entrySet()) {
+                channel.add(field.getKey(), field.getValue());
+            }
+        }
+        success(ctx, null);
+    }
+
+    private void fetchModels(Context ctx) {
+        int id = Integer.parseInt(ctx.pathParam("id"));
+        JsonObject channel = channels.get(id);
+        if (channel == null) {
+            ctx.status(404).contentType("application/json").result("{\"success\":false,\"message\":\"channel not found\"}");
+            return;
+        }
+        int type = channel.has("type") ? channel.get("type").getAsInt() : 1;
+        JsonArray models = new JsonArray();
+        MODELS_BY_TYPE.getOrDefault(type, MODELS_BY_TYPE.get(1)).forEach(models::add);
+        models.add("custom-model-" + (id % modelVariants));
+        success(ctx, models);
+    }
+
+    private void deleteChannels(Context ctx) {
+        JsonArray ids = JsonParser.parseString(ctx.body()).getAsJsonObject().getAsJsonArray("ids");
+        int deleted = 0;
+        for (JsonElement id : ids) {
+            if (channels.remove(id.getAsInt()) != null) {
+                deleted++;
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.addProperty("message", "");
+        response.addProperty("data", deleted);
+        ctx.contentType("application/json").result(response.toString());
+    }
+
+    private static void success(Context ctx, JsonElement data) {
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.addProperty("message", "");
+        if (data != null) {
+            response.add("data", data);
+        }
+        ctx.contentType("application/json").result(response.toString());
+    }
+}
@@ -0,0 +1,96 @@
+package github.gpt.api.sync.fixture;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 嵌入式模拟上游的公共部分：注入延迟和错误，并按接口统计请求数。
+ * 服务在虚拟线程上处理请求，模拟的延迟不会限制并发。
+ */
+public abstract class FakeUpstreamServer implements AutoCloseable {
+
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private volatile Latency latency = Latency.none();
+    private volatile double errorRate;
+    private Javalin app;
+
+    /**
+     * 设置每个请求的延迟
+     */
+    public FakeUpstreamServer latency(Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * 设置返回 500 的请求比例（0 ~ 1）
+     */
+    public FakeUpstreamServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * 在随机端口上启动
+     */
+    public FakeUpstreamServer start() {
+        app = Javalin.create(config -> {
+                    config.useVirtualThreads = true;
+                    config.showJavalinBanner = false;
+                })
+                .before(this::beforeRequest);
+        registerRoutes(app);
+        app.start(0);
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + app.port();
+    }
+
+    /**
+     * 按 "方法 路径" 统计的请求数，路径中的数字ID统一为 :id，代理路径中的分组名称统一为 :group
+     */
+    public Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.get()));
+        return counts;
+    }
+
+    public long totalRequests() {
+        return requestCounts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void resetCounts() {
+        requestCounts.clear();
+    }
+
+    @Override
+    public void close() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    protected abstract void registerRoutes(Javalin app);
+
+    private void beforeRequest(Context ctx) throws InterruptedException {
+        String endpoint = ctx.method() + " " + ctx.path().replaceAll("/\\d+(?=/|$)", "/:id").replaceFirst("^/proxy/[^/]+", "/proxy/:group");
+        requestCounts.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+
+        long delay = latency.nextMillis();
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            ctx.status(500).contentType("application/json").result("{\"success\":false,\"message\":\"injected error\"}");
+            ctx.skipRemainingHandlers();
+        }
+    }
+}
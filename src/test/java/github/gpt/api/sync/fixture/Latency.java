@@ -0,0 +1,51 @@
+package github.gpt.api.sync.fixture;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 模拟上游每次请求的处理延迟
+ */
+@FunctionalInterface
+public interface Latency {
+
+    /**
+     * @return 本次请求的延迟（毫秒）
+     */
+    long nextMillis();
+
+    static Latency none() {
+        return () -> 0;
+    }
+
+    static Latency fixed(long millis) {
+        return () -> millis;
+    }
+
+    static Latency uniform(long minMillis, long maxMillis) {
+        return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+    }
+
+    /**
+     * 对数正态分布，贴近真实服务的长尾延迟
+     *
+     * @param medianMillis 中位数
+     * @param sigma        形状参数，越大长尾越明显（常用 0.3 ~ 1.0）
+     */
+    static Latency logNormal(double medianMillis, double sigma) {
+        return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * 解析命令行中的延迟描述：{@code none}、{@code fixed:5}、{@code uniform:2:20}、{@code lognormal:10:0.5}
+     */
+    static Latency parse(String spec) {
+        String[] parts = spec.trim().toLowerCase().split(":");
+        return switch (parts[0]) {
+            case "none" -> none();
+            case "fixed" -> fixed(Long.parseLong(parts[1]));
+            case "uniform" -> uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            case "lognormal" -> logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default -> throw new IllegalArgumentException("未知的延迟描述: " + spec);
+        };
+    }
+}
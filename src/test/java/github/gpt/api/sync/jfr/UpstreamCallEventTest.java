@@ -0,0 +1,57 @@
+package github.gpt.api.sync.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UpstreamCallEventTest {
+
+    @Test
+    void testRecordedEventCountsResponseBytes(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(UpstreamCallEvent.class);
+            recording.start();
+
+            UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.NEW_API, "GET", "/api/channel/fetch_models/{id}");
+            event.name = "default";
+            event.status = 200;
+            try (InputStream in = event.countResponse(new ByteArrayInputStream(new byte[1234]))) {
+                in.read();
+                in.readAllBytes();
+            }
+            event.commit();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("gptapisync.UpstreamCall"))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent recorded = events.get(0);
+        assertEquals("new-api", recorded.getString("upstream"));
+        assertEquals("/api/channel/fetch_models/{id}", recorded.getString("endpoint"));
+        assertEquals(200, recorded.getInt("status"));
+        assertEquals(1234, recorded.getLong("responseBytes"));
+    }
+
+    @Test
+    void testCountResponseReturnsOriginalStreamWhenNotRecording() {
+        InputStream in = new ByteArrayInputStream(new byte[8]);
+        UpstreamCallEvent event = UpstreamCallEvent.start(UpstreamCallEvent.GPT_LOAD, "GET", "/api/groups");
+        assertSame(in, event.countResponse(in));
+    }
+}
@@ -0,0 +1,102 @@
+package github.gpt.api.sync.json;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpServer;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelRequestWriterTest {
+
+    @Test
+    void testWriteChannelSkipsNullStrings() throws IOException {
+        NewApiChannel channel = new NewApiChannel();
+        channel.setId(7);
+        channel.setName("openai-group");
+        channel.setType(1);
+        channel.setBaseUrl("http://localhost:3001/proxy/openai-group");
+        channel.setModels("gpt-4o,gpt-4o-mini");
+        channel.setModelMapping("{\"gpt-4\":\"gpt-4o\"}");
+        channel.setCreatedTime(1735660800L);
+        NewApiChannel.ChannelInfo channelInfo = new NewApiChannel.ChannelInfo();
+        channelInfo.setMultiKey(true);
+        channelInfo.setMultiKeySize(2);
+        channel.setChannelInfo(channelInfo);
+
+        JsonObject json = write(out -> ChannelRequestWriter.writeChannel(out, channel)).getAsJsonObject();
+
+        assertEquals(Set.of("id", "name", "type", "status", "priority", "weight", "auto_ban",
+                "base_url", "models", "model_mapping", "channel_info"), json.keySet());
+        assertEquals(7, json.get("id").getAsInt());
+        assertEquals("{\"gpt-4\":\"gpt-4o\"}", json.get("model_mapping").getAsString());
+        JsonObject writtenInfo = json.getAsJsonObject("channel_info");
+        assertTrue(writtenInfo.get("is_multi_key").getAsBoolean());
+        assertFalse(writtenInfo.has("multi_key_mode"));
+    }
+
+    @Test
+    void testWriteCreateRequestWrapsChannel() throws IOException {
+        NewApiChannel channel = new NewApiChannel();
+        channel.setName("empty");
+
+        JsonObject json = write(out -> ChannelRequestWriter.writeCreateRequest(out, channel)).getAsJsonObject();
+
+        assertEquals("single", json.get("mode").getAsString());
+        assertEquals("empty", json.getAsJsonObject("channel").get("name").getAsString());
+        assertFalse(json.getAsJsonObject("channel").has("key"));
+    }
+
+    @Test
+    void testSendWritesFixedLengthBodyAndReusesBuffer() throws IOException {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            assertEquals(String.valueOf(body.length), exchange.getRequestHeaders().getFirst("Content-Length"));
+            bodies.add(new String(body, StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ChannelRequestWriter writer = new ChannelRequestWriter();
+            for (String name : List.of("第一个渠道", "b")) {
+                HttpURLConnection connection = (HttpURLConnection) new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL().openConnection();
+                connection.setRequestMethod("PUT");
+                connection.setDoOutput(true);
+                int length = writer.send(connection, out -> out.beginObject().name("name").value(name).endObject());
+                assertEquals(200, connection.getResponseCode());
+                assertEquals(("{\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8).length, length);
+            }
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            server.stop(0);
+        }
+
+        assertEquals(List.of("{\"name\":\"第一个渠道\"}", "{\"name\":\"b\"}"), bodies);
+    }
+
+    private static JsonElement write(ChannelRequestWriter.Body body) throws IOException {
+        StringWriter json = new StringWriter();
+        JsonWriter out = new JsonWriter(json);
+        out.setSerializeNulls(false);
+        body.write(out);
+        out.flush();
+        return JsonParser.parseString(json.toString());
+    }
+}
@@ -0,0 +1,131 @@
+package github.gpt.api.sync.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import github.gpt.api.sync.model.gptload.GptLoadApiResponse;
+import github.gpt.api.sync.model.gptload.GptLoadGroup;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import github.gpt.api.sync.model.newapi.NewApiChannelResponseWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelTypeAdaptersTest {
+
+    /**
+     * 反射绑定的 Gson，作为手写 TypeAdapter 的对照
+     */
+    private static final Gson REFLECTIVE = new Gson();
+
+    private static final String CHANNELS_JSON = """
+            {
+              "success": true,
+              "message": "",
+              "data": {
+                "items": [
+                  {
+                    "id": 7,
+                    "type": 14,
+                    "key": "sk-secret",
+                    "openai_organization": null,
+                    "test_model": "claude-3-haiku",
+                    "status": 1,
+                    "name": "anthropic-group",
+                    "weight": 3,
+                    "created_time": 1735660800,
+                    "test_time": 0,
+                    "response_time": 420,
+                    "base_url": "http://localhost:3001/proxy/anthropic-group",
+                    "other": "",
+                    "balance": 1.5,
+                    "balance_updated_time": 1735660900,
+                    "models": "claude-3-haiku,claude-3-opus",
+                    "group": "default",
+                    "used_quota": 123456789012,
+                    "model_mapping": "{\\"claude-3\\":\\"claude-3-opus\\"}",
+                    "status_code_mapping": "",
+                    "priority": -2,
+                    "auto_ban": 1,
+                    "other_info": "{}",
+                    "settings": null,
+                    "tag": "gpt-load",
+                    "setting": "{}",
+                    "channel_info": {"is_multi_key": true, "multi_key_size": 2, "multi_key_polling_index": 1, "multi_key_mode": "random", "unknown": [1, 2]},
+                    "unknown_field": {"nested": [1, 2, 3]}
+                  },
+                  {"id": 8, "name": "empty", "channel_info": null}
+                ],
+                "page": 1,
+                "page_size": 100000,
+                "total": 2,
+                "type_counts": {"1": 1, "14": 1}
+              }
+            }
+            """;
+
+    private static final String GROUPS_JSON = """
+            {
+              "code": 0,
+              "message": "Success",
+              "data": [
+                {
+                  "id": 3,
+                  "name": "gemini-group",
+                  "endpoint": "http://localhost:3001/proxy/gemini-group",
+                  "display_name": "Gemini",
+                  "description": null,
+                  "upstreams": [{"url": "https://generativelanguage.googleapis.com", "weight": 1}],
+                  "channel_type": "gemini",
+                  "sort": 2,
+                  "test_model": "gemini-2.0-flash",
+                  "validation_endpoint": "",
+                  "param_overrides": {"temperature": 0.7, "stop": ["a", "b"]},
+                  "config": {},
+                  "proxy_keys": "sk-proxy-1,sk-proxy-2",
+                  "last_validated_at": "2025-01-01T00:00:00Z",
+                  "created_at": "2025-01-01T00:00:00Z",
+                  "updated_at": "2025-01-02T00:00:00Z",
+                  "api_keys": [{"id": 1}]
+                },
+                {"id": 4, "name": "bare", "upstreams": null}
+              ]
+            }
+            """;
+
+    @Test
+    void testChannelResponseMatchesReflectiveBinding() {
+        NewApiChannelResponseWrapper expected = REFLECTIVE.fromJson(CHANNELS_JSON, NewApiChannelResponseWrapper.class);
+        NewApiChannelResponseWrapper actual = Json.GSON.fromJson(CHANNELS_JSON, NewApiChannelResponseWrapper.class);
+
+        assertEquals(expected, actual);
+        NewApiChannel channel = actual.getData().getItems().get(0);
+        assertTrue(channel.getChannelInfo().isMultiKey());
+        assertEquals(123456789012L, channel.getUsedQuota());
+        assertNull(actual.getData().getItems().get(1).getChannelInfo());
+    }
+
+    @Test
+    void testGroupResponseMatchesReflectiveBinding() {
+        GptLoadApiResponse<List<GptLoadGroup>> expected = REFLECTIVE.fromJson(GROUPS_JSON, Json.GPT_LOAD_GROUPS_RESPONSE);
+        GptLoadApiResponse<List<GptLoadGroup>> actual = Json.GSON.fromJson(GROUPS_JSON, Json.GPT_LOAD_GROUPS_RESPONSE);
+
+        assertEquals(expected, actual);
+        assertEquals(2, actual.getData().size());
+        assertEquals("https://generativelanguage.googleapis.com", actual.getData().get(0).getUpstreams().get(0).getUrl());
+    }
+
+    @Test
+    void testWriteMatchesReflectiveBinding() {
+        NewApiChannelResponseWrapper response = Json.GSON.fromJson(CHANNELS_JSON, NewApiChannelResponseWrapper.class);
+        NewApiChannel channel = response.getData().getItems().get(0);
+
+        assertEquals(JsonParser.parseString(REFLECTIVE.toJson(channel)), JsonParser.parseString(Json.GSON.toJson(channel)));
+        assertEquals(channel, Json.GSON.fromJson(Json.GSON.toJson(channel), NewApiChannel.class));
+
+        GptLoadApiResponse<List<GptLoadGroup>> groups = Json.GSON.fromJson(GROUPS_JSON, Json.GPT_LOAD_GROUPS_RESPONSE);
+        assertEquals(JsonParser.parseString(REFLECTIVE.toJson(groups, Json.GPT_LOAD_GROUPS_RESPONSE)),
+                JsonParser.parseString(Json.GSON.toJson(groups, Json.GPT_LOAD_GROUPS_RESPONSE)));
+    }
+}
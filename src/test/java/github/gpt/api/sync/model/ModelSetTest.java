@@ -0,0 +1,53 @@
+package github.gpt.api.sync.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelSetTest {
+
+    @Test
+    void testParse_IgnoresBlankEntriesAndDuplicates() {
+        ModelSet models = ModelSet.parse(" gpt-4o,,gpt-4o-mini, gpt-4o ,");
+
+        assertEquals(2, models.size());
+        assertTrue(models.contains("gpt-4o"));
+        assertTrue(models.contains("gpt-4o-mini"));
+        assertFalse(models.contains("gpt-4.1"));
+        assertTrue(ModelSet.parse("").isEmpty());
+        assertTrue(ModelSet.parse(null).isEmpty());
+    }
+
+    @Test
+    void testEquals_IgnoresOrder() {
+        ModelSet a = ModelSet.parse("claude-4-sonnet,gpt-4o");
+        ModelSet b = ModelSet.of(List.of("gpt-4o", "claude-4-sonnet"));
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.join(), b.join());
+    }
+
+    @Test
+    void testUnionAndDifference() {
+        ModelSet actual = ModelSet.parse("gemini-2.5-pro-preview,gemini-2.5-flash");
+        ModelSet standard = ModelSet.parse("gemini-2.5-pro");
+
+        ModelSet merged = actual.union(standard);
+        assertEquals(3, merged.size());
+        assertEquals(standard, merged.difference(actual));
+        assertEquals(actual, merged.difference(standard));
+        assertEquals(ModelSet.parse(merged.join()), merged);
+    }
+
+    @Test
+    void testDictionary_SharesIdsAcrossSets() {
+        int id = ModelDictionary.idOf("shared-model-for-dictionary-test");
+
+        assertEquals(id, ModelDictionary.idOf("shared-model-for-dictionary-test"));
+        assertEquals("shared-model-for-dictionary-test", ModelDictionary.nameOf(id));
+        assertEquals(-1, ModelDictionary.find("never-registered-model-name"));
+    }
+}
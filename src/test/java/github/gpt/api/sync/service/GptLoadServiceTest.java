@@ -0,0 +1,59 @@
+package github.gpt.api.sync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GptLoadServiceTest {
+
+    @Test
+    void testDecodeModelList_OpenAiAndAnthropicFormat() throws IOException {
+        String json = """
+                {
+                  "object": "list",
+                  "data": [
+                    {"id": "gpt-4o", "object": "model", "owned_by": "openai"},
+                    {"id": "gpt-4o-mini", "object": "model"},
+                    {"id": "gpt-4o", "object": "model"},
+                    {"type": "model"}
+                  ],
+                  "has_more": false
+                }
+                """;
+
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), GptLoadService.decodeModelList(new StringReader(json)));
+    }
+
+    @Test
+    void testDecodeModelList_GeminiFormatStripsPrefix() throws IOException {
+        String json = """
+                {"models": [{"name": "models/gemini-2.5-pro", "displayName": "Gemini 2.5 Pro"}, {"name": "gemini-2.5-flash"}]}
+                """;
+
+        assertEquals(List.of("gemini-2.5-pro", "gemini-2.5-flash"), GptLoadService.decodeModelList(new StringReader(json)));
+    }
+
+    @Test
+    void testDecodeModelList_SkipsUnrelatedFieldsAndItems() throws IOException {
+        String json = """
+                {"object": "list", "meta": {"models": "ignored"}, "data": [
+                  {"owned_by": "openai", "permission": [{"id": "perm-1"}], "id": "gpt-4o"},
+                  "not-an-object", {"object": "model"}, {"id": "gpt-4o"}, {"id": "o3"}
+                ], "has_more": false}
+                """;
+
+        assertEquals(List.of("gpt-4o", "o3"), GptLoadService.decodeModelList(new StringReader(json)));
+    }
+
+    @Test
+    void testDecodeModelList_InvalidResponseIsRejected() {
+        assertThrows(IOException.class, () -> GptLoadService.decodeModelList(new StringReader("{\"error\": \"unauthorized\"}")));
+        assertThrows(IOException.class, () -> GptLoadService.decodeModelList(new StringReader("[1, 2]")));
+        assertThrows(IOException.class, () -> GptLoadService.decodeModelList(new StringReader("not json {")));
+        assertThrows(IOException.class, () -> GptLoadService.decodeModelList(new StringReader("{\"data\": [{\"id\": \"gpt-4o\"}")));
+    }
+}
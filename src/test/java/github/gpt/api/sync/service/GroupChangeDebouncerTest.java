@@ -0,0 +1,52 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupChangeDebouncerTest {
+
+    private final LinkedBlockingQueue<GroupSelection> flushed = new LinkedBlockingQueue<>();
+    private GroupChangeDebouncer debouncer;
+
+    @AfterEach
+    void tearDown() {
+        debouncer.shutdown();
+    }
+
+    @Test
+    void testBurstCollapsesIntoOneSelection() throws InterruptedException {
+        debouncer = new GroupChangeDebouncer(flushed::add, () -> 200, () -> 10_000);
+        debouncer.submit(List.of(1), List.of("group-a"));
+        debouncer.submit(List.of(1, 2), List.of());
+        GroupChangeDebouncer.Pending pending = debouncer.submit(List.of(), List.of("group-a", "group-b"));
+        assertEquals(4, pending.groups());
+
+        GroupSelection selection = flushed.poll(5, TimeUnit.SECONDS);
+        assertNotNull(selection);
+        assertEquals(Set.of(1, 2), selection.getIds());
+        assertEquals(Set.of("group-a", "group-b"), selection.getNames());
+        assertNull(flushed.poll(400, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testContinuousEventsFlushAfterMaxDelay() throws InterruptedException {
+        debouncer = new GroupChangeDebouncer(flushed::add, () -> 300, () -> 500);
+        long start = System.currentTimeMillis();
+        GroupSelection selection = null;
+        for (int i = 0; i < 20 && selection == null; i++) {
+            debouncer.submit(List.of(i), List.of());
+            selection = flushed.poll(100, TimeUnit.MILLISECONDS);
+        }
+        assertNotNull(selection, "持续有通知时应在最长等待时长后同步");
+        assertTrue(System.currentTimeMillis() - start < 1500);
+        assertTrue(selection.size() > 1);
+    }
+}
@@ -0,0 +1,57 @@
+package github.gpt.api.sync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevenshteinBatchScorerTest {
+
+    private final ScalarLevenshteinScorer scalar = new ScalarLevenshteinScorer();
+    private final VectorLevenshteinScorer vector = new VectorLevenshteinScorer();
+
+    @Test
+    void testVectorMatchesScalar_OnModelNames() {
+        List<String> targets = List.of(
+                "claude-sonnet-4-20250514", "claude-3-5-haiku-20241022", "gpt-4o", "gpt-4o-mini",
+                "GPT-4.1", "o3", "o4-mini", "gemini-2.5-pro-preview-06-05", "deepseek-r1", "", "qwen3-235b-a22b"
+        );
+        for (String source : List.of("claude-4-sonnet", "gpt-4.1", "o3", "gemini-2.5-pro", "DeepSeek-R1", "x", "")) {
+            assertArrayEquals(scalar.windowedDistances(source, targets), vector.windowedDistances(source, targets),
+                    "source=" + source);
+        }
+    }
+
+    @Test
+    void testVectorMatchesScalar_OnRandomStrings() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            String source = randomString(random, random.nextInt(20));
+            List<String> targets = new ArrayList<>();
+            int count = random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                targets.add(randomString(random, random.nextInt(40)));
+            }
+            assertArrayEquals(scalar.windowedDistances(source, targets), vector.windowedDistances(source, targets),
+                    "source=" + source + ", targets=" + targets);
+        }
+    }
+
+    @Test
+    void testBestScorer_UsesVectorWhenModuleIsEnabled() {
+        // surefire 以 --add-modules jdk.incubator.vector 运行测试
+        assertInstanceOf(VectorLevenshteinScorer.class, LevenshteinBatchScorer.best());
+    }
+
+    private static String randomString(Random random, int length) {
+        String alphabet = "abcAB-.0123";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
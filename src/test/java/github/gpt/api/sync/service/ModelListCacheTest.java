@@ -0,0 +1,96 @@
+package github.gpt.api.sync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelListCacheTest {
+
+    private static final long TTL = 10_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ModelListCache cache = new ModelListCache(now::get);
+
+    @Test
+    void testConcurrentLookupsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.get("http://gpt-load/proxy/a", "sk-1", TTL, () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return List.of("gpt-4o");
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+        }
+        for (Future<List<String>> future : futures) {
+            assertEquals(List.of("gpt-4o"), future.get());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEntriesAreKeyedByBaseUrlAndKeyAndExpire() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ModelListCache.Loader loader = () -> List.of("model-" + loads.incrementAndGet());
+
+        assertEquals(List.of("model-1"), cache.get("http://a", "sk-1", TTL, loader));
+        assertEquals(List.of("model-1"), cache.get("http://a", "sk-1", TTL, loader));
+        assertEquals(List.of("model-2"), cache.get("http://a", "sk-2", TTL, loader));
+        assertEquals(List.of("model-3"), cache.get("http://b", "sk-1", TTL, loader));
+
+        now.addAndGet(TTL);
+        assertEquals(List.of("model-4"), cache.get("http://a", "sk-1", TTL, loader));
+        assertEquals(List.of("model-5"), cache.get("http://a", "sk-1", 0, loader));
+    }
+
+    @Test
+    void testRefreshAheadReturnsCachedValueAndReplacesItInBackground() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        ModelListCache.Loader loader = () -> {
+            int n = loads.incrementAndGet();
+            if (n == 2) {
+                refreshed.countDown();
+            }
+            return List.of("model-" + n);
+        };
+        cache.get("http://a", "sk-1", TTL, loader);
+
+        now.addAndGet(TTL * 9 / 10);
+        assertEquals(List.of("model-1"), cache.get("http://a", "sk-1", TTL, loader));
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && !cache.get("http://a", "sk-1", TTL, loader).equals(List.of("model-2")); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("model-2"), cache.get("http://a", "sk-1", TTL, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() throws Exception {
+        assertThrows(IOException.class, () -> cache.get("http://a", "sk-1", TTL, () -> {
+            throw new IOException("upstream 503");
+        }));
+        assertEquals(List.of("gpt-4o"), cache.get("http://a", "sk-1", TTL, () -> List.of("gpt-4o")));
+    }
+}
@@ -0,0 +1,55 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.ModelSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelMappingStoreTest {
+
+    private static final List<String> STANDARD_MODELS = List.of("gpt-4o", "claude-4-sonnet");
+    private static final Map<String, String> MAPPING = Map.of("claude-4-sonnet", "claude-sonnet-4-20250514");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFlush_PersistsAcrossInstances() {
+        Path file = tempDir.resolve("model-mapping-cache.json");
+        ModelMappingStore store = new ModelMappingStore(file, 1);
+        store.put(STANDARD_MODELS, ModelSet.of(List.of("gpt-4o", "claude-sonnet-4-20250514")), MAPPING);
+        store.flush();
+
+        ModelMappingStore reloaded = new ModelMappingStore(file, 1);
+        // 模型集合的顺序不影响缓存键
+        assertEquals(MAPPING, reloaded.get(STANDARD_MODELS, ModelSet.of(List.of("claude-sonnet-4-20250514", "gpt-4o"))));
+        assertNull(reloaded.get(STANDARD_MODELS, ModelSet.of(List.of("gpt-4o"))));
+    }
+
+    @Test
+    void testAlgorithmVersionChange_InvalidatesEntries() {
+        Path file = tempDir.resolve("model-mapping-cache.json");
+        ModelSet actualModels = ModelSet.of(List.of("claude-sonnet-4-20250514"));
+        ModelMappingStore store = new ModelMappingStore(file, 1);
+        store.put(STANDARD_MODELS, actualModels, MAPPING);
+        store.flush();
+
+        assertNull(new ModelMappingStore(file, 2).get(STANDARD_MODELS, actualModels));
+    }
+
+    @Test
+    void testStandardModelsChange_InvalidatesEntries() {
+        Path file = tempDir.resolve("model-mapping-cache.json");
+        ModelSet actualModels = ModelSet.of(List.of("claude-sonnet-4-20250514"));
+        ModelMappingStore store = new ModelMappingStore(file, 1);
+        store.put(STANDARD_MODELS, actualModels, MAPPING);
+
+        assertNull(store.get(List.of("claude-4-sonnet"), actualModels));
+        assertNull(store.get(STANDARD_MODELS, actualModels), "旧标准模型列表的条目应已被清空");
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -225,4 +226,44 @@ class ModelRedirectServiceTest {
         assertEquals("o3-advanced-model", mapping.get("o3"), "o3 应该匹配到 o3-advanced-model");
         assertEquals("gpt-4-turbo-preview", mapping.get("gpt"), "gpt 应该匹配到 gpt-4-turbo-preview");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGenerateModelMappings_MatchesSequentialResults() {
+        List<String> standardModels = Arrays.asList("gpt-4o", "claude-4-sonnet", "gemini-2.5-pro", "deepseek-r1");
+        List<List<String>> modelLists = Arrays.asList(
+                Arrays.asList("gpt-4o-2024-11-20", "gpt-4o-mini"),
+                Arrays.asList("claude-sonnet-4-20250514", "claude-3-5-haiku-20241022"),
+                Arrays.asList("gemini-2.5-pro-preview-06-05", "gemini-2.5-flash"),
+                Arrays.asList("deepseek-reasoner", "deepseek-chat"),
+                Arrays.asList("gpt-4o")
+        );
+        Map<Integer, List<String>> inputs = new HashMap<>();
+        for (int channelId = 1; channelId <= 100; channelId++) {
+            inputs.put(channelId, modelLists.get(channelId % modelLists.size()));
+        }
+
+        Map<Integer, Map<String, String>> mappings = modelRedirectService.generateModelMappings(standardModels, inputs);
+
+        assertEquals(inputs.keySet(), mappings.keySet(), "每个渠道都应该有结果");
+        inputs.forEach((channelId, actualModels) ->
+                assertEquals(modelRedirectService.generateModelMapping(standardModels, actualModels), mappings.get(channelId),
+                        "渠道 " + channelId + " 的批量结果应与单独计算一致"));
+    }
+
+    @Test
+    void testRemapModelMapping_MatchesFullRecompute() {
+        List<String> oldStandardModels = Arrays.asList("gpt-4o", "claude-4-sonnet", "deepseek-r1");
+        List<String> newStandardModels = Arrays.asList("gpt-4o", "deepseek-r1", "gemini-2.5-pro");
+        List<String> actualModels = Arrays.asList("gpt-4o-2024-11-20", "claude-sonnet-4-20250514",
+                "deepseek-reasoner", "gemini-2.5-pro-preview-06-05");
+
+        Map<String, String> oldMapping = modelRedirectService.generateModelMapping(oldStandardModels, actualModels);
+        Map<String, String> remapped = modelRedirectService.remapModelMapping(oldMapping, newStandardModels,
+                List.of("gemini-2.5-pro"), actualModels);
+
+        assertFalse(remapped.containsKey("claude-4-sonnet"), "删除的标准模型应该从映射中移除");
+        assertEquals("gemini-2.5-pro-preview-06-05", remapped.get("gemini-2.5-pro"), "新增的标准模型应该被匹配");
+        assertEquals(modelRedirectService.generateModelMapping(newStandardModels, actualModels), remapped,
+                "增量结果应与按新列表完整计算一致");
+    }
+}
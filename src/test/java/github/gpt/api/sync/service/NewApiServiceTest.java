@@ -0,0 +1,98 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.ModelSet;
+import github.gpt.api.sync.model.newapi.NewApiChannelSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NewApiServiceTest {
+
+    @Test
+    void testDecodeChannelSummaries_OnlyKeepsProjectedFields() throws IOException {
+        String json = """
+                {
+                  "success": true,
+                  "message": "",
+                  "data": {
+                    "items": [
+                      {
+                        "id": 7,
+                        "type": 1,
+                        "key": "sk-secret",
+                        "name": "openai-group",
+                        "base_url": "http://localhost:3001/proxy/openai-group",
+                        "models": "gpt-4o,gpt-4o-mini",
+                        "model_mapping": "{\\"gpt-4\\":\\"gpt-4o\\"}",
+                        "other_info": "{\\"nested\\":[1,2,3]}",
+                        "channel_info": {"is_multi_key": false, "multi_key_size": 0},
+                        "balance": 1.5
+                      },
+                      {
+                        "id": 8,
+                        "name": "empty",
+                        "base_url": null,
+                        "models": "",
+                        "model_mapping": null
+                      }
+                    ],
+                    "page": 1,
+                    "total": 2,
+                    "type_counts": {"1": 2}
+                  }
+                }
+                """;
+
+        List<NewApiChannelSummary> channels = NewApiService.decodeChannelSummaries(new StringReader(json));
+
+        assertEquals(2, channels.size());
+        assertEquals(new NewApiChannelSummary(7, "http://localhost:3001/proxy/openai-group", "openai-group",
+                ModelSet.of(List.of("gpt-4o", "gpt-4o-mini")), "{\"gpt-4\":\"gpt-4o\"}"), channels.get(0));
+        assertEquals(new NewApiChannelSummary(8, null, "empty", ModelSet.EMPTY, null), channels.get(1));
+    }
+
+    @Test
+    void testDecodeChannelSummaries_MissingDataIsRejected() {
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeChannelSummaries(new StringReader("{\"success\": false, \"message\": \"无权进行此操作\"}")));
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeChannelSummaries(new StringReader("[]")));
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeChannelSummaries(new StringReader("{\"data\": {\"items\": [{\"id\": \"abc\"}]}}")));
+    }
+
+    @Test
+    void testDecodeChannelFingerprint() throws IOException {
+        String json = """
+                {
+                  "success": true,
+                  "data": {
+                    "items": [{"id": 42, "name": "latest", "channel_info": {"is_multi_key": false}, "used_quota": 100}],
+                    "total": 200,
+                    "page": 1,
+                    "page_size": 1
+                  }
+                }
+                """;
+
+        assertEquals("200:42", NewApiService.decodeChannelFingerprint(new StringReader(json)));
+        assertEquals("0:0", NewApiService.decodeChannelFingerprint(new StringReader("{\"data\": {\"items\": [], \"total\": 0}}")));
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeChannelFingerprint(new StringReader("{\"data\": {\"items\": []}}")));
+    }
+
+    @Test
+    void testDecodeModelNames() throws IOException {
+        String json = "{\"success\": true, \"message\": \"\", \"data\": [\"gpt-4o\", \"gpt-4o-mini\"], \"extra\": {\"a\": 1}}";
+
+        assertEquals(List.of("gpt-4o", "gpt-4o-mini"), NewApiService.decodeModelNames(new StringReader(json)));
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeModelNames(new StringReader("{\"success\": false, \"message\": \"渠道不存在\"}")));
+        assertThrows(IOException.class,
+                () -> NewApiService.decodeModelNames(new StringReader("{\"data\": {\"items\": []}}")));
+    }
+}
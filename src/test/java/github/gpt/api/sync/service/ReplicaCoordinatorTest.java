@@ -0,0 +1,125 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.CoordinationMode;
+import github.gpt.api.sync.model.gptload.GroupSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaCoordinatorTest {
+
+    private static final long LEASE_MILLIS = 30_000;
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final List<String> events = new ArrayList<>();
+    private ReplicaCoordinator first;
+    private ReplicaCoordinator second;
+
+    @BeforeEach
+    void setUp() {
+        first = coordinator("replica-a");
+        second = coordinator("replica-b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.leave();
+        second.leave();
+    }
+
+    @Test
+    void testLeaderLeaseMovesOnlyAfterExpiry() {
+        first.start(listener("replica-a"));
+        second.start(listener("replica-b"));
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+        assertEquals("replica-a", second.leader());
+        assertEquals(List.of("replica-a", "replica-b"), second.ring().members());
+
+        // 租约有效期内 leader 不变
+        now.addAndGet(LEASE_MILLIS / 2);
+        second.heartbeat();
+        assertFalse(second.isLeader());
+
+        // replica-a 停止续约，租约到期后由 replica-b 接手，replica-a 同时从成员中移除
+        now.addAndGet(LEASE_MILLIS);
+        assertFalse(first.isLeader());
+        assertNull(first.ring());
+        second.heartbeat();
+        assertTrue(second.isLeader());
+        assertEquals(List.of("replica-b"), second.ring().members());
+
+        first.heartbeat();
+        assertFalse(first.isLeader());
+        assertEquals("replica-b", first.leader());
+        assertEquals(List.of("replica-a:leadershipLost"), events);
+    }
+
+    @Test
+    void testRequestsAreClaimedOnceByAddressee() {
+        first.start(listener("replica-a"));
+        second.start(listener("replica-b"));
+
+        assertTrue(second.requestSync(null, new GroupSelection(Set.of(3), Set.of("group-a"))));
+        assertTrue(first.requestSync("replica-b", null));
+        assertTrue(second.claimRequests().stream().allMatch(request -> request.selection() == null));
+        first.heartbeat();
+        assertEquals(List.of("replica-a:syncRequested"), events);
+
+        List<ReplicaCoordinator.SyncRequest> requests = first.claimRequests();
+        assertEquals(1, requests.size());
+        assertEquals("replica-b", requests.get(0).requestedBy());
+        assertEquals(Set.of(3), requests.get(0).selection().getIds());
+        assertEquals(Set.of("group-a"), requests.get(0).selection().getNames());
+        assertTrue(first.claimRequests().isEmpty());
+    }
+
+    @Test
+    void testRingMovesOnlyKeysOfDepartedMember() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("replica-a", "replica-b", "replica-c"));
+        ConsistentHashRing two = new ConsistentHashRing(List.of("replica-c", "replica-a"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String key = "group-" + i;
+            String owner = three.ownerOf(key);
+            counts.merge(owner, 1, Integer::sum);
+            if (!owner.equals("replica-b")) {
+                assertEquals(owner, two.ownerOf(key));
+            }
+        }
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 500, "分组分配过于不均: " + counts));
+    }
+
+    private ReplicaCoordinator coordinator(String memberId) {
+        return new ReplicaCoordinator(CoordinationMode.LEADER, tempDir.resolve("coordination.db"), memberId, LEASE_MILLIS, now::get);
+    }
+
+    private ReplicaCoordinator.Listener listener(String memberId) {
+        return new ReplicaCoordinator.Listener() {
+            @Override
+            public void leadershipLost() {
+                events.add(memberId + ":leadershipLost");
+            }
+
+            @Override
+            public void syncRequested() {
+                events.add(memberId + ":syncRequested");
+            }
+        };
+    }
+}
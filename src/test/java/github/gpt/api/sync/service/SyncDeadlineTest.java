@@ -0,0 +1,54 @@
+package github.gpt.api.sync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncDeadlineTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void testTimeoutsShrinkToRemainingBudget() throws Exception {
+        SyncDeadline deadline = SyncDeadline.after(5_000, now::get);
+        HttpURLConnection connection = (HttpURLConnection) new URI("http://127.0.0.1:1/").toURL().openConnection();
+
+        deadline.applyTimeouts(connection, 10_000, 3_000);
+        assertEquals(5_000, connection.getConnectTimeout());
+        assertEquals(3_000, connection.getReadTimeout());
+
+        now.addAndGet(4_500);
+        deadline.applyTimeouts(connection, 10_000, 3_000);
+        assertEquals(500, connection.getConnectTimeout());
+        assertEquals(500, connection.getReadTimeout());
+        // 0 表示不超时，有时限时也要限制在剩余时间内
+        assertEquals(500, deadline.bounded(0));
+
+        now.addAndGet(500);
+        assertEquals("超过同步时限", deadline.stopReason());
+        assertThrows(SyncDeadline.DeadlineExceededException.class, () -> deadline.applyTimeouts(connection, 10_000, 3_000));
+    }
+
+    @Test
+    void testUnboundedDeadlineKeepsConfiguredTimeouts() {
+        SyncDeadline deadline = SyncDeadline.after(0, now::get);
+        assertFalse(deadline.isBounded());
+        assertEquals(10_000, deadline.bounded(10_000));
+        assertEquals(0, deadline.bounded(0));
+        assertNull(deadline.stopReason());
+    }
+
+    @Test
+    void testFirstCancelReasonWins() {
+        SyncDeadline deadline = SyncDeadline.none();
+        assertTrue(deadline.cancel("被手动取消"));
+        assertFalse(deadline.cancel("超过同步时限"));
+        assertEquals("被手动取消", deadline.stopReason());
+        SyncDeadline.DeadlineExceededException e = assertThrows(SyncDeadline.DeadlineExceededException.class, deadline::check);
+        assertEquals("同步已停止: 被手动取消", e.getMessage());
+    }
+}
@@ -0,0 +1,136 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.config.ConfigSnapshot;
+import github.gpt.api.sync.model.history.GroupSyncOutcome;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncHistoryStoreTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final ConfigSnapshot.HistorySettings SETTINGS = new ConfigSnapshot.HistorySettings(true, 14, 90, 730);
+
+    @TempDir
+    Path tempDir;
+
+    private SyncHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new SyncHistoryStore(tempDir.resolve("sync-history.db"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void testRecordAndQueryRunsAndGroups() throws SQLException {
+        long now = System.currentTimeMillis();
+        long id = store.record(run(now, 1200, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS), SETTINGS);
+        store.record(run(now - 2 * DAY_MS, 800, true, "group-a", GroupSyncOutcome.OUTCOME_FAILED), SETTINGS);
+        assertTrue(id > 0);
+
+        List<Map<String, Object>> runs = store.findRuns(now - DAY_MS, now + 1, 10);
+        assertEquals(1, runs.size());
+        assertEquals(1200L, runs.get(0).get("duration_ms"));
+        assertEquals(Map.of("fetch_ms", 100L, "map_ms", 10L, "targets_ms", 1000L), runs.get(0).get("phases"));
+
+        Map<String, Object> detail = store.findRun(id);
+        assertNotNull(detail);
+        assertEquals(1, ((List<?>) detail.get("groups")).size());
+        assertNull(store.findRun(id + 100));
+
+        List<Map<String, Object>> outcomes = store.findGroupOutcomes("group-a", now - 7 * DAY_MS, now + 1, 10);
+        assertEquals(2, outcomes.size());
+        assertEquals(GroupSyncOutcome.OUTCOME_SUCCESS, outcomes.get(0).get("outcome"));
+        assertEquals(GroupSyncOutcome.OUTCOME_FAILED, outcomes.get(1).get("outcome"));
+    }
+
+    @Test
+    void testRollupsAccumulatePerBucket() throws SQLException {
+        long hour = (System.currentTimeMillis() / DAY_MS) * DAY_MS + 5 * HOUR_MS;
+        store.record(run(hour + 1000, 1000, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS), SETTINGS);
+        store.record(run(hour + 2000, 3000, false, "group-a", GroupSyncOutcome.OUTCOME_ERROR), SETTINGS);
+        store.record(run(hour + HOUR_MS, 2000, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS), SETTINGS);
+
+        List<Map<String, Object>> hourly = store.findRollups(SyncHistoryStore.BUCKET_HOUR, hour, hour + DAY_MS);
+        assertEquals(2, hourly.size());
+        Map<String, Object> first = hourly.get(0);
+        assertEquals(hour, first.get("bucket_start"));
+        assertEquals(2L, first.get("runs"));
+        assertEquals(1L, first.get("successes"));
+        assertEquals(2000L, first.get("avg_duration_ms"));
+        assertEquals(1000L, first.get("min_duration_ms"));
+        assertEquals(3000L, first.get("max_duration_ms"));
+        assertEquals(1L, first.get("group_failures"));
+
+        List<Map<String, Object>> daily = store.findRollups(SyncHistoryStore.BUCKET_DAY, hour - DAY_MS, hour + DAY_MS);
+        assertEquals(1, daily.size());
+        assertEquals(3L, daily.get(0).get("runs"));
+    }
+
+    @Test
+    void testCompactionKeepsRollupsAfterDetailsExpire() throws SQLException {
+        long now = System.currentTimeMillis();
+        long old = now - 30 * DAY_MS;
+        store.record(run(old, 1000, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS), SETTINGS);
+        store.compact(now, SETTINGS);
+
+        // 分组结果保留 14 天，同步记录保留 90 天，汇总统计保留 730 天
+        assertTrue(store.findGroupOutcomes("group-a", old - DAY_MS, now, 10).isEmpty());
+        assertEquals(1, store.findRuns(old - DAY_MS, now, 10).size());
+        assertEquals(1, store.findRollups(SyncHistoryStore.BUCKET_DAY, old - DAY_MS, now).size());
+
+        store.compact(now, new ConfigSnapshot.HistorySettings(true, 14, 7, 730));
+        assertTrue(store.findRuns(old - DAY_MS, now, 10).isEmpty());
+        assertEquals(1, store.findRollups(SyncHistoryStore.BUCKET_DAY, old - DAY_MS, now).size());
+    }
+
+    @Test
+    void testTargetedRunsAreKeptOutOfRollups() throws SQLException {
+        long now = System.currentTimeMillis();
+        SyncRunRecord targeted = run(now, 100, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS);
+        targeted.setMode(SyncRunRecord.MODE_TARGETED);
+        long id = store.record(targeted, SETTINGS);
+
+        assertEquals(SyncRunRecord.MODE_TARGETED, store.findRun(id).get("mode"));
+        assertEquals(1, store.findGroupOutcomes("group-a", now - DAY_MS, now + 1, 10).size());
+        assertTrue(store.findRollups(SyncHistoryStore.BUCKET_HOUR, now - DAY_MS, now + 1).isEmpty());
+    }
+
+    @Test
+    void testDisabledHistoryRecordsNothing() throws SQLException {
+        long now = System.currentTimeMillis();
+        assertEquals(-1, store.record(run(now, 1000, true, "group-a", GroupSyncOutcome.OUTCOME_SUCCESS),
+                new ConfigSnapshot.HistorySettings(false, 14, 90, 730)));
+        assertTrue(store.findRuns(0, now + 1, 10).isEmpty());
+    }
+
+    private static SyncRunRecord run(long startedAt, long durationMs, boolean success, String group, String outcome) {
+        SyncRunRecord run = new SyncRunRecord();
+        run.setStartedAt(startedAt);
+        run.setDurationMs(durationMs);
+        run.setSuccess(success);
+        run.setGroupsFetched(1);
+        run.setChannelsUpdated(1);
+        run.setFetchMs(100);
+        run.setMapMs(10);
+        run.setTargetsMs(1000);
+        run.setTargetsJson("[]");
+        run.getGroups().add(new GroupSyncOutcome("default", group, GroupSyncOutcome.ACTION_UPDATE, outcome, 25));
+        return run;
+    }
+}
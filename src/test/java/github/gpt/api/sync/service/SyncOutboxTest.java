@@ -0,0 +1,84 @@
+package github.gpt.api.sync.service;
+
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncOutboxTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyncOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new SyncOutbox(tempDir.resolve("sync-outbox.db"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    void testPlannedWritesSurviveReopenUntilDone() {
+        outbox.plan(List.of("production", "staging"), List.of(
+                new SyncOutbox.PlannedWrite("group-a", channel("http://gpt-load/proxy/a"), false),
+                new SyncOutbox.PlannedWrite("group-b", channel("http://gpt-load/proxy/b"), true)), 1000);
+        outbox.markWritten("production", "http://gpt-load/proxy/a");
+        outbox.markDone("production", "http://gpt-load/proxy/b");
+
+        // 模拟进程退出后重新打开
+        outbox.close();
+        outbox = new SyncOutbox(tempDir.resolve("sync-outbox.db"));
+        List<SyncOutbox.Entry> entries = outbox.pending();
+        assertEquals(3, entries.size());
+
+        SyncOutbox.Entry written = entries.get(0);
+        assertEquals("production", written.target());
+        assertEquals("group-a", written.groupName());
+        assertFalse(written.isPending());
+        assertFalse(written.modelsResolved());
+        assertEquals("http://gpt-load/proxy/a", written.channel().getBaseUrl());
+        assertEquals("sk-a", written.channel().getKey());
+
+        assertTrue(entries.stream().filter(entry -> entry.target().equals("staging")).allMatch(SyncOutbox.Entry::isPending));
+        assertTrue(entries.stream().anyMatch(entry -> entry.target().equals("staging") && entry.modelsResolved()));
+    }
+
+    @Test
+    void testLaterPlanReplacesEntryAndPurgesStaleOnes() {
+        outbox.plan(List.of("production"), List.of(
+                new SyncOutbox.PlannedWrite("group-a", channel("http://gpt-load/proxy/a"), false),
+                new SyncOutbox.PlannedWrite("group-gone", channel("http://gpt-load/proxy/gone"), false)), 1000);
+        outbox.markWritten("production", "http://gpt-load/proxy/a");
+        outbox.plan(List.of("production"), List.of(
+                new SyncOutbox.PlannedWrite("group-a", channel("http://gpt-load/proxy/a"), false)), 2000);
+
+        assertEquals(1, outbox.purgeBefore("production", 2000));
+        List<SyncOutbox.Entry> entries = outbox.pending();
+        assertEquals(1, entries.size());
+        assertEquals(2000, entries.get(0).runStartedAt());
+        assertTrue(entries.get(0).isPending());
+
+        assertEquals(1, outbox.discardRun(2000));
+        assertTrue(outbox.pending().isEmpty());
+    }
+
+    private static NewApiChannel channel(String baseUrl) {
+        NewApiChannel channel = new NewApiChannel();
+        channel.setName("gpt-load-" + baseUrl.substring(baseUrl.lastIndexOf('/') + 1));
+        channel.setBaseUrl(baseUrl);
+        channel.setKey("sk-" + baseUrl.substring(baseUrl.lastIndexOf('/') + 1));
+        channel.setModels("gpt-4o");
+        return channel;
+    }
+}
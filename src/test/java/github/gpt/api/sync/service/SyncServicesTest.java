@@ -0,0 +1,205 @@
+package github.gpt.api.sync.service;
+
+import com.google.gson.JsonObject;
+import github.gpt.api.sync.config.AppConfig;
+import github.gpt.api.sync.fixture.FakeGptLoadServer;
+import github.gpt.api.sync.fixture.FakeNewApiServer;
+import github.gpt.api.sync.fixture.Latency;
+import github.gpt.api.sync.json.Json;
+import github.gpt.api.sync.model.history.SyncRunRecord;
+import github.gpt.api.sync.model.newapi.NewApiChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 针对模拟 gpt-load / New-API 的同步、取消、继续未完成的写入和更新模型映射。
+ * 配置写入测试工作目录下的 data/config.json 后重新加载
+ */
+class SyncServicesTest {
+
+    private static final int GROUP_COUNT = 40;
+
+    @TempDir
+    Path tempDir;
+
+    private FakeGptLoadServer gptLoad;
+    private FakeNewApiServer newApi;
+    private SyncOutbox syncOutbox;
+    private SyncHistoryStore syncHistoryStore;
+    private SyncRunRegistry runs;
+    private SyncPipelineService pipeline;
+    private PendingWriteResumeService resumeService;
+    private ModelRemapService remapService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gptLoad = new FakeGptLoadServer(GROUP_COUNT);
+        gptLoad.start();
+        newApi = new FakeNewApiServer();
+        newApi.start();
+        writeConfig(List.of("gpt-4o"));
+
+        GptLoadService gptLoadService = new GptLoadService();
+        ChannelPruneService channelPruneService = new ChannelPruneService();
+        syncOutbox = new SyncOutbox(tempDir.resolve("sync-outbox.db"));
+        syncHistoryStore = new SyncHistoryStore(tempDir.resolve("sync-history.db"));
+        runs = new SyncRunRegistry();
+        ChannelModelService channelModelService = new ChannelModelService(gptLoadService, new ModelRedirectService(),
+                new ModelMappingStore(tempDir.resolve("model-mappings.json"), ModelRedirectService.ALGORITHM_VERSION),
+                new ModelListCache(), syncOutbox);
+        pipeline = new SyncPipelineService(gptLoadService, new ChannelMapperService(), channelPruneService, channelModelService,
+                syncHistoryStore, syncOutbox, runs);
+        resumeService = new PendingWriteResumeService(channelModelService, syncHistoryStore, syncOutbox, runs);
+        remapService = new ModelRemapService(gptLoadService, channelPruneService, channelModelService, syncHistoryStore, runs);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        gptLoad.close();
+        newApi.close();
+        syncOutbox.close();
+        syncHistoryStore.close();
+        // 恢复默认配置，不影响其他测试
+        Files.writeString(Path.of(AppConfig.CONFIG_FILE), "{}");
+        AppConfig.reloadConfig();
+    }
+
+    @Test
+    void testCancelReturnsPartialResultAndDiscardsOutbox() throws Exception {
+        newApi.latency(Latency.fixed(20));
+        Map<String, Object> result;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Map<String, Object>> run = executor.submit(() -> pipeline.run(null, SyncPipelineService.ReplicaScope.standalone()));
+            long waitUntil = System.currentTimeMillis() + 10_000;
+            while (newApi.channelCount() < 5 && System.currentTimeMillis() < waitUntil) {
+                Thread.sleep(10);
+            }
+            SyncRunRegistry.ActiveRun active = runs.active();
+            assertNotNull(active, "同步应仍在进行");
+            assertEquals(SyncRunRecord.MODE_FULL, active.mode());
+            assertTrue(runs.stop(active, "测试取消"));
+            assertFalse(runs.stop(active, "重复取消"), "已停止的同步不应再次停止");
+            result = run.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(false, result.get("success"));
+        assertEquals(true, result.get("partial"));
+        assertEquals("测试取消", result.get("stop_reason"));
+        @SuppressWarnings("unchecked")
+        List<String> unprocessed = (List<String>) result.get("unprocessed_groups");
+        int created = (Integer) result.get("channels_created");
+        assertFalse(unprocessed.isEmpty());
+        // 停止时正在进行的写入可能已到达 New-API，但按失败计入
+        assertTrue(created > 0 && created + unprocessed.size() <= GROUP_COUNT,
+                "created=" + created + ", unprocessed=" + unprocessed.size());
+        assertTrue(newApi.channelCount() >= created);
+        assertNull(runs.active());
+        assertTrue(syncOutbox.pending().isEmpty(), "停止的同步不应在重启后继续");
+        assertNotNull(result.get("history_id"));
+    }
+
+    @Test
+    void testResumeWritesPendingChannelsAndModels() {
+        List<SyncOutbox.PlannedWrite> writes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            writes.add(new SyncOutbox.PlannedWrite("group-" + i, channel(gptLoad.baseUrl() + "/proxy/resume-" + i), false));
+        }
+        syncOutbox.plan(List.of("default"), writes, 1000);
+
+        Map<String, Object> result = resumeService.resume();
+
+        assertEquals(SyncRunRecord.MODE_RESUME, result.get("mode"));
+        assertEquals(true, result.get("success"));
+        assertEquals(3, result.get("entries"));
+        assertEquals(3, result.get("channels_created"));
+        assertNotNull(result.get("history_id"));
+        assertEquals(3, newApi.channelCount());
+        for (JsonObject channel : newApi.channels()) {
+            // 创建后通过 New-API 获取实际模型并写回
+            assertTrue(channel.get("models").getAsString().contains("gpt-4o-2024-11-20"), channel.toString());
+        }
+        assertTrue(syncOutbox.pending().isEmpty());
+        assertNull(resumeService.resume(), "outbox 为空时不执行");
+    }
+
+    @Test
+    void testRemapAddsAndRemovesStandardModels() throws IOException {
+        assertEquals(true, pipeline.run(null, SyncPipelineService.ReplicaScope.standalone()).get("success"));
+        assertTrue(mappings(1).stream().allMatch(mapping -> mapping.contains("\"gpt-4o\"")));
+
+        writeConfig(List.of("gpt-4o", "claude-sonnet-4"));
+        Map<String, Object> added = remapService.remap(List.of("claude-sonnet-4"), List.of());
+
+        assertEquals(SyncRunRecord.MODE_REMAP, added.get("mode"));
+        assertEquals(true, added.get("success"));
+        assertEquals(List.of("claude-sonnet-4"), added.get("added_models"));
+        int anthropicChannels = mappings(14).size();
+        assertEquals(anthropicChannels, added.get("channels_updated"), "只有 anthropic 渠道匹配新增的标准模型");
+        assertTrue(mappings(14).stream().allMatch(mapping -> mapping.contains("\"claude-sonnet-4\"")));
+        assertTrue(models(14).stream().allMatch(models -> models.contains("claude-sonnet-4")));
+
+        writeConfig(List.of("claude-sonnet-4"));
+        Map<String, Object> removed = remapService.remap(List.of(), List.of("gpt-4o"));
+
+        assertEquals(true, removed.get("success"));
+        assertTrue(mappings(1).stream().noneMatch(mapping -> mapping.contains("\"gpt-4o\"")));
+        assertTrue(models(1).stream().noneMatch(models -> List.of(models.split(",")).contains("gpt-4o")));
+        assertTrue(mappings(14).stream().allMatch(mapping -> mapping.contains("\"claude-sonnet-4\"")));
+    }
+
+    private void writeConfig(List<String> standardModels) throws IOException {
+        Map<String, Object> config = Map.of(
+                "gptLoad", Map.of("baseUrl", gptLoad.baseUrl(), "authKey", "test-key"),
+                "newApi", Map.of("baseUrl", newApi.baseUrl(), "accessToken", "test-token"),
+                "sync", Map.of("runTimeoutSeconds", 0, "skipUnchangedMaxAgeMinutes", 0, "modelCacheTtlSeconds", 0),
+                "modelRedirect", Map.of("standardModels", standardModels));
+        Files.createDirectories(Path.of(AppConfig.DATA_PATH));
+        Files.writeString(Path.of(AppConfig.CONFIG_FILE), Json.GSON.toJson(config));
+        AppConfig.reloadConfig();
+    }
+
+    /**
+     * 指定类型渠道的 model_mapping
+     */
+    private List<String> mappings(int type) {
+        return channelsOfType(type).stream()
+                .map(channel -> channel.has("model_mapping") && !channel.get("model_mapping").isJsonNull()
+                        ? channel.get("model_mapping").getAsString() : "")
+                .toList();
+    }
+
+    private List<String> models(int type) {
+        return channelsOfType(type).stream().map(channel -> channel.get("models").getAsString()).toList();
+    }
+
+    private List<JsonObject> channelsOfType(int type) {
+        List<JsonObject> channels = newApi.channels().stream().filter(channel -> channel.get("type").getAsInt() == type).toList();
+        assertFalse(channels.isEmpty(), "没有类型为 " + type + " 的渠道");
+        return channels;
+    }
+
+    private static NewApiChannel channel(String baseUrl) {
+        NewApiChannel channel = new NewApiChannel();
+        channel.setName("gpt-load-" + baseUrl.substring(baseUrl.lastIndexOf('/') + 1));
+        channel.setType(1);
+        channel.setBaseUrl(baseUrl);
+        channel.setKey("sk-" + baseUrl.substring(baseUrl.lastIndexOf('/') + 1));
+        channel.setModels("gpt-4o-mini");
+        return channel;
+    }
+}